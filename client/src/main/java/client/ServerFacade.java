@@ -8,37 +8,78 @@ import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import models.AuthToken;
 import models.Game;
 
 /**
  * Handles HTTP communication with the server.
+ * <p>
+ * All requests go through one HttpClient, which keeps HTTP/1.1 connections to the server
+ * alive between calls instead of opening a new one per request. Every method has an
+ * {@code Async} variant that returns a CompletableFuture; it completes exceptionally with
+ * the same exception the blocking version would throw.
  */
 public class ServerFacade {
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
     private final String baseUrl;
+    private final Duration requestTimeout;
+    private final HttpClient client;
     private final Gson gson = new Gson();
 
+    /**
+     * Turns a response into a result, throwing with the server's message on failure.
+     */
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+        T parse(HttpResponse<String> response) throws Exception;
+    }
+
     public ServerFacade(int port) {
-        this.baseUrl = "http://localhost:" + port;
+        this("http://localhost:" + port, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param baseUrl        the server's address, e.g. {@code http://localhost:8080}.
+     * @param connectTimeout how long to wait when opening a connection.
+     * @param requestTimeout how long to wait for each response.
+     */
+    public ServerFacade(String baseUrl, Duration connectTimeout, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        // The server speaks plain HTTP/1.1; pinning the version skips the h2c upgrade attempt.
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
     }
 
     public AuthToken register(String username, String password, String email) throws Exception {
-        var client = HttpClient.newHttpClient();
+        return send(registerRequest(username, password, email), this::getAuthToken);
+    }
+
+    public CompletableFuture<AuthToken> registerAsync(String username, String password, String email) {
+        return sendAsync(registerRequest(username, password, email), this::getAuthToken);
+    }
+
+    private HttpRequest registerRequest(String username, String password, String email) {
         var user = Map.of("username", username, "password", password, "email", email);
-        var requestBody = gson.toJson(user);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/user"))
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+        return request("/user")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(user)))
                 .header("Content-Type", "application/json")
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        return getAuthToken(response);
     }
 
     private AuthToken getAuthToken(HttpResponse<String> response) throws Exception {
@@ -54,43 +95,68 @@ public class ServerFacade {
     }
 
     public AuthToken login(String username, String password) throws Exception {
-        var client = HttpClient.newHttpClient();
+        return send(loginRequest(username, password), this::getAuthToken);
+    }
+
+    public CompletableFuture<AuthToken> loginAsync(String username, String password) {
+        return sendAsync(loginRequest(username, password), this::getAuthToken);
+    }
+
+    private HttpRequest loginRequest(String username, String password) {
         var user = Map.of("username", username, "password", password);
-        var requestBody = gson.toJson(user);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/session"))
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+        return request("/session")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(user)))
                 .header("Content-Type", "application/json")
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        return getAuthToken(response);
     }
 
     public void logout(String authToken) throws Exception {
-        var client = HttpClient.newHttpClient();
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/session"))
+        send(logoutRequest(authToken), this::checkOk);
+    }
+
+    public CompletableFuture<Void> logoutAsync(String authToken) {
+        return sendAsync(logoutRequest(authToken), this::checkOk);
+    }
+
+    private HttpRequest logoutRequest(String authToken) {
+        return request("/session")
                 .DELETE()
                 .header("Authorization", authToken)
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new Exception(parseErrorMessage(response.body()));
-        }
     }
 
     public List<Game> listGames(String authToken) throws Exception {
+        requireAuthToken(authToken);
+        return send(listGamesRequest(authToken), this::parseGames);
+    }
+
+    /**
+     * Lists only the games in which the given player holds a seat.
+     */
+    public List<Game> listGames(String authToken, String player) throws Exception {
+        requireAuthToken(authToken);
+        HttpRequest request = request("/game?player=" + URLEncoder.encode(player, StandardCharsets.UTF_8))
+                .GET()
+                .header("Authorization", authToken)
+                .build();
+        return send(request, this::parseGames);
+    }
+
+    public CompletableFuture<List<Game>> listGamesAsync(String authToken) {
         if (authToken == null || authToken.isEmpty()) {
-            throw new Exception("Invalid auth token");
+            return CompletableFuture.failedFuture(new Exception("Invalid auth token"));
         }
+        return sendAsync(listGamesRequest(authToken), this::parseGames);
+    }
 
-        var client = HttpClient.newHttpClient();
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/game"))
+    private HttpRequest listGamesRequest(String authToken) {
+        return request("/game")
                 .GET()
                 .header("Authorization", authToken)
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Game> parseGames(HttpResponse<String> response) throws Exception {
         if (response.statusCode() == 200) {
             var responseBody = response.body();
             // Parse the response body into a JsonObject
@@ -108,20 +174,27 @@ public class ServerFacade {
     }
 
     public Game createGame(String authToken, String gameName) throws Exception {
+        requireAuthToken(authToken);
+        return send(createGameRequest(authToken, gameName), this::parseCreatedGame);
+    }
+
+    public CompletableFuture<Game> createGameAsync(String authToken, String gameName) {
         if (authToken == null || authToken.isEmpty()) {
-            throw new Exception("Invalid auth token");
+            return CompletableFuture.failedFuture(new Exception("Invalid auth token"));
         }
+        return sendAsync(createGameRequest(authToken, gameName), this::parseCreatedGame);
+    }
 
-        var client = HttpClient.newHttpClient();
+    private HttpRequest createGameRequest(String authToken, String gameName) {
         var game = Map.of("gameName", gameName);
-        var requestBody = gson.toJson(game);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/game"))
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+        return request("/game")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(game)))
                 .header("Authorization", authToken)
                 .header("Content-Type", "application/json")
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Game parseCreatedGame(HttpResponse<String> response) throws Exception {
         if (response.statusCode() == 200) {
             var responseBody = response.body();
             var responseData = gson.fromJson(responseBody, Map.class);
@@ -134,30 +207,29 @@ public class ServerFacade {
     }
 
     public void joinGame(String authToken, int gameID, String playerColor) throws Exception {
+        requireAuthToken(authToken);
+        send(joinGameRequest(authToken, gameID, playerColor), this::checkOk);
+    }
+
+    public CompletableFuture<Void> joinGameAsync(String authToken, int gameID, String playerColor) {
         if (authToken == null || authToken.isEmpty()) {
-            throw new Exception("Invalid auth token");
+            return CompletableFuture.failedFuture(new Exception("Invalid auth token"));
         }
+        return sendAsync(joinGameRequest(authToken, gameID, playerColor), this::checkOk);
+    }
 
-        var client = HttpClient.newHttpClient();
+    private HttpRequest joinGameRequest(String authToken, int gameID, String playerColor) {
         var joinRequest = Map.of("gameID", gameID, "playerColor", playerColor);
-        var requestBody = gson.toJson(joinRequest);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/game"))
-                .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
+        return request("/game")
+                .PUT(HttpRequest.BodyPublishers.ofString(gson.toJson(joinRequest)))
                 .header("Authorization", authToken)
                 .header("Content-Type", "application/json")
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new Exception(parseErrorMessage(response.body()));
-        }
     }
 
     // Method to clear the database between tests
     public void clearDatabase() throws Exception {
-        var client = HttpClient.newHttpClient();
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/db"))
+        var request = request("/db")
                 .DELETE()
                 .build();
         var response = client.send(request, HttpResponse.BodyHandlers.ofString());
@@ -166,6 +238,40 @@ public class ServerFacade {
         }
     }
 
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .timeout(requestTimeout);
+    }
+
+    private <T> T send(HttpRequest request, ResponseParser<T> parser) throws Exception {
+        return parser.parse(client.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, ResponseParser<T> parser) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    try {
+                        return parser.parse(response);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private Void checkOk(HttpResponse<String> response) throws Exception {
+        if (response.statusCode() != 200) {
+            throw new Exception(parseErrorMessage(response.body()));
+        }
+        return null;
+    }
+
+    private void requireAuthToken(String authToken) throws Exception {
+        if (authToken == null || authToken.isEmpty()) {
+            throw new Exception("Invalid auth token");
+        }
+    }
+
     // Helper method to parse error messages from server responses
     private String parseErrorMessage(String responseBody) {
         try {
@@ -176,4 +282,4 @@ public class ServerFacade {
         }
     }
 
-}
\ No newline at end of file
+}
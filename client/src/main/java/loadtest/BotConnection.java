@@ -0,0 +1,80 @@
+package loadtest;
+
+import chess.ChessMove;
+import websocket.GameMessageHandler;
+import websocket.WebSocketFacade;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One bot's WebSocket connection to a game. Incoming LOAD_GAME and ERROR messages are queued
+ * so the driving thread can wait for the server's reply to each command it sends.
+ */
+class BotConnection implements GameMessageHandler, AutoCloseable {
+    private final String authToken;
+    private final int gameID;
+    private final WebSocketFacade facade;
+    private final BlockingQueue<ServerMessage> replies = new LinkedBlockingQueue<>();
+
+    BotConnection(String url, String authToken, int gameID) throws Exception {
+        this.authToken = authToken;
+        this.gameID = gameID;
+        this.facade = new WebSocketFacade(url, this);
+    }
+
+    void connect() throws Exception {
+        facade.connect(authToken, gameID);
+    }
+
+    void makeMove(ChessMove move) throws Exception {
+        facade.makeMove(authToken, gameID, move);
+    }
+
+    /**
+     * Waits for the next board update.
+     *
+     * @throws IllegalStateException If the server answers with an error instead.
+     */
+    LoadGameMessage awaitLoadGame(long timeoutMillis) throws InterruptedException, TimeoutException {
+        ServerMessage message = replies.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (message == null) {
+            throw new TimeoutException("No reply from the server within " + timeoutMillis + " ms");
+        }
+        if (message instanceof ErrorMessage error) {
+            throw new IllegalStateException(error.getErrorMessage());
+        }
+        return (LoadGameMessage) message;
+    }
+
+    @Override
+    public void notify(NotificationMessage message) {
+        // Notifications carry no state the bots need
+    }
+
+    @Override
+    public void error(ErrorMessage message) {
+        replies.add(message);
+    }
+
+    @Override
+    public void loadGame(LoadGameMessage message) {
+        replies.add(message);
+    }
+
+    @Override
+    public void close() {
+        try {
+            facade.leave(authToken, gameID);
+            facade.session.close();
+        } catch (Exception e) {
+            // The server may already have closed the session after LEAVE
+        }
+    }
+}
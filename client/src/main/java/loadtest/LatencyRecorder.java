@@ -0,0 +1,75 @@
+package loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects round-trip times per operation from many threads and reports percentiles.
+ */
+public class LatencyRecorder {
+    private final Map<String, Queue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Runs an operation and records how long it took, or counts it as an error if it throws.
+     */
+    public <T> T time(String operation, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = work.call();
+            record(operation, System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            recordError(operation);
+            throw e;
+        }
+    }
+
+    public void record(String operation, long nanos) {
+        samples.computeIfAbsent(operation, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+    }
+
+    public void recordError(String operation) {
+        errors.computeIfAbsent(operation, k -> new LongAdder()).increment();
+    }
+
+    public int count(String operation) {
+        Queue<Long> recorded = samples.get(operation);
+        return recorded == null ? 0 : recorded.size();
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return The latency in milliseconds at the percentile, by nearest rank; 0 with no samples.
+     */
+    public double percentileMillis(String operation, double percentile) {
+        Queue<Long> recorded = samples.get(operation);
+        if (recorded == null || recorded.isEmpty()) {
+            return 0;
+        }
+        long[] sorted = recorded.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    public void printReport(PrintStream out) {
+        out.printf("%-16s %8s %7s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        TreeMap<String, Boolean> operations = new TreeMap<>();
+        samples.keySet().forEach(op -> operations.put(op, true));
+        errors.keySet().forEach(op -> operations.put(op, true));
+        for (String op : operations.keySet()) {
+            LongAdder failed = errors.get(op);
+            out.printf("%-16s %8d %7d %9.2f %9.2f %9.2f %9.2f%n", op, count(op), failed == null ? 0 : failed.sum(),
+                    percentileMillis(op, 50), percentileMillis(op, 90), percentileMillis(op, 99),
+                    percentileMillis(op, 100));
+        }
+    }
+}
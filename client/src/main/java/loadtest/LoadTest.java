@@ -0,0 +1,215 @@
+package loadtest;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import client.ServerFacade;
+import models.AuthToken;
+import models.Game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless load generator. Registers a batch of users, creates games, seats two bots in each,
+ * attaches observers, and plays random legal moves over WebSocket, all on virtual threads.
+ * Prints latency percentiles for every REST call and WebSocket round trip when done.
+ * <p>
+ * Usage: {@code LoadTest [--url http://localhost:8080] [--users 20] [--games 10]
+ * [--observers 1] [--plies 60] [--timeout 10000]}
+ */
+public class LoadTest {
+    private final String webSocketUrl;
+    private final int users;
+    private final int games;
+    private final int observersPerGame;
+    private final int maxPlies;
+    private final long timeoutMillis;
+    private final ServerFacade facade;
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final AtomicInteger completedGames = new AtomicInteger();
+    private final AtomicInteger failedGames = new AtomicInteger();
+
+    public LoadTest(String baseUrl, int users, int games, int observersPerGame, int maxPlies, long timeoutMillis) {
+        this.webSocketUrl = baseUrl.replaceFirst("^http", "ws") + "/ws";
+        this.users = users;
+        this.games = games;
+        this.observersPerGame = observersPerGame;
+        this.maxPlies = maxPlies;
+        this.timeoutMillis = timeoutMillis;
+        this.facade = new ServerFacade(baseUrl, ServerFacade.DEFAULT_CONNECT_TIMEOUT, Duration.ofMillis(timeoutMillis));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int users = 20;
+        int games = 10;
+        int observers = 1;
+        int plies = 60;
+        long timeout = 10_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--users" -> users = Integer.parseInt(value);
+                case "--games" -> games = Integer.parseInt(value);
+                case "--observers" -> observers = Integer.parseInt(value);
+                case "--plies" -> plies = Integer.parseInt(value);
+                case "--timeout" -> timeout = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (users < 2) {
+            throw new IllegalArgumentException("At least two users are needed to play a game");
+        }
+
+        LoadTest test = new LoadTest(url, users, games, observers, plies, timeout);
+        long start = System.nanoTime();
+        test.run();
+        System.out.printf("%d users, %d games (%d completed, %d failed) in %.1f s against %s%n", users, games,
+                test.completedGames.get(), test.failedGames.get(), (System.nanoTime() - start) / 1e9, url);
+        test.latencies.printReport(System.out);
+    }
+
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Runs the whole scenario and returns once every game has finished or failed.
+     */
+    public void run() throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<AuthToken>> registrations = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String username = "bot-" + runId + "-" + i;
+                registrations.add(executor.submit(() -> latencies.time("rest.register",
+                        () -> facade.register(username, "password", username + "@example.com"))));
+            }
+            List<AuthToken> tokens = new ArrayList<>();
+            for (Future<AuthToken> registration : registrations) {
+                tokens.add(registration.get());
+            }
+
+            List<Future<Game>> creations = new ArrayList<>();
+            for (int g = 0; g < games; g++) {
+                String token = tokens.get(g % users).getToken();
+                String name = "load-" + runId + "-" + g;
+                creations.add(executor.submit(() -> latencies.time("rest.createGame",
+                        () -> facade.createGame(token, name))));
+            }
+
+            List<Future<?>> plays = new ArrayList<>();
+            for (int g = 0; g < games; g++) {
+                int gameID = creations.get(g).get().getGameID();
+                AuthToken white = tokens.get((2 * g) % users);
+                AuthToken black = tokens.get((2 * g + 1) % users);
+                List<AuthToken> observers = new ArrayList<>();
+                for (int o = 0; o < observersPerGame; o++) {
+                    observers.add(tokens.get((2 * g + 2 + o) % users));
+                }
+                plays.add(executor.submit(() -> {
+                    try {
+                        playGame(gameID, white, black, observers);
+                        completedGames.incrementAndGet();
+                    } catch (Exception e) {
+                        failedGames.incrementAndGet();
+                        System.err.println("Game " + gameID + " failed: " + e.getMessage());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> play : plays) {
+                play.get();
+            }
+        }
+    }
+
+    private void playGame(int gameID, AuthToken white, AuthToken black, List<AuthToken> observerTokens) throws Exception {
+        latencies.time("rest.joinGame", () -> {
+            facade.joinGame(white.getToken(), gameID, "white");
+            return null;
+        });
+        latencies.time("rest.joinGame", () -> {
+            facade.joinGame(black.getToken(), gameID, "black");
+            return null;
+        });
+        latencies.time("rest.listGames", () -> facade.listGames(white.getToken()));
+
+        List<BotConnection> connections = new ArrayList<>();
+        try {
+            BotConnection whiteBot = open(white, gameID, connections);
+            BotConnection blackBot = open(black, gameID, connections);
+            List<BotConnection> observers = new ArrayList<>();
+            for (AuthToken token : observerTokens) {
+                observers.add(open(token, gameID, connections));
+            }
+
+            Random random = ThreadLocalRandom.current();
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < maxPlies && !game.isGameOver(); ply++) {
+                List<ChessMove> moves = legalMoves(game);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                BotConnection mover = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? whiteBot : blackBot;
+                BotConnection opponent = mover == whiteBot ? blackBot : whiteBot;
+
+                long start = System.nanoTime();
+                mover.makeMove(move);
+                try {
+                    game = mover.awaitLoadGame(timeoutMillis).getGame();
+                } catch (Exception e) {
+                    latencies.recordError("ws.move");
+                    throw e;
+                }
+                latencies.record("ws.move", System.nanoTime() - start);
+                // Every connection gets one board per move; wait for all of them so that no
+                // board from this move is mistaken for the reply to the next one.
+                opponent.awaitLoadGame(timeoutMillis);
+                for (BotConnection observer : observers) {
+                    observer.awaitLoadGame(timeoutMillis);
+                    latencies.record("ws.observe", System.nanoTime() - start);
+                }
+            }
+        } finally {
+            connections.forEach(BotConnection::close);
+        }
+    }
+
+    private BotConnection open(AuthToken token, int gameID, List<BotConnection> connections) throws Exception {
+        BotConnection connection = new BotConnection(webSocketUrl, token.getToken(), gameID);
+        connections.add(connection);
+        latencies.time("ws.connect", () -> {
+            connection.connect();
+            return connection.awaitLoadGame(timeoutMillis);
+        });
+        return connection;
+    }
+
+    private static List<ChessMove> legalMoves(ChessGame game) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    Collection<ChessMove> pieceMoves = game.validMoves(position);
+                    moves.addAll(pieceMoves);
+                }
+            }
+        }
+        return moves;
+    }
+}
@@ -47,9 +47,17 @@ public class CommandHandler {
 
     public void listGames() throws Exception {
         var authToken = controller.getAuthToken().getToken();
-        List<Game> games = serverFacade.listGames(authToken);
+        showGames("Available Games:", serverFacade.listGames(authToken));
+    }
+
+    public void listMyGames() throws Exception {
+        var authToken = controller.getAuthToken();
+        showGames("Your Games:", serverFacade.listGames(authToken.getToken(), authToken.getUsername()));
+    }
+
+    private void showGames(String heading, List<Game> games) {
         Map<Integer, Game> gameMap = new HashMap<>();
-        System.out.println("Available Games:");
+        System.out.println(heading);
         int index = 1;
         for (Game game : games) {
             String whitePlayer = game.getWhiteUsername() != null ? game.getWhiteUsername() : "None";
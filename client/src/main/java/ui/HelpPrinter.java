@@ -13,6 +13,7 @@ public class HelpPrinter {
         System.out.println("Commands:");
         System.out.println("  create <game_name> - Create a new game");
         System.out.println("  list - List available games");
+        System.out.println("  list mine - List the games you have a seat in");
         System.out.println("  join <game_number> <white|black> - Join a game as a player");
         System.out.println("  observe <game_number> - Observe a game");
         System.out.println("  logout - Log out of your account");
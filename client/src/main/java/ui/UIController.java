@@ -101,7 +101,13 @@ public class UIController implements GameMessageHandler {
                     System.out.println("Usage: create <game_name>");
                 }
             }
-            case "list" -> commandHandler.listGames();
+            case "list" -> {
+                if (tokens.length == 2 && tokens[1].equalsIgnoreCase("mine")) {
+                    commandHandler.listMyGames();
+                } else {
+                    commandHandler.listGames();
+                }
+            }
             case "join" -> {
                 if (tokens.length == 3) {
                     commandHandler.joinGame(tokens[1], tokens[2]);
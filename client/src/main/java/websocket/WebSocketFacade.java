@@ -14,7 +14,11 @@ public class WebSocketFacade extends Endpoint{
     public Session session;
 
     public WebSocketFacade(GameMessageHandler gameHandler) throws Exception {
-        URI uri = new URI("ws://localhost:8080/ws");
+        this("ws://localhost:8080/ws", gameHandler);
+    }
+
+    public WebSocketFacade(String url, GameMessageHandler gameHandler) throws Exception {
+        URI uri = new URI(url);
         WebSocketContainer container = ContainerProvider.getWebSocketContainer();
         this.session = container.connectToServer(this, uri);
         this.session.addMessageHandler(new MessageHandler.Whole<String>() {
@@ -6,6 +6,7 @@ import server.Server;
 import models.Game;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -230,4 +231,29 @@ public class ServerFacadeTests {
         String expectedMessage = "Invalid auth token";
         assertTrue(exception.getMessage().contains(expectedMessage));
     }
+
+    /**
+     * Positive test for the async variants sharing one connection.
+     */
+    @Test
+    void testAsyncRequestsSuccess() throws Exception {
+        var authData = facade.registerAsync("player1", "password", "p1@example.com").get();
+        var game = facade.createGameAsync(authData.getToken(), "TestGame").get();
+        facade.joinGameAsync(authData.getToken(), game.getGameID(), "white").get();
+        List<Game> games = facade.listGamesAsync(authData.getToken()).get();
+        assertEquals(1, games.size());
+        assertEquals("player1", games.get(0).getWhiteUsername());
+    }
+
+    /**
+     * Negative test: Async requests fail with the server's message.
+     */
+    @Test
+    void testAsyncLoginInvalidCredentials() throws Exception {
+        facade.register("player1", "password", "p1@example.com");
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> {
+            facade.loginAsync("player1", "wrongpassword").get();
+        });
+        assertNotNull(exception.getCause().getMessage());
+    }
 }
@@ -0,0 +1,141 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small, bounded pool of physical database connections. Callers receive a wrapper whose
+ * close() hands the connection back instead of closing it, so per-connection state such as
+ * the driver's prepared statement cache survives from one DAO call to the next.
+ */
+class ConnectionPool {
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private record IdleConnection(Connection connection, long returnedAt) {}
+
+    private final ConnectionFactory factory;
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param factory              opens physical connections on demand.
+     * @param maxSize              the most connections that may be checked out at once.
+     * @param acquireTimeoutMillis how long a caller waits for a free connection before failing.
+     */
+    ConnectionPool(ConnectionFactory factory, int maxSize, long acquireTimeoutMillis) {
+        this.factory = factory;
+        this.permits = new Semaphore(maxSize, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Checks out a connection. Closing the returned connection returns it to the pool.
+     */
+    Connection getConnection() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection");
+        }
+
+        try {
+            return wrap(takeIdleOrCreate());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection takeIdleOrCreate() throws SQLException {
+        IdleConnection candidate;
+        // Most recently used first, so rarely used connections age out and get validated.
+        while ((candidate = idle.pollFirst()) != null) {
+            Connection conn = candidate.connection();
+            boolean stale = System.currentTimeMillis() - candidate.returnedAt() > VALIDATE_AFTER_IDLE_MILLIS;
+            if (!stale || conn.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return conn;
+            }
+            closeQuietly(conn);
+        }
+        return factory.create();
+    }
+
+    private void release(Connection conn) {
+        try {
+            if (conn.isClosed()) {
+                return;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(conn, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            closeQuietly(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            release(physical);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed || physical.isClosed();
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
 import models.User;
 import models.Game;
 import models.AuthToken;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for data access operations.
  */
 public interface DataAccess {
+    /**
+     * Username recorded in a seat played by the computer. Backends whose games reference users
+     * keep a row for it that no password matches, and keep it when users are deleted.
+     */
+    String BOT_USERNAME = "[computer]";
+
     User getUser(String username) throws DataAccessException;
     void createUser(User user) throws DataAccessException;
 
@@ -17,11 +26,78 @@ public interface DataAccess {
     void deleteAuth(String token) throws DataAccessException;
     void deleteAllAuthTokens() throws DataAccessException;
 
+    /**
+     * Deletes up to {@code limit} tokens whose expiry is at or before {@code now}.
+     *
+     * @return the number of tokens deleted.
+     */
+    int deleteExpiredAuths(long now, int limit) throws DataAccessException;
+
     Game getGame(int gameId) throws DataAccessException;
     void createGame(Game game) throws DataAccessException;
     void updateGame(Game game) throws DataAccessException;
+
+    /**
+     * Atomically assigns a seat to a user if it is free or already held by that user.
+     *
+     * @return true if the user now holds the seat, false if the game does not exist
+     *         or the seat belongs to someone else.
+     */
+    boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException;
+
+    /**
+     * Atomically frees a seat if it is held by the given user.
+     *
+     * @return true if the seat was freed, false if the game does not exist or the seat
+     *         belongs to someone else or no one.
+     */
+    boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException;
     List<Game> getAllGames() throws DataAccessException;
+
+    /**
+     * @return the games in which the user holds a seat.
+     */
+    List<Game> getGamesForUser(String username) throws DataAccessException;
     void deleteAllGames() throws DataAccessException;
 
+    /**
+     * Records the next move of a game. Moves are kept in the order they were appended and are
+     * removed along with their games by {@link #deleteAllGames()}.
+     */
+    void appendMove(int gameId, ChessMove move) throws DataAccessException;
+
+    /**
+     * @return the game's moves in the order they were played; empty if it has none.
+     */
+    List<ChessMove> getMoves(int gameId) throws DataAccessException;
+
+    /**
+     * Records that a game has ended in a way its moves do not show, such as a resignation.
+     *
+     * @throws DataAccessException If the game does not exist.
+     */
+    void markGameOver(int gameId) throws DataAccessException;
+
+    /**
+     * @return true if {@link #markGameOver} was called for the game.
+     */
+    boolean isGameOver(int gameId) throws DataAccessException;
+
     void deleteAllUsers() throws DataAccessException;
+
+    // Bulk operations for seeding, migrations and imports. Each call is all-or-nothing.
+    void createUsers(List<User> users) throws DataAccessException;
+    void createAuths(List<AuthToken> auths) throws DataAccessException;
+    void createGames(List<Game> games) throws DataAccessException;
+    void updateGames(List<Game> games) throws DataAccessException;
+
+    /**
+     * Records the next moves of several games, each game's moves in list order.
+     */
+    void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException;
+
+    /**
+     * Marks several games over, as {@link #markGameOver} does for one.
+     */
+    void markGamesOver(List<Integer> gameIds) throws DataAccessException;
 }
\ No newline at end of file
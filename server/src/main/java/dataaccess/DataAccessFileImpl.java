@@ -0,0 +1,623 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Embedded, file-backed implementation of the DataAccess interface for single-node deployments
+ * and CI. All data lives in the concurrent in-memory store, so reads never touch the disk; every
+ * change is also appended to a journal file of JSON lines that is replayed on startup.
+ * <p>
+ * Every change is checked against memory, appended to the journal, and only then applied, so a
+ * failed write leaves memory as it was. The journal is compacted into a snapshot of the live data
+ * on open, and again whenever most of its records have been superseded. A torn final line left by
+ * a crash is cut off on open; a bad line anywhere else stops the open and the file is left as it
+ * is, since dropping it and everything after it would lose data. With {@code sync} enabled every write is forced to the device before the
+ * call returns; otherwise durability is left to the operating system's page cache.
+ */
+public class DataAccessFileImpl implements DataAccess, AutoCloseable {
+    /**
+     * The journal is not compacted while it is shorter than this, however much of it is dead.
+     */
+    public static final int DEFAULT_COMPACT_MIN_RECORDS = 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(DataAccessFileImpl.class);
+
+    private final DataAccessImpl memory = new DataAccessImpl();
+    private final Gson gson = new Gson();
+    private final Path path;
+    private final boolean sync;
+    private final int compactMinRecords;
+    private final Object writeLock = new Object();
+    private FileChannel journal;
+    // Lines in the journal, and how many of them a snapshot would no longer need.
+    private long journalRecords;
+    private long deadRecords;
+
+    /**
+     * One line of the journal. Only the fields relevant to {@code op} are set.
+     */
+    private static class Record {
+        String op;
+        User user;
+        AuthToken auth;
+        Game game;
+        ChessMove move;
+        String token;
+        long value;
+
+        Record(String op) {
+            this.op = op;
+        }
+    }
+
+    /**
+     * Opens (or creates) the journal at the given path and loads its contents.
+     *
+     * @param path the journal file.
+     * @param sync whether to force every write to disk before returning.
+     */
+    public DataAccessFileImpl(Path path, boolean sync) throws DataAccessException {
+        this(path, sync, DEFAULT_COMPACT_MIN_RECORDS);
+    }
+
+    /**
+     * @param path              the journal file.
+     * @param sync              whether to force every write to disk before returning.
+     * @param compactMinRecords the journal length below which it is never compacted while open.
+     */
+    public DataAccessFileImpl(Path path, boolean sync, int compactMinRecords) throws DataAccessException {
+        this.path = path;
+        this.sync = sync;
+        this.compactMinRecords = compactMinRecords;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                replay();
+            }
+            compact();
+        } catch (IOException e) {
+            throw new DataAccessException("Error opening data file: " + e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException, DataAccessException {
+        // Bytes up to the end of the last line read; lines are written with a bare '\n'.
+        long offset = 0;
+        int lineNumber = 0;
+        boolean torn = false;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                Record record;
+                try {
+                    record = gson.fromJson(line, Record.class);
+                } catch (JsonParseException e) {
+                    if (reader.readLine() != null) {
+                        throw new DataAccessException("Data file " + path + " is corrupt at line " + lineNumber
+                                + "; it was left unchanged: " + e.getMessage());
+                    }
+                    // A crash mid-append leaves a partial last line; everything before it is intact.
+                    torn = true;
+                    break;
+                }
+                if (record != null) {
+                    apply(record);
+                }
+                offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+        if (torn) {
+            LOG.warn("Cutting a partial record at line " + lineNumber + " from " + path);
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(offset);
+            }
+        }
+    }
+
+    private void apply(Record record) throws DataAccessException {
+        switch (record.op) {
+            case "user" -> memory.createUser(record.user);
+            case "auth" -> memory.createAuth(record.auth);
+            case "deleteAuth" -> memory.deleteAuth(record.token);
+            case "game" -> memory.restoreGame(record.game);
+            case "move" -> memory.appendMove((int) record.value, record.move);
+            case "gameOver" -> memory.markGameOver((int) record.value);
+            case "nextGameId" -> memory.restoreGameIdCounter((int) record.value);
+            case "clearUsers" -> memory.deleteAllUsers();
+            case "clearAuths" -> memory.deleteAllAuthTokens();
+            case "clearGames" -> memory.deleteAllGames();
+            case null, default -> throw new DataAccessException("Unknown journal record: " + record.op);
+        }
+    }
+
+    /**
+     * Rewrites the journal as a snapshot of the current data and atomically swaps it in. If the
+     * snapshot cannot be written the old journal stays in use.
+     */
+    public void compact() throws DataAccessException {
+        synchronized (writeLock) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            long written = 0;
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    Record next = new Record("nextGameId");
+                    next.value = memory.peekNextGameId();
+                    write(out, next);
+                    written++;
+                    for (User user : memory.getAllUsers()) {
+                        write(out, userRecord(user));
+                        written++;
+                    }
+                    for (AuthToken auth : memory.getAllAuths()) {
+                        write(out, authRecord(auth));
+                        written++;
+                    }
+                    for (Game game : memory.getAllGames()) {
+                        write(out, gameRecord(game));
+                        written++;
+                        for (ChessMove move : memory.getMoves(game.getGameID())) {
+                            write(out, moveRecord(game.getGameID(), move));
+                            written++;
+                        }
+                        if (memory.isGameOver(game.getGameID())) {
+                            write(out, gameOverRecord(game.getGameID()));
+                            written++;
+                        }
+                    }
+                    out.force(true);
+                }
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // The next compaction overwrites it anyway.
+                }
+                throw new DataAccessException("Error compacting data file: " + e.getMessage());
+            }
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+                try {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    journalRecords = written;
+                    deadRecords = 0;
+                } finally {
+                    // Either the snapshot or, if the move failed, the untouched old journal.
+                    journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                            StandardOpenOption.WRITE);
+                }
+            } catch (IOException e) {
+                throw new DataAccessException("Error compacting data file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(FileChannel channel, Record record) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Appends records to the journal. Callers hold {@code writeLock}, have already checked that
+     * the change will succeed in memory, and apply it only after this returns. A failed append
+     * is cut off again so that later records are not stranded behind a partial line.
+     */
+    private void append(Record... records) throws DataAccessException {
+        long start = -1;
+        try {
+            start = journal.size();
+            for (Record record : records) {
+                write(journal, record);
+            }
+            if (sync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            if (start >= 0) {
+                try {
+                    journal.truncate(start);
+                } catch (IOException ignored) {
+                    // Replay still stops cleanly at the partial line.
+                }
+            }
+            throw new DataAccessException("Error writing data file: " + e.getMessage());
+        }
+        journalRecords += records.length;
+    }
+
+    /**
+     * Counts journal records that a snapshot would drop, and compacts once they are the
+     * majority. Called after the change is applied in memory, since the snapshot is taken from
+     * there.
+     */
+    private void superseded(long records) {
+        deadRecords += records;
+        if (journalRecords >= compactMinRecords && deadRecords * 2 > journalRecords) {
+            try {
+                compact();
+            } catch (DataAccessException e) {
+                // The change itself is already durable; the next write tries again.
+                LOG.error("Failed to compact " + path, e);
+            }
+        }
+    }
+
+    private Record gameOverRecord(int gameId) {
+        Record record = new Record("gameOver");
+        record.value = gameId;
+        return record;
+    }
+
+    private Record userRecord(User user) {
+        Record record = new Record("user");
+        record.user = user;
+        return record;
+    }
+
+    private Record authRecord(AuthToken auth) {
+        Record record = new Record("auth");
+        record.auth = auth;
+        return record;
+    }
+
+    private Record deleteAuthRecord(String token) {
+        Record record = new Record("deleteAuth");
+        record.token = token;
+        return record;
+    }
+
+    private Record gameRecord(Game game) {
+        Record record = new Record("game");
+        record.game = game;
+        return record;
+    }
+
+    private Record moveRecord(int gameId, ChessMove move) {
+        Record record = new Record("move");
+        record.value = gameId;
+        record.move = move;
+        return record;
+    }
+
+    // User operations
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return memory.getUser(username);
+    }
+
+    @Override
+    public void createUser(User user) throws DataAccessException {
+        synchronized (writeLock) {
+            memory.validateNewUsers(List.of(user));
+            append(userRecord(user));
+            memory.createUser(user);
+        }
+    }
+
+    // AuthToken operations
+    @Override
+    public AuthToken getAuth(String token) throws DataAccessException {
+        return memory.getAuth(token);
+    }
+
+    @Override
+    public void createAuth(AuthToken auth) throws DataAccessException {
+        synchronized (writeLock) {
+            boolean replaces = memory.getAuth(auth.getToken()) != null;
+            append(authRecord(auth));
+            memory.createAuth(auth);
+            superseded(replaces ? 1 : 0);
+        }
+    }
+
+    @Override
+    public void deleteAuth(String token) throws DataAccessException {
+        synchronized (writeLock) {
+            if (memory.getAuth(token) == null) {
+                return;
+            }
+            append(deleteAuthRecord(token));
+            memory.deleteAuth(token);
+            // Both the token and its deletion drop out of the next snapshot.
+            superseded(2);
+        }
+    }
+
+    @Override
+    public void deleteAllAuthTokens() throws DataAccessException {
+        synchronized (writeLock) {
+            int tokens = memory.getAllAuths().size();
+            append(new Record("clearAuths"));
+            memory.deleteAllAuthTokens();
+            superseded(tokens + 1);
+        }
+    }
+
+    @Override
+    public int deleteExpiredAuths(long now, int limit) throws DataAccessException {
+        synchronized (writeLock) {
+            // Journal exactly the tokens removed, so a replay honors the limit too.
+            List<String> expired = new ArrayList<>();
+            for (AuthToken auth : memory.getAllAuths()) {
+                if (expired.size() >= limit) {
+                    break;
+                }
+                if (auth.isExpired(now)) {
+                    expired.add(auth.getToken());
+                }
+            }
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            append(expired.stream().map(this::deleteAuthRecord).toArray(Record[]::new));
+            for (String token : expired) {
+                memory.deleteAuth(token);
+            }
+            superseded(2L * expired.size());
+            return expired.size();
+        }
+    }
+
+    // Game operations
+    @Override
+    public Game getGame(int gameId) throws DataAccessException {
+        return memory.getGame(gameId);
+    }
+
+    @Override
+    public void createGame(Game game) throws DataAccessException {
+        synchronized (writeLock) {
+            DataAccessImpl.validateGame(game);
+            // Memory hands out IDs in order, and nothing else creates games while we hold the lock.
+            Game stored = new Game(game);
+            stored.setGameID(memory.peekNextGameId());
+            append(gameRecord(stored));
+            memory.createGame(game);
+        }
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        synchronized (writeLock) {
+            if (memory.getGame(game.getGameID()) == null) {
+                throw new DataAccessException("Game not found.");
+            }
+            append(gameRecord(game));
+            memory.updateGame(game);
+            superseded(1);
+        }
+    }
+
+    @Override
+    public boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        synchronized (writeLock) {
+            Game game = memory.getGame(gameId);
+            if (game == null) {
+                return false;
+            }
+            String seat = color == ChessGame.TeamColor.WHITE ? game.getWhiteUsername() : game.getBlackUsername();
+            if (username.equals(seat)) {
+                return true;
+            }
+            if (seat != null) {
+                return false;
+            }
+            append(gameRecord(withSeat(game, color, username)));
+            memory.claimSeat(gameId, color, username);
+            superseded(1);
+            return true;
+        }
+    }
+
+    @Override
+    public List<Game> getAllGames() throws DataAccessException {
+        return memory.getAllGames();
+    }
+
+    @Override
+    public List<Game> getGamesForUser(String username) throws DataAccessException {
+        return memory.getGamesForUser(username);
+    }
+
+    @Override
+    public boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        synchronized (writeLock) {
+            Game game = memory.getGame(gameId);
+            if (game == null) {
+                return false;
+            }
+            String seat = color == ChessGame.TeamColor.WHITE ? game.getWhiteUsername() : game.getBlackUsername();
+            if (!username.equals(seat)) {
+                return false;
+            }
+            append(gameRecord(withSeat(game, color, null)));
+            memory.releaseSeat(gameId, color, username);
+            superseded(1);
+            return true;
+        }
+    }
+
+    private static Game withSeat(Game game, ChessGame.TeamColor color, String username) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            game.setWhiteUsername(username);
+        } else {
+            game.setBlackUsername(username);
+        }
+        return game;
+    }
+
+    @Override
+    public void deleteAllGames() throws DataAccessException {
+        synchronized (writeLock) {
+            long records = 1;
+            for (Game game : memory.getAllGames()) {
+                records += 1 + memory.getMoves(game.getGameID()).size() + (memory.isGameOver(game.getGameID()) ? 1 : 0);
+            }
+            append(new Record("clearGames"));
+            memory.deleteAllGames();
+            superseded(records);
+        }
+    }
+
+    @Override
+    public void appendMove(int gameId, ChessMove move) throws DataAccessException {
+        synchronized (writeLock) {
+            append(moveRecord(gameId, move));
+            memory.appendMove(gameId, move);
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameId) throws DataAccessException {
+        return memory.getMoves(gameId);
+    }
+
+    @Override
+    public void markGameOver(int gameId) throws DataAccessException {
+        synchronized (writeLock) {
+            if (memory.getGame(gameId) == null) {
+                throw new DataAccessException("Game not found.");
+            }
+            if (memory.isGameOver(gameId)) {
+                return;
+            }
+            append(gameOverRecord(gameId));
+            memory.markGameOver(gameId);
+        }
+    }
+
+    @Override
+    public boolean isGameOver(int gameId) throws DataAccessException {
+        return memory.isGameOver(gameId);
+    }
+
+    @Override
+    public void deleteAllUsers() throws DataAccessException {
+        synchronized (writeLock) {
+            int users = memory.getAllUsers().size();
+            append(new Record("clearUsers"));
+            memory.deleteAllUsers();
+            superseded(users + 1);
+        }
+    }
+
+    // Bulk operations
+    @Override
+    public void createUsers(List<User> users) throws DataAccessException {
+        synchronized (writeLock) {
+            memory.validateNewUsers(users);
+            append(users.stream().map(this::userRecord).toArray(Record[]::new));
+            memory.createUsers(users);
+        }
+    }
+
+    @Override
+    public void createAuths(List<AuthToken> auths) throws DataAccessException {
+        synchronized (writeLock) {
+            memory.validateNewAuths(auths);
+            append(auths.stream().map(this::authRecord).toArray(Record[]::new));
+            memory.createAuths(auths);
+        }
+    }
+
+    @Override
+    public void createGames(List<Game> games) throws DataAccessException {
+        synchronized (writeLock) {
+            for (Game game : games) {
+                DataAccessImpl.validateGame(game);
+            }
+            Record[] records = new Record[games.size()];
+            int nextGameId = memory.peekNextGameId();
+            for (int i = 0; i < records.length; i++) {
+                Game stored = new Game(games.get(i));
+                stored.setGameID(nextGameId + i);
+                records[i] = gameRecord(stored);
+            }
+            append(records);
+            memory.createGames(games);
+        }
+    }
+
+    @Override
+    public void updateGames(List<Game> games) throws DataAccessException {
+        synchronized (writeLock) {
+            for (Game game : games) {
+                if (memory.getGame(game.getGameID()) == null) {
+                    throw new DataAccessException("Game not found.");
+                }
+            }
+            append(games.stream().map(this::gameRecord).toArray(Record[]::new));
+            memory.updateGames(games);
+            superseded(games.size());
+        }
+    }
+
+    @Override
+    public void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException {
+        synchronized (writeLock) {
+            List<Record> records = new ArrayList<>();
+            moves.forEach((gameId, gameMoves) -> gameMoves.forEach(move -> records.add(moveRecord(gameId, move))));
+            append(records.toArray(Record[]::new));
+            memory.appendMoves(moves);
+        }
+    }
+
+    @Override
+    public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+        synchronized (writeLock) {
+            List<Record> records = new ArrayList<>();
+            Set<Integer> marked = new HashSet<>();
+            for (int gameId : gameIds) {
+                if (memory.getGame(gameId) == null) {
+                    throw new DataAccessException("Game not found.");
+                }
+                if (!memory.isGameOver(gameId) && marked.add(gameId)) {
+                    records.add(gameOverRecord(gameId));
+                }
+            }
+            append(records.toArray(Record[]::new));
+            memory.markGamesOver(gameIds);
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        synchronized (writeLock) {
+            try {
+                journal.force(true);
+                journal.close();
+            } catch (IOException e) {
+                throw new DataAccessException("Error closing data file: " + e.getMessage());
+            }
+        }
+    }
+}
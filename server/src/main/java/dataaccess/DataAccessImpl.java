@@ -1,20 +1,28 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
 import models.User;
 import models.Game;
 import models.AuthToken;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
- * Implementation of DataAccess interface.
+ * In-memory implementation of the DataAccess interface. Safe for concurrent use.
  */
 public class DataAccessImpl implements DataAccess {
     private final Map<String, User> users = new ConcurrentHashMap<>();
     private final Map<String, AuthToken> authTokens = new ConcurrentHashMap<>();
     private final Map<Integer, Game> games = new ConcurrentHashMap<>();
-    private int gameIdCounter = 1;
+    // Games each user holds a seat in. May briefly list a game the user has just left, never
+    // miss one they hold; readers confirm against the snapshot.
+    private final Map<String, Set<Integer>> gamesByUsername = new ConcurrentHashMap<>();
+    private final Map<Integer, List<ChessMove>> moves = new ConcurrentHashMap<>();
+    private final Set<Integer> finishedGames = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger gameIdCounter = new AtomicInteger(1);
 
     // User operations
     @Override
@@ -27,10 +35,9 @@ public class DataAccessImpl implements DataAccess {
         if (user.getUsername() == null || user.getUsername().isEmpty()) {
             throw new DataAccessException("Username cannot be null or empty.");
         }
-        if (users.containsKey(user.getUsername())) {
+        if (users.putIfAbsent(user.getUsername(), user) != null) { // Password is already hashed
             throw new UserAlreadyExistsException("User already exists.");
         }
-        users.put(user.getUsername(), user); // Password is already hashed
     }
 
     // AuthToken operations
@@ -54,38 +61,355 @@ public class DataAccessImpl implements DataAccess {
         authTokens.clear();
     }
 
+    @Override
+    public int deleteExpiredAuths(long now, int limit) throws DataAccessException {
+        int deleted = 0;
+        Iterator<AuthToken> iterator = authTokens.values().iterator();
+        while (iterator.hasNext() && deleted < limit) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
     // Game operations
+    //
+    // Stored games are immutable snapshots: callers always receive copies, and every change
+    // publishes a new snapshot with a compare-and-set. Seat changes re-check the seat on every
+    // attempt, so concurrent joins and leaves never lose one another.
     @Override
     public Game getGame(int gameId) throws DataAccessException {
-        return games.get(gameId);
+        Game game = games.get(gameId);
+        return game == null ? null : new Game(game);
     }
 
     @Override
     public void createGame(Game game) throws DataAccessException {
-        game.setGameID(gameIdCounter++);
-        games.put(game.getGameID(), game);
+        validateGame(game);
+        game.setGameID(gameIdCounter.getAndIncrement());
+        Game snapshot = new Game(game);
+        indexPlayers(snapshot);
+        games.put(snapshot.getGameID(), snapshot);
+    }
+
+    static void validateGame(Game game) throws DataAccessException {
+        if (game.getGameName() == null || game.getGameName().isEmpty()) {
+            throw new DataAccessException("Game name cannot be null or empty.");
+        }
+    }
+
+    // Snapshot and restore hooks for backends that persist this store to disk
+    Collection<User> getAllUsers() {
+        return new ArrayList<>(users.values());
+    }
+
+    Collection<AuthToken> getAllAuths() {
+        return new ArrayList<>(authTokens.values());
+    }
+
+    int peekNextGameId() {
+        return gameIdCounter.get();
+    }
+
+    void restoreGameIdCounter(int nextGameId) {
+        gameIdCounter.accumulateAndGet(nextGameId, Math::max);
+    }
+
+    /**
+     * Stores a game under its existing ID, for backends that rebuild this store from disk.
+     */
+    void restoreGame(Game game) {
+        Game snapshot = new Game(game);
+        indexPlayers(snapshot);
+        Game previous = games.put(snapshot.getGameID(), snapshot);
+        if (previous != null) {
+            unindexPlayers(previous);
+        }
+        gameIdCounter.accumulateAndGet(snapshot.getGameID() + 1, Math::max);
     }
 
     @Override
     public void updateGame(Game game) throws DataAccessException {
-        if (!games.containsKey(game.getGameID())) {
-            throw new DataAccessException("Game not found.");
+        // A whole-row write: the caller's copy wins over anything written since it was read.
+        // Seat changes that must not be lost go through claimSeat and releaseSeat instead.
+        Game snapshot = new Game(game);
+        while (true) {
+            Game current = games.get(snapshot.getGameID());
+            if (current == null) {
+                throw new DataAccessException("Game not found.");
+            }
+            indexPlayers(snapshot);
+            if (games.replace(snapshot.getGameID(), current, snapshot)) {
+                indexPlayers(snapshot);
+                unindexPlayers(current);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        while (true) {
+            Game current = games.get(gameId);
+            if (current == null) {
+                return false;
+            }
+            String seat = color == ChessGame.TeamColor.WHITE ? current.getWhiteUsername() : current.getBlackUsername();
+            if (username.equals(seat)) {
+                return true;
+            }
+            if (seat != null) {
+                return false;
+            }
+
+            Game claimed = new Game(current);
+            if (color == ChessGame.TeamColor.WHITE) {
+                claimed.setWhiteUsername(username);
+            } else {
+                claimed.setBlackUsername(username);
+            }
+            indexPlayers(claimed);
+            if (games.replace(gameId, current, claimed)) {
+                indexPlayers(claimed);
+                return true;
+            }
+            // Lost the race to another writer; re-read and try again.
+        }
+    }
+
+    @Override
+    public boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        while (true) {
+            Game current = games.get(gameId);
+            if (current == null) {
+                return false;
+            }
+            String seat = color == ChessGame.TeamColor.WHITE ? current.getWhiteUsername() : current.getBlackUsername();
+            if (!username.equals(seat)) {
+                return false;
+            }
+
+            Game released = new Game(current);
+            if (color == ChessGame.TeamColor.WHITE) {
+                released.setWhiteUsername(null);
+            } else {
+                released.setBlackUsername(null);
+            }
+            if (games.replace(gameId, current, released)) {
+                unindexPlayers(current);
+                return true;
+            }
         }
-        games.put(game.getGameID(), game);
     }
 
     @Override
     public List<Game> getAllGames() throws DataAccessException {
-        return new ArrayList<>(games.values());
+        List<Game> result = new ArrayList<>(games.size());
+        for (Game game : games.values()) {
+            result.add(new Game(game));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Game> getGamesForUser(String username) throws DataAccessException {
+        List<Game> result = new ArrayList<>();
+        for (Integer gameId : gamesByUsername.getOrDefault(username, Set.of())) {
+            Game game = games.get(gameId);
+            if (game != null && isSeated(game, username)) {
+                result.add(new Game(game));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSeated(Game game, String username) {
+        return username.equals(game.getWhiteUsername()) || username.equals(game.getBlackUsername());
+    }
+
+    /**
+     * Adds a game's players to the username index. Writers call this before publishing a
+     * snapshot, so that no reader finds a seat the index does not know about, and again after,
+     * so that an unindexPlayers racing with them cannot drop the entry for good.
+     */
+    private void indexPlayers(Game game) {
+        for (String username : new String[]{game.getWhiteUsername(), game.getBlackUsername()}) {
+            if (username != null) {
+                gamesByUsername.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet()).add(game.getGameID());
+            }
+        }
+    }
+
+    /**
+     * Drops the index entries of a replaced snapshot's players, keeping any who hold a seat in
+     * the game as it is now.
+     */
+    private void unindexPlayers(Game previous) {
+        for (String username : new String[]{previous.getWhiteUsername(), previous.getBlackUsername()}) {
+            Set<Integer> ids = username == null ? null : gamesByUsername.get(username);
+            if (ids == null) {
+                continue;
+            }
+            ids.remove(previous.getGameID());
+            // Checked after the removal: a writer that seated the user again has published by
+            // now or will index them once it does.
+            Game current = games.get(previous.getGameID());
+            if (current != null && isSeated(current, username)) {
+                ids.add(previous.getGameID());
+            }
+        }
     }
 
     @Override
     public void deleteAllGames() throws DataAccessException {
         games.clear();
+        gamesByUsername.clear();
+        moves.clear();
+        finishedGames.clear();
+    }
+
+    @Override
+    public void appendMove(int gameId, ChessMove move) throws DataAccessException {
+        moves.computeIfAbsent(gameId, k -> Collections.synchronizedList(new ArrayList<>())).add(move);
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameId) throws DataAccessException {
+        List<ChessMove> gameMoves = moves.get(gameId);
+        if (gameMoves == null) {
+            return new ArrayList<>();
+        }
+        synchronized (gameMoves) {
+            return new ArrayList<>(gameMoves);
+        }
+    }
+
+    @Override
+    public void markGameOver(int gameId) throws DataAccessException {
+        if (!games.containsKey(gameId)) {
+            throw new DataAccessException("Game not found.");
+        }
+        finishedGames.add(gameId);
+    }
+
+    @Override
+    public boolean isGameOver(int gameId) throws DataAccessException {
+        return finishedGames.contains(gameId);
     }
 
     @Override
     public void deleteAllUsers() throws DataAccessException {
         users.clear();
     }
-}
\ No newline at end of file
+
+    // Bulk operations
+    @Override
+    public void createUsers(List<User> newUsers) throws DataAccessException {
+        validateNewUsers(newUsers);
+        // Checked again while inserting, in case a concurrent writer took a name meanwhile.
+        List<String> added = new ArrayList<>();
+        try {
+            for (User user : newUsers) {
+                if (users.putIfAbsent(user.getUsername(), user) != null) {
+                    throw new UserAlreadyExistsException("User already exists.");
+                }
+                added.add(user.getUsername());
+            }
+        } catch (DataAccessException e) {
+            added.forEach(users::remove);
+            throw e;
+        }
+    }
+
+    @Override
+    public void createAuths(List<AuthToken> auths) throws DataAccessException {
+        validateNewAuths(auths);
+        List<String> added = new ArrayList<>();
+        for (AuthToken auth : auths) {
+            if (authTokens.putIfAbsent(auth.getToken(), auth) != null) {
+                added.forEach(authTokens::remove);
+                throw new DataAccessException("Auth token already exists.");
+            }
+            added.add(auth.getToken());
+        }
+    }
+
+    @Override
+    public void createGames(List<Game> newGames) throws DataAccessException {
+        // Nothing below can fail once every game is known to be valid.
+        for (Game game : newGames) {
+            validateGame(game);
+        }
+        for (Game game : newGames) {
+            createGame(game);
+        }
+    }
+
+    /**
+     * Checks that a batch of users could be created now: every name is set, and none repeats
+     * or exists already.
+     */
+    void validateNewUsers(List<User> newUsers) throws DataAccessException {
+        Set<String> names = new HashSet<>();
+        for (User user : newUsers) {
+            if (user.getUsername() == null || user.getUsername().isEmpty()) {
+                throw new DataAccessException("Username cannot be null or empty.");
+            }
+            if (!names.add(user.getUsername()) || users.containsKey(user.getUsername())) {
+                throw new UserAlreadyExistsException("User already exists.");
+            }
+        }
+    }
+
+    /**
+     * Checks that a batch of tokens could be created now: every token is set, and none repeats
+     * or exists already.
+     */
+    void validateNewAuths(List<AuthToken> auths) throws DataAccessException {
+        Set<String> tokens = new HashSet<>();
+        for (AuthToken auth : auths) {
+            if (auth.getToken() == null || auth.getToken().isEmpty()) {
+                throw new DataAccessException("Auth token cannot be null or empty.");
+            }
+            if (!tokens.add(auth.getToken())) {
+                throw new DataAccessException("Duplicate auth token in batch.");
+            }
+            if (authTokens.containsKey(auth.getToken())) {
+                throw new DataAccessException("Auth token already exists.");
+            }
+        }
+    }
+
+    @Override
+    public void appendMoves(Map<Integer, List<ChessMove>> newMoves) throws DataAccessException {
+        for (Map.Entry<Integer, List<ChessMove>> entry : newMoves.entrySet()) {
+            for (ChessMove move : entry.getValue()) {
+                appendMove(entry.getKey(), move);
+            }
+        }
+    }
+
+    @Override
+    public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+        for (int gameId : gameIds) {
+            if (!games.containsKey(gameId)) {
+                throw new DataAccessException("Game not found.");
+            }
+        }
+        finishedGames.addAll(gameIds);
+    }
+
+    @Override
+    public void updateGames(List<Game> updated) throws DataAccessException {
+        for (Game game : updated) {
+            if (!games.containsKey(game.getGameID())) {
+                throw new DataAccessException("Game not found.");
+            }
+        }
+        for (Game game : updated) {
+            updateGame(game);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import models.AuthToken;
+import models.Game;
+import models.User;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DataAccess implementation that keeps game moves in a memory-mapped {@link GameJournal} and
+ * delegates everything else to another backend. Moves are the highest-rate writes the server
+ * makes, so taking them off the database path removes a round trip per move while users,
+ * tokens and game rows stay wherever the delegate keeps them.
+ * <p>
+ * The journal only ever holds moves of games the delegate knows: on open the moves of games it
+ * no longer has are dropped and their space reclaimed, and a newly created game starts with no
+ * moves even if its ID was used before. Moves the delegate recorded before the journal was
+ * turned on are copied into it the first time their game is read or played.
+ */
+public class DataAccessJournalImpl implements DataAccess, AutoCloseable {
+    private final DataAccess delegate;
+    private final GameJournal journal;
+    // Games whose moves are known to be in the journal, not left behind in the delegate.
+    private final Set<Integer> adopted = ConcurrentHashMap.newKeySet();
+
+    public DataAccessJournalImpl(DataAccess delegate, GameJournal journal) throws DataAccessException {
+        this.delegate = delegate;
+        this.journal = journal;
+        // E.g. every game of the memory backend after a restart.
+        Set<Integer> known = new HashSet<>();
+        for (Game game : delegate.getAllGames()) {
+            known.add(game.getGameID());
+        }
+        for (int gameId : journal.gameIds()) {
+            if (!known.contains(gameId)) {
+                journal.deleteGame(gameId);
+            }
+        }
+        journal.reclaim();
+    }
+
+    // User operations
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public void createUser(User user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    // AuthToken operations
+    @Override
+    public AuthToken getAuth(String token) throws DataAccessException {
+        return delegate.getAuth(token);
+    }
+
+    @Override
+    public void createAuth(AuthToken auth) throws DataAccessException {
+        delegate.createAuth(auth);
+    }
+
+    @Override
+    public void deleteAuth(String token) throws DataAccessException {
+        delegate.deleteAuth(token);
+    }
+
+    @Override
+    public void deleteAllAuthTokens() throws DataAccessException {
+        delegate.deleteAllAuthTokens();
+    }
+
+    @Override
+    public int deleteExpiredAuths(long now, int limit) throws DataAccessException {
+        return delegate.deleteExpiredAuths(now, limit);
+    }
+
+    // Game operations
+    @Override
+    public Game getGame(int gameId) throws DataAccessException {
+        return delegate.getGame(gameId);
+    }
+
+    @Override
+    public void createGame(Game game) throws DataAccessException {
+        delegate.createGame(game);
+        journal.deleteGame(game.getGameID());
+        adopted.add(game.getGameID());
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        delegate.updateGame(game);
+    }
+
+    @Override
+    public boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        return delegate.claimSeat(gameId, color, username);
+    }
+
+    @Override
+    public List<Game> getAllGames() throws DataAccessException {
+        return delegate.getAllGames();
+    }
+
+    @Override
+    public List<Game> getGamesForUser(String username) throws DataAccessException {
+        return delegate.getGamesForUser(username);
+    }
+
+    @Override
+    public boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        return delegate.releaseSeat(gameId, color, username);
+    }
+
+    @Override
+    public void deleteAllGames() throws DataAccessException {
+        delegate.deleteAllGames();
+        journal.clear();
+        adopted.clear();
+    }
+
+    @Override
+    public void appendMove(int gameId, ChessMove move) throws DataAccessException {
+        adopt(gameId);
+        journal.append(gameId, move);
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameId) throws DataAccessException {
+        adopt(gameId);
+        return journal.getMoves(gameId);
+    }
+
+    /**
+     * Copies a game's moves from the delegate into the journal, once, if the journal has none.
+     */
+    private void adopt(int gameId) throws DataAccessException {
+        if (adopted.contains(gameId)) {
+            return;
+        }
+        synchronized (adopted) {
+            if (adopted.contains(gameId)) {
+                return;
+            }
+            if (journal.getMoves(gameId).isEmpty()) {
+                for (ChessMove move : delegate.getMoves(gameId)) {
+                    journal.append(gameId, move);
+                }
+            }
+            adopted.add(gameId);
+        }
+    }
+
+    @Override
+    public void markGameOver(int gameId) throws DataAccessException {
+        delegate.markGameOver(gameId);
+    }
+
+    @Override
+    public boolean isGameOver(int gameId) throws DataAccessException {
+        return delegate.isGameOver(gameId);
+    }
+
+    @Override
+    public void deleteAllUsers() throws DataAccessException {
+        delegate.deleteAllUsers();
+    }
+
+    // Bulk operations
+    @Override
+    public void createUsers(List<User> users) throws DataAccessException {
+        delegate.createUsers(users);
+    }
+
+    @Override
+    public void createAuths(List<AuthToken> auths) throws DataAccessException {
+        delegate.createAuths(auths);
+    }
+
+    @Override
+    public void createGames(List<Game> games) throws DataAccessException {
+        delegate.createGames(games);
+        for (Game game : games) {
+            journal.deleteGame(game.getGameID());
+            adopted.add(game.getGameID());
+        }
+    }
+
+    @Override
+    public void updateGames(List<Game> games) throws DataAccessException {
+        delegate.updateGames(games);
+    }
+
+    @Override
+    public void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException {
+        for (Map.Entry<Integer, List<ChessMove>> entry : moves.entrySet()) {
+            adopt(entry.getKey());
+            for (ChessMove move : entry.getValue()) {
+                journal.append(entry.getKey(), move);
+            }
+        }
+    }
+
+    @Override
+    public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+        delegate.markGamesOver(gameIds);
+    }
+
+    @Override
+    public void close() throws Exception {
+        journal.close();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
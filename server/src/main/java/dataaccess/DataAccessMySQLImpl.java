@@ -1,66 +1,35 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
 import models.User;
 import models.Game;
 import models.AuthToken;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.mindrot.jbcrypt.BCrypt;
 
 /**
  * MySQL implementation of the DataAccess interface.
  */
 public class DataAccessMySQLImpl implements DataAccess {
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
 
     public DataAccessMySQLImpl() throws DataAccessException {
         DatabaseManager.createDatabase();
-        createTablesIfNotExist();
+        new SchemaMigrator().migrate();
     }
 
-    private void createTablesIfNotExist() throws DataAccessException {
-        try (var conn = DatabaseManager.getConnection()) {
-            // Create User table
-            String createUserTable = """
-                CREATE TABLE IF NOT EXISTS User (
-                    username VARCHAR(255) PRIMARY KEY,
-                    password VARCHAR(255) NOT NULL,
-                    email VARCHAR(255) NOT NULL
-                );
-                """;
-            try (var stmt = conn.createStatement()) {
-                stmt.execute(createUserTable);
-            }
-
-            // Create Game table with ON DELETE SET NULL
-            String createGameTable = """
-                CREATE TABLE IF NOT EXISTS Game (
-                    gameID INT AUTO_INCREMENT PRIMARY KEY,
-                    gameName VARCHAR(255) NOT NULL,
-                    whiteUsername VARCHAR(255),
-                    blackUsername VARCHAR(255),
-                    FOREIGN KEY (whiteUsername) REFERENCES User(username) ON DELETE SET NULL,
-                    FOREIGN KEY (blackUsername) REFERENCES User(username) ON DELETE SET NULL
-                );
-                """;
-            try (var stmt = conn.createStatement()) {
-                stmt.execute(createGameTable);
-            }
-
-            // Create AuthToken table
-            String createAuthTable = """
-                CREATE TABLE IF NOT EXISTS AuthToken (
-                    token VARCHAR(255) PRIMARY KEY,
-                    username VARCHAR(255),
-                    FOREIGN KEY (username) REFERENCES User(username) ON DELETE CASCADE
-                );
-                """;
-            try (var stmt = conn.createStatement()) {
-                stmt.execute(createAuthTable);
-            }
-        } catch (SQLException e) {
-            throw new DataAccessException("Error creating tables: " + e.getMessage());
-        }
+    /**
+     * Integrity violations share SQLState 23000, so the MySQL error code is needed to
+     * tell a duplicate key apart from, for example, a NULL primary key.
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        return "23000".equals(e.getSQLState()) && e.getErrorCode() == MYSQL_DUPLICATE_ENTRY;
     }
 
     // User operations
@@ -87,9 +56,6 @@ public class DataAccessMySQLImpl implements DataAccess {
 
     @Override
     public void createUser(User user) throws DataAccessException {
-        if (getUser(user.getUsername()) != null) {
-            throw new UserAlreadyExistsException("User already exists.");
-        }
         String sql = "INSERT INTO User (username, password, email) VALUES (?, ?, ?)";
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql)) {
@@ -98,6 +64,10 @@ public class DataAccessMySQLImpl implements DataAccess {
             stmt.setString(3, user.getEmail());
             stmt.executeUpdate();
         } catch (SQLException e) {
+            // Let the primary key detect duplicates instead of checking first in a separate query.
+            if (isDuplicateKey(e)) {
+                throw new UserAlreadyExistsException("User already exists.");
+            }
             throw new DataAccessException("Error creating user: " + e.getMessage());
         }
     }
@@ -113,7 +83,9 @@ public class DataAccessMySQLImpl implements DataAccess {
                 if (rs.next()) {
                     return new AuthToken(
                             rs.getString("token"),
-                            rs.getString("username")
+                            rs.getString("username"),
+                            rs.getLong("issuedAt"),
+                            rs.getLong("expiresAt")
                     );
                 }
             }
@@ -125,11 +97,13 @@ public class DataAccessMySQLImpl implements DataAccess {
 
     @Override
     public void createAuth(AuthToken auth) throws DataAccessException {
-        String sql = "INSERT INTO AuthToken (token, username) VALUES (?, ?)";
+        String sql = "INSERT INTO AuthToken (token, username, issuedAt, expiresAt) VALUES (?, ?, ?, ?)";
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, auth.getToken());
             stmt.setString(2, auth.getUsername());
+            stmt.setLong(3, auth.getIssuedAt());
+            stmt.setLong(4, auth.getExpiresAt());
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error creating auth token: " + e.getMessage());
@@ -159,6 +133,20 @@ public class DataAccessMySQLImpl implements DataAccess {
         }
     }
 
+    @Override
+    public int deleteExpiredAuths(long now, int limit) throws DataAccessException {
+        // LIMIT keeps each delete short so it never holds row locks for long.
+        String sql = "DELETE FROM AuthToken WHERE expiresAt > 0 AND expiresAt <= ? LIMIT ?";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, now);
+            stmt.setInt(2, limit);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting expired auth tokens: " + e.getMessage());
+        }
+    }
+
     // Game operations
     @Override
     public Game getGame(int gameId) throws DataAccessException {
@@ -220,6 +208,38 @@ public class DataAccessMySQLImpl implements DataAccess {
         }
     }
 
+    @Override
+    public boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        // Column names cannot be bound as parameters, so pick the statement per seat.
+        String sql = color == ChessGame.TeamColor.WHITE
+                ? "UPDATE Game SET whiteUsername = ? WHERE gameID = ? AND (whiteUsername IS NULL OR whiteUsername = ?)"
+                : "UPDATE Game SET blackUsername = ? WHERE gameID = ? AND (blackUsername IS NULL OR blackUsername = ?)";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            stmt.setInt(2, gameId);
+            stmt.setString(3, username);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error claiming seat: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        String sql = color == ChessGame.TeamColor.WHITE
+                ? "UPDATE Game SET whiteUsername = NULL WHERE gameID = ? AND whiteUsername = ?"
+                : "UPDATE Game SET blackUsername = NULL WHERE gameID = ? AND blackUsername = ?";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameId);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error releasing seat: " + e.getMessage());
+        }
+    }
+
     @Override
     public List<Game> getAllGames() throws DataAccessException {
         List<Game> games = new ArrayList<>();
@@ -241,6 +261,31 @@ public class DataAccessMySQLImpl implements DataAccess {
         return games;
     }
 
+    @Override
+    public List<Game> getGamesForUser(String username) throws DataAccessException {
+        List<Game> games = new ArrayList<>();
+        // One lookup per seat, so each uses its own username index.
+        String sql = "SELECT * FROM Game WHERE whiteUsername = ? UNION SELECT * FROM Game WHERE blackUsername = ?";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            stmt.setString(2, username);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    games.add(new Game(
+                            rs.getInt("gameID"),
+                            rs.getString("gameName"),
+                            rs.getString("whiteUsername"),
+                            rs.getString("blackUsername")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting games for user: " + e.getMessage());
+        }
+        return games;
+    }
+
     @Override
     public void deleteAllGames() throws DataAccessException {
         String sql = "DELETE FROM Game";
@@ -252,14 +297,272 @@ public class DataAccessMySQLImpl implements DataAccess {
         }
     }
 
+    @Override
+    public void appendMove(int gameId, ChessMove move) throws DataAccessException {
+        // The next ply is computed in the same statement; moves for one game are serialized
+        // by the caller, and the primary key rejects a second writer racing for the same ply.
+        String sql = """
+            INSERT INTO MoveLog (gameID, ply, startRow, startCol, endRow, endCol, promotion)
+            SELECT ?, COALESCE(MAX(ply), 0) + 1, ?, ?, ?, ?, ? FROM MoveLog WHERE gameID = ?
+            """;
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameId);
+            stmt.setInt(2, move.getStartPosition().getRow());
+            stmt.setInt(3, move.getStartPosition().getColumn());
+            stmt.setInt(4, move.getEndPosition().getRow());
+            stmt.setInt(5, move.getEndPosition().getColumn());
+            ChessPiece.PieceType promotion = move.getPromotionPiece();
+            stmt.setString(6, promotion == null ? null : promotion.name());
+            stmt.setInt(7, gameId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error appending move: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void markGameOver(int gameId) throws DataAccessException {
+        String sql = "UPDATE Game SET gameOver = TRUE WHERE gameID = ?";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameId);
+            // A game already marked still counts as found.
+            if (stmt.executeUpdate() == 0 && getGame(gameId) == null) {
+                throw new DataAccessException("Game not found.");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error marking game over: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isGameOver(int gameId) throws DataAccessException {
+        String sql = "SELECT gameOver FROM Game WHERE gameID = ?";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameId);
+            try (var rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean("gameOver");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game over flag: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameId) throws DataAccessException {
+        List<ChessMove> moves = new ArrayList<>();
+        String sql = "SELECT startRow, startCol, endRow, endCol, promotion FROM MoveLog WHERE gameID = ? ORDER BY ply";
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameId);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String promotion = rs.getString("promotion");
+                    moves.add(new ChessMove(
+                            new ChessPosition(rs.getInt("startRow"), rs.getInt("startCol")),
+                            new ChessPosition(rs.getInt("endRow"), rs.getInt("endCol")),
+                            promotion == null ? null : ChessPiece.PieceType.valueOf(promotion)
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error getting moves: " + e.getMessage());
+        }
+        return moves;
+    }
+
     @Override
     public void deleteAllUsers() throws DataAccessException {
-        String sql = "DELETE FROM User";
+        // The computer's row stays: bot games need it for their seat.
+        String sql = "DELETE FROM User WHERE username <> ?";
         try (var conn = DatabaseManager.getConnection();
-             var stmt = conn.createStatement()) {
-            stmt.executeUpdate(sql);
+             var stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, BOT_USERNAME);
+            stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error deleting all users: " + e.getMessage());
         }
     }
+
+    // Bulk operations
+    @Override
+    public void createUsers(List<User> users) throws DataAccessException {
+        String sql = "INSERT INTO User (username, password, email) VALUES (?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql)) {
+                for (User user : users) {
+                    stmt.setString(1, user.getUsername());
+                    stmt.setString(2, user.getPassword()); // Passwords are already hashed
+                    stmt.setString(3, user.getEmail());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                if (isDuplicateKey(e)) {
+                    throw new UserAlreadyExistsException("User already exists.");
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error creating users: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createAuths(List<AuthToken> auths) throws DataAccessException {
+        String sql = "INSERT INTO AuthToken (token, username, issuedAt, expiresAt) VALUES (?, ?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql)) {
+                for (AuthToken auth : auths) {
+                    stmt.setString(1, auth.getToken());
+                    stmt.setString(2, auth.getUsername());
+                    stmt.setLong(3, auth.getIssuedAt());
+                    stmt.setLong(4, auth.getExpiresAt());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error creating auth tokens: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createGames(List<Game> games) throws DataAccessException {
+        String sql = "INSERT INTO Game (gameName, whiteUsername, blackUsername) VALUES (?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Game game : games) {
+                    stmt.setString(1, game.getGameName());
+                    stmt.setString(2, game.getWhiteUsername());
+                    stmt.setString(3, game.getBlackUsername());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                // Keys come back in batch order, including for rewritten multi-row inserts.
+                try (var rs = stmt.getGeneratedKeys()) {
+                    for (Game game : games) {
+                        if (rs.next()) {
+                            game.setGameID(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error creating games: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException {
+        // One transaction: read each game's last ply, then insert every move in one batch.
+        String lastPlySql = "SELECT COALESCE(MAX(ply), 0) FROM MoveLog WHERE gameID = ?";
+        String insertSql = """
+            INSERT INTO MoveLog (gameID, ply, startRow, startCol, endRow, endCol, promotion)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var lastPlyStmt = conn.prepareStatement(lastPlySql);
+                 var stmt = conn.prepareStatement(insertSql)) {
+                for (Map.Entry<Integer, List<ChessMove>> entry : moves.entrySet()) {
+                    int ply;
+                    lastPlyStmt.setInt(1, entry.getKey());
+                    try (var rs = lastPlyStmt.executeQuery()) {
+                        rs.next();
+                        ply = rs.getInt(1);
+                    }
+                    for (ChessMove move : entry.getValue()) {
+                        stmt.setInt(1, entry.getKey());
+                        stmt.setInt(2, ++ply);
+                        stmt.setInt(3, move.getStartPosition().getRow());
+                        stmt.setInt(4, move.getStartPosition().getColumn());
+                        stmt.setInt(5, move.getEndPosition().getRow());
+                        stmt.setInt(6, move.getEndPosition().getColumn());
+                        ChessPiece.PieceType promotion = move.getPromotionPiece();
+                        stmt.setString(7, promotion == null ? null : promotion.name());
+                        stmt.addBatch();
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error appending moves: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateGames(List<Game> games) throws DataAccessException {
+        String sql = "UPDATE Game SET gameName = ?, whiteUsername = ?, blackUsername = ? WHERE gameID = ?";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql)) {
+                for (Game game : games) {
+                    stmt.setString(1, game.getGameName());
+                    stmt.setString(2, game.getWhiteUsername());
+                    stmt.setString(3, game.getBlackUsername());
+                    stmt.setInt(4, game.getGameID());
+                    stmt.addBatch();
+                }
+                for (int count : stmt.executeBatch()) {
+                    if (count == 0) {
+                        throw new SQLException("Game not found.");
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating games: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+        String sql = "UPDATE Game SET gameOver = TRUE WHERE gameID = ?";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql)) {
+                for (int gameId : gameIds) {
+                    stmt.setInt(1, gameId);
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    // A game already marked still counts as found.
+                    if (counts[i] == 0 && getGame(gameIds.get(i)) == null) {
+                        throw new SQLException("Game not found.");
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error marking games over: " + e.getMessage());
+        }
+    }
 }
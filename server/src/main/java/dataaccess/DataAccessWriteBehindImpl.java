@@ -0,0 +1,515 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataAccess implementation that defers move appends, game-over marks and game updates and
+ * writes them to another backend in batches. The moves appended in one flush window go out
+ * together in one batched transaction and the games marked over in another, so the write rate
+ * seen by the database follows the flush rate rather than the move rate. Updates to the same
+ * game within a window collapse into a single row write.
+ * <p>
+ * Seat changes are not deferred: claiming or releasing a seat compares against the stored row,
+ * so it writes that game's pending update first and then goes straight to the backend. Reads of
+ * a game, its moves or its game-over mark see pending writes immediately. A flush happens at
+ * least once per window, as soon as {@code maxPending} games, moves or marks are waiting, and on
+ * close. Writes that fail stay pending and are retried by the next flush, except those for games
+ * that no longer exist; once {@code maxPending} of them pile up, callers get the error. With a
+ * window of zero the layer is strict: every write reaches the backend before the call returns.
+ */
+public class DataAccessWriteBehindImpl implements DataAccess, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(DataAccessWriteBehindImpl.class);
+
+    private final DataAccess delegate;
+    private final boolean strict;
+    private final int maxPending;
+    private final Map<Integer, Game> pending = new ConcurrentHashMap<>();
+    // Moves not yet written, per game in play order; guarded by itself.
+    private final Map<Integer, List<ChessMove>> pendingMoves = new LinkedHashMap<>();
+    private int pendingMoveCount;
+    // Games marked over but not yet written; guarded by pendingMoves. A mark leaves the set only
+    // once it is written, so isGameOver never misses one that is in flight.
+    private final Set<Integer> pendingGameOvers = new LinkedHashSet<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * @param delegate     the backend updates are eventually written to.
+     * @param windowMillis the most time an update may wait before it is written; 0 writes through.
+     * @param maxPending   how many games with pending updates, or pending moves and marks, make callers flush inline.
+     */
+    public DataAccessWriteBehindImpl(DataAccess delegate, long windowMillis, int maxPending) {
+        this.delegate = delegate;
+        this.strict = windowMillis <= 0;
+        this.maxPending = maxPending;
+        if (strict) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes every pending move, game-over mark and update to the backend, each kind in one
+     * batch. If a batch fails, each game is retried on its own so that one bad game cannot hold
+     * back the rest.
+     *
+     * @throws DataAccessException If anything could not be written; it stays pending for the
+     *                             next flush unless its game is gone.
+     */
+    public void flush() throws DataAccessException {
+        synchronized (flushLock) {
+            DataAccessException error = flushMoves();
+            DataAccessException gameOverError = flushGameOvers();
+            DataAccessException rowError = flushRows();
+            error = error != null ? error : gameOverError != null ? gameOverError : rowError;
+            if (error != null) {
+                failedFlushes.increment();
+                throw error;
+            }
+        }
+    }
+
+    private DataAccessException flushRows() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        List<Game> batch = new ArrayList<>(pending.values());
+        flushes.increment();
+        try {
+            delegate.updateGames(batch);
+            rowsWritten.add(batch.size());
+            for (Game game : batch) {
+                pending.remove(game.getGameID(), game);
+            }
+            return null;
+        } catch (DataAccessException batchError) {
+            DataAccessException firstError = null;
+            for (Game game : batch) {
+                try {
+                    delegate.updateGame(game);
+                    rowsWritten.increment();
+                    pending.remove(game.getGameID(), game);
+                } catch (DataAccessException e) {
+                    firstError = firstError == null ? e : firstError;
+                    if (isGone(game.getGameID())) {
+                        pending.remove(game.getGameID(), game);
+                    }
+                }
+            }
+            return firstError;
+        }
+    }
+
+    private DataAccessException flushMoves() {
+        Map<Integer, List<ChessMove>> batch;
+        synchronized (pendingMoves) {
+            if (pendingMoves.isEmpty()) {
+                return null;
+            }
+            batch = new LinkedHashMap<>(pendingMoves);
+            pendingMoves.clear();
+            pendingMoveCount = 0;
+        }
+        flushes.increment();
+        try {
+            delegate.appendMoves(batch);
+            return null;
+        } catch (DataAccessException batchError) {
+            DataAccessException firstError = null;
+            for (Map.Entry<Integer, List<ChessMove>> entry : batch.entrySet()) {
+                try {
+                    delegate.appendMoves(Map.of(entry.getKey(), entry.getValue()));
+                } catch (DataAccessException e) {
+                    firstError = firstError == null ? e : firstError;
+                    if (!isGone(entry.getKey())) {
+                        requeueMoves(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            return firstError;
+        }
+    }
+
+    private DataAccessException flushGameOvers() {
+        List<Integer> batch;
+        synchronized (pendingMoves) {
+            if (pendingGameOvers.isEmpty()) {
+                return null;
+            }
+            batch = new ArrayList<>(pendingGameOvers);
+        }
+        flushes.increment();
+        try {
+            delegate.markGamesOver(batch);
+            forgetGameOvers(batch);
+            return null;
+        } catch (DataAccessException batchError) {
+            DataAccessException firstError = null;
+            for (int gameId : batch) {
+                try {
+                    delegate.markGameOver(gameId);
+                    forgetGameOvers(List.of(gameId));
+                } catch (DataAccessException e) {
+                    firstError = firstError == null ? e : firstError;
+                    if (isGone(gameId)) {
+                        forgetGameOvers(List.of(gameId));
+                    }
+                }
+            }
+            return firstError;
+        }
+    }
+
+    private void forgetGameOvers(List<Integer> gameIds) {
+        synchronized (pendingMoves) {
+            gameIds.forEach(pendingGameOvers::remove);
+        }
+    }
+
+    /**
+     * Puts moves that failed to write back ahead of any appended since, keeping play order.
+     */
+    private void requeueMoves(int gameId, List<ChessMove> moves) {
+        synchronized (pendingMoves) {
+            List<ChessMove> requeued = new ArrayList<>(moves);
+            List<ChessMove> newer = pendingMoves.get(gameId);
+            if (newer != null) {
+                requeued.addAll(newer);
+            }
+            pendingMoves.put(gameId, requeued);
+            pendingMoveCount += moves.size();
+        }
+    }
+
+    /**
+     * @return true if the game is known to have been deleted, so writes for it can be dropped.
+     */
+    private boolean isGone(int gameId) {
+        try {
+            return delegate.getGame(gameId) == null;
+        } catch (DataAccessException e) {
+            return false; // The backend is unreachable; keep the write and try again later.
+        }
+    }
+
+    /**
+     * Writes the pending update for one game, if there is one.
+     */
+    private void flush(int gameId) throws DataAccessException {
+        synchronized (flushLock) {
+            Game game = pending.get(gameId);
+            if (game != null) {
+                delegate.updateGame(game);
+                rowsWritten.increment();
+                pending.remove(gameId, game);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            // What failed is still pending, so the next window retries it.
+            LOG.error("Write-behind flush failed; " + getPendingCount() + " games, "
+                    + getPendingMoveCount() + " moves and " + getPendingGameOverCount()
+                    + " game-over marks remain pending", e);
+        }
+    }
+
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int getPendingMoveCount() {
+        synchronized (pendingMoves) {
+            return pendingMoveCount;
+        }
+    }
+
+    public int getPendingGameOverCount() {
+        synchronized (pendingMoves) {
+            return pendingGameOvers.size();
+        }
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    // User operations
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public void createUser(User user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    // AuthToken operations
+    @Override
+    public AuthToken getAuth(String token) throws DataAccessException {
+        return delegate.getAuth(token);
+    }
+
+    @Override
+    public void createAuth(AuthToken auth) throws DataAccessException {
+        delegate.createAuth(auth);
+    }
+
+    @Override
+    public void deleteAuth(String token) throws DataAccessException {
+        delegate.deleteAuth(token);
+    }
+
+    @Override
+    public void deleteAllAuthTokens() throws DataAccessException {
+        delegate.deleteAllAuthTokens();
+    }
+
+    @Override
+    public int deleteExpiredAuths(long now, int limit) throws DataAccessException {
+        return delegate.deleteExpiredAuths(now, limit);
+    }
+
+    // Game operations
+    @Override
+    public Game getGame(int gameId) throws DataAccessException {
+        Game game = pending.get(gameId);
+        return game != null ? new Game(game) : delegate.getGame(gameId);
+    }
+
+    @Override
+    public void createGame(Game game) throws DataAccessException {
+        delegate.createGame(game);
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        updates.increment();
+        if (strict) {
+            delegate.updateGame(game);
+            rowsWritten.increment();
+            return;
+        }
+        pending.put(game.getGameID(), new Game(game));
+        if (pending.size() >= maxPending) {
+            flush();
+        }
+    }
+
+    @Override
+    public boolean claimSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        // A pending update written after the claim would overwrite the seat, so write it first.
+        flush(gameId);
+        return delegate.claimSeat(gameId, color, username);
+    }
+
+    @Override
+    public List<Game> getAllGames() throws DataAccessException {
+        List<Game> games = delegate.getAllGames();
+        if (!pending.isEmpty()) {
+            games.replaceAll(game -> {
+                Game update = pending.get(game.getGameID());
+                return update != null ? new Game(update) : game;
+            });
+        }
+        return games;
+    }
+
+    @Override
+    public List<Game> getGamesForUser(String username) throws DataAccessException {
+        List<Game> games = delegate.getGamesForUser(username);
+        if (pending.isEmpty()) {
+            return games;
+        }
+        // Pending updates may have seated the user in other games or taken a seat away.
+        Map<Integer, Game> result = new LinkedHashMap<>();
+        for (Game game : games) {
+            Game update = pending.get(game.getGameID());
+            result.put(game.getGameID(), update != null ? new Game(update) : game);
+        }
+        for (Game update : pending.values()) {
+            if (username.equals(update.getWhiteUsername()) || username.equals(update.getBlackUsername())) {
+                result.put(update.getGameID(), new Game(update));
+            }
+        }
+        result.values().removeIf(game -> !username.equals(game.getWhiteUsername())
+                && !username.equals(game.getBlackUsername()));
+        return new ArrayList<>(result.values());
+    }
+
+    @Override
+    public boolean releaseSeat(int gameId, ChessGame.TeamColor color, String username) throws DataAccessException {
+        flush(gameId);
+        return delegate.releaseSeat(gameId, color, username);
+    }
+
+    @Override
+    public void deleteAllGames() throws DataAccessException {
+        synchronized (flushLock) {
+            pending.clear();
+            synchronized (pendingMoves) {
+                pendingMoves.clear();
+                pendingMoveCount = 0;
+                pendingGameOvers.clear();
+            }
+            delegate.deleteAllGames();
+        }
+    }
+
+    @Override
+    public void appendMove(int gameId, ChessMove move) throws DataAccessException {
+        appendMoves(Map.of(gameId, List.of(move)));
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameId) throws DataAccessException {
+        // Under the flush lock so that moves being written are seen exactly once.
+        synchronized (flushLock) {
+            List<ChessMove> moves = delegate.getMoves(gameId);
+            synchronized (pendingMoves) {
+                moves.addAll(pendingMoves.getOrDefault(gameId, List.of()));
+            }
+            return moves;
+        }
+    }
+
+    @Override
+    public void markGameOver(int gameId) throws DataAccessException {
+        markGamesOver(List.of(gameId));
+    }
+
+    @Override
+    public boolean isGameOver(int gameId) throws DataAccessException {
+        synchronized (pendingMoves) {
+            if (pendingGameOvers.contains(gameId)) {
+                return true;
+            }
+        }
+        return delegate.isGameOver(gameId);
+    }
+
+    @Override
+    public void deleteAllUsers() throws DataAccessException {
+        // Deleting users clears their seats in the backend; a later flush must not restore them.
+        flush();
+        delegate.deleteAllUsers();
+    }
+
+    // Bulk operations
+    @Override
+    public void createUsers(List<User> users) throws DataAccessException {
+        delegate.createUsers(users);
+    }
+
+    @Override
+    public void createAuths(List<AuthToken> auths) throws DataAccessException {
+        delegate.createAuths(auths);
+    }
+
+    @Override
+    public void createGames(List<Game> games) throws DataAccessException {
+        delegate.createGames(games);
+    }
+
+    @Override
+    public void updateGames(List<Game> games) throws DataAccessException {
+        for (Game game : games) {
+            updateGame(game);
+        }
+    }
+
+    @Override
+    public void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException {
+        if (strict) {
+            delegate.appendMoves(moves);
+            return;
+        }
+        boolean full;
+        synchronized (pendingMoves) {
+            for (Map.Entry<Integer, List<ChessMove>> entry : moves.entrySet()) {
+                pendingMoves.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+                pendingMoveCount += entry.getValue().size();
+            }
+            full = pendingMoveCount + pendingGameOvers.size() >= maxPending;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    @Override
+    public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+        if (strict) {
+            delegate.markGamesOver(gameIds);
+            return;
+        }
+        boolean full;
+        synchronized (pendingMoves) {
+            pendingGameOvers.addAll(gameIds);
+            full = pendingMoveCount + pendingGameOvers.size() >= maxPending;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes whatever is still pending.
+     */
+    @Override
+    public void close() throws Exception {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
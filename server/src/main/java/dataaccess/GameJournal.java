@@ -0,0 +1,381 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Append-only move log stored in fixed-size, memory-mapped segment files. Each move is one
+ * 16-byte record, so appending is a handful of stores into mapped memory. An in-memory index
+ * maps every game to the location of each of its moves.
+ * <p>
+ * Record layout: gameID (int), ply (int), from square (byte), to square (byte), promotion
+ * (byte), marker (byte), checksum (int). The checksum is written last, so a record torn by a
+ * crash fails verification and is skipped on recovery. Writes reach the page cache immediately
+ * and survive a process crash; with {@code sync} they are also forced to the device before
+ * append returns. Without it a power loss may keep a later page but lose an earlier one, so
+ * recovery cuts each game off at its first missing ply and erases the records after it.
+ * <p>
+ * Once a segment fills up, sealed segments that are mostly dead (their games were deleted)
+ * are compacted by copying their live records to the tail and deleting the file.
+ */
+public class GameJournal implements AutoCloseable {
+    static final int RECORD_SIZE = 16;
+    private static final byte MARKER = 0x5A;
+    private static final String SEGMENT_PREFIX = "moves-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final double COMPACT_LIVE_RATIO = 0.5;
+    private static final long MISSING = -1;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final boolean sync;
+
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // For each game, the location of each ply in order; location = segment * recordsPerSegment + slot.
+    private final Map<Integer, long[]> index = new HashMap<>();
+    private final Map<Integer, Integer> plyCounts = new HashMap<>();
+    private Segment active;
+
+    private static class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int used;
+        int live;
+
+        Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and rebuilds the index.
+     *
+     * @param directory         where segment files live.
+     * @param recordsPerSegment how many moves each segment file holds.
+     * @param sync              whether to force every append to the device.
+     */
+    public GameJournal(Path directory, int recordsPerSegment, boolean sync) throws DataAccessException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            recover();
+            if (active == null) {
+                active = openSegment(nextSegmentId());
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Error opening game journal: " + e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        ids.sort(null);
+        for (int id : ids) {
+            Segment segment = openSegment(id);
+            // Scan every slot: a torn or erased record may sit before valid ones.
+            for (int slot = 0; slot < recordsPerSegment; slot++) {
+                int offset = slot * RECORD_SIZE;
+                if (isValid(segment.buffer, offset)) {
+                    indexRecord(segment.buffer.getInt(offset), segment.buffer.getInt(offset + 4),
+                            location(segment.id, slot));
+                    segment.used = slot + 1;
+                }
+            }
+            active = segment;
+        }
+        truncateAtGaps();
+        recountLive();
+    }
+
+    private void indexRecord(int gameId, int ply, long location) {
+        long[] plies = index.getOrDefault(gameId, new long[0]);
+        if (plies.length < ply) {
+            int length = plies.length;
+            plies = Arrays.copyOf(plies, Math.max(ply, length * 2));
+            Arrays.fill(plies, length, plies.length, MISSING);
+            index.put(gameId, plies);
+        }
+        plies[ply - 1] = location;
+        plyCounts.merge(gameId, ply, Math::max);
+    }
+
+    /**
+     * Ends each recovered game at its first missing ply. The records after the gap are erased
+     * so that they cannot reappear once new moves fill the gap.
+     */
+    private void truncateAtGaps() {
+        for (Map.Entry<Integer, long[]> entry : new ArrayList<>(index.entrySet())) {
+            int gameId = entry.getKey();
+            long[] plies = entry.getValue();
+            int count = plyCounts.get(gameId);
+            int gap = 0;
+            while (gap < count && plies[gap] != MISSING) {
+                gap++;
+            }
+            if (gap == count) {
+                continue;
+            }
+            for (int i = gap; i < count; i++) {
+                if (plies[i] != MISSING) {
+                    Segment segment = segments.get(segmentOf(plies[i]));
+                    // Clearing the marker is a single-byte store, so it cannot be torn.
+                    segment.buffer.put(slotOf(plies[i]) * RECORD_SIZE + 11, (byte) 0);
+                    segment.buffer.force();
+                    plies[i] = MISSING;
+                }
+            }
+            if (gap == 0) {
+                index.remove(gameId);
+                plyCounts.remove(gameId);
+            } else {
+                plyCounts.put(gameId, gap);
+            }
+        }
+    }
+
+    private void recountLive() {
+        for (Segment segment : segments.values()) {
+            segment.live = 0;
+        }
+        for (Map.Entry<Integer, long[]> entry : index.entrySet()) {
+            long[] plies = entry.getValue();
+            int count = plyCounts.get(entry.getKey());
+            for (int i = 0; i < count; i++) {
+                segments.get(segmentOf(plies[i])).live++;
+            }
+        }
+    }
+
+    /**
+     * Appends a move to a game's log.
+     */
+    public synchronized void append(int gameId, ChessMove move) throws DataAccessException {
+        try {
+            if (active.used == recordsPerSegment) {
+                active = openSegment(nextSegmentId());
+                compact();
+            }
+            int ply = plyCounts.getOrDefault(gameId, 0) + 1;
+            writeRecord(active, gameId, ply, encodeSquare(move.getStartPosition()), encodeSquare(move.getEndPosition()),
+                    encodePromotion(move.getPromotionPiece()));
+            if (sync) {
+                active.buffer.force();
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Error appending to game journal: " + e.getMessage());
+        }
+    }
+
+    private void writeRecord(Segment segment, int gameId, int ply, byte from, byte to, byte promotion) {
+        int offset = segment.used * RECORD_SIZE;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset, gameId);
+        buffer.putInt(offset + 4, ply);
+        buffer.put(offset + 8, from);
+        buffer.put(offset + 9, to);
+        buffer.put(offset + 10, promotion);
+        buffer.put(offset + 11, MARKER);
+        buffer.putInt(offset + 12, checksum(gameId, ply, from, to, promotion));
+        indexRecord(gameId, ply, location(segment.id, segment.used));
+        segment.used++;
+        segment.live++;
+    }
+
+    /**
+     * @return The game's moves in the order they were played; empty if the game has none.
+     */
+    public synchronized List<ChessMove> getMoves(int gameId) {
+        int count = plyCounts.getOrDefault(gameId, 0);
+        List<ChessMove> moves = new ArrayList<>(count);
+        long[] plies = index.get(gameId);
+        for (int i = 0; i < count; i++) {
+            Segment segment = segments.get(segmentOf(plies[i]));
+            int offset = slotOf(plies[i]) * RECORD_SIZE;
+            moves.add(decodeMove(segment.buffer.get(offset + 8), segment.buffer.get(offset + 9),
+                    segment.buffer.get(offset + 10)));
+        }
+        return moves;
+    }
+
+    /**
+     * Forgets a game's moves. Their records become dead space reclaimed by compaction.
+     */
+    public synchronized void deleteGame(int gameId) {
+        long[] plies = index.remove(gameId);
+        Integer count = plyCounts.remove(gameId);
+        if (plies != null) {
+            for (int i = 0; i < count; i++) {
+                segments.get(segmentOf(plies[i])).live--;
+            }
+        }
+    }
+
+    /**
+     * @return The IDs of every game that has moves in the journal.
+     */
+    public synchronized Set<Integer> gameIds() {
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * Compacts mostly-dead sealed segments now rather than when the active one next fills up.
+     */
+    public synchronized void reclaim() throws DataAccessException {
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new DataAccessException("Error compacting game journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every game and deletes all segment files.
+     */
+    public synchronized void clear() throws DataAccessException {
+        try {
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                deleteSegment(segment);
+            }
+            index.clear();
+            plyCounts.clear();
+            active = openSegment(nextSegmentId());
+        } catch (IOException e) {
+            throw new DataAccessException("Error clearing game journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites sealed segments whose records are mostly dead: live records are copied to the
+     * tail of the log, the index is repointed, and the old file is deleted.
+     */
+    private void compact() throws IOException {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active || segment.live > segment.used * COMPACT_LIVE_RATIO) {
+                continue;
+            }
+            for (int slot = 0; slot < segment.used; slot++) {
+                int offset = slot * RECORD_SIZE;
+                if (!isValid(segment.buffer, offset)) {
+                    continue; // torn or erased
+                }
+                int gameId = segment.buffer.getInt(offset);
+                int ply = segment.buffer.getInt(offset + 4);
+                long[] plies = index.get(gameId);
+                if (plies == null || ply > plyCounts.get(gameId) || plies[ply - 1] != location(segment.id, slot)) {
+                    continue; // dead record
+                }
+                if (active.used == recordsPerSegment) {
+                    active = openSegment(nextSegmentId());
+                }
+                writeRecord(active, gameId, ply, segment.buffer.get(offset + 8), segment.buffer.get(offset + 9),
+                        segment.buffer.get(offset + 10));
+            }
+            // Make the copies durable before the originals disappear.
+            active.buffer.force();
+            deleteSegment(segment);
+        }
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        Segment segment = new Segment(id, path, channel, buffer);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private int nextSegmentId() {
+        return segments.isEmpty() ? 0 : segments.lastKey() + 1;
+    }
+
+    private long location(int segmentId, int slot) {
+        return (long) segmentId * recordsPerSegment + slot;
+    }
+
+    private int segmentOf(long location) {
+        return (int) (location / recordsPerSegment);
+    }
+
+    private int slotOf(long location) {
+        return (int) (location % recordsPerSegment);
+    }
+
+    private static boolean isValid(MappedByteBuffer buffer, int offset) {
+        if (buffer.get(offset + 11) != MARKER) {
+            return false;
+        }
+        return buffer.getInt(offset + 12) == checksum(buffer.getInt(offset), buffer.getInt(offset + 4),
+                buffer.get(offset + 8), buffer.get(offset + 9), buffer.get(offset + 10));
+    }
+
+    private static int checksum(int gameId, int ply, byte from, byte to, byte promotion) {
+        int hash = 0x9E3779B9;
+        hash = (hash ^ gameId) * 0x01000193;
+        hash = (hash ^ ply) * 0x01000193;
+        hash = (hash ^ ((from & 0xFF) << 16 | (to & 0xFF) << 8 | (promotion & 0xFF))) * 0x01000193;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static byte encodeSquare(ChessPosition position) {
+        return (byte) ((position.getRow() - 1) * 8 + (position.getColumn() - 1));
+    }
+
+    private static byte encodePromotion(ChessPiece.PieceType type) {
+        return type == null ? 0 : (byte) (type.ordinal() + 1);
+    }
+
+    private static ChessMove decodeMove(byte from, byte to, byte promotion) {
+        return new ChessMove(new ChessPosition(from / 8 + 1, from % 8 + 1), new ChessPosition(to / 8 + 1, to % 8 + 1),
+                promotion == 0 ? null : ChessPiece.PieceType.values()[promotion - 1]);
+    }
+
+    @Override
+    public synchronized void close() throws DataAccessException {
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Error closing game journal: " + e.getMessage());
+        }
+    }
+}
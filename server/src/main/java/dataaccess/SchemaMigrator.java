@@ -0,0 +1,218 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Brings the MySQL schema up to date on startup. Each migration runs once, in version order,
+ * and is recorded in the SchemaVersion table. New schema changes are appended to
+ * {@link #MIGRATIONS} with the next version number; existing entries must never change.
+ */
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "chess_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    /**
+     * A single schema change. Steps should be safe to run against a database that was
+     * created before the migration runner existed.
+     */
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    record Migration(int version, String description, MigrationStep step) {}
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create base tables", SchemaMigrator::createBaseTables),
+            // Tables created by v1 already have these; older databases get them here.
+            new Migration(2, "Add auth token expiry", conn -> {
+                addColumnIfMissing(conn, "AuthToken", "issuedAt", "BIGINT NOT NULL DEFAULT 0");
+                addColumnIfMissing(conn, "AuthToken", "expiresAt", "BIGINT NOT NULL DEFAULT 0");
+                addIndexIfMissing(conn, "AuthToken", "idx_auth_expires", "expiresAt");
+            }),
+            // InnoDB already backs each foreign key with an index, but naming them keeps the
+            // lookups explicit and stops them from vanishing if a constraint is ever dropped.
+            new Migration(3, "Add secondary indexes for player and token lookups", conn -> {
+                addIndexIfMissing(conn, "Game", "idx_game_white", "whiteUsername");
+                addIndexIfMissing(conn, "Game", "idx_game_black", "blackUsername");
+                addIndexIfMissing(conn, "Game", "idx_game_name", "gameName");
+                addIndexIfMissing(conn, "AuthToken", "idx_auth_username", "username");
+            }),
+            new Migration(4, "Create move log table", conn -> {
+                String createMoveLogTable = """
+                    CREATE TABLE IF NOT EXISTS MoveLog (
+                        gameID INT NOT NULL,
+                        ply INT NOT NULL,
+                        startRow TINYINT NOT NULL,
+                        startCol TINYINT NOT NULL,
+                        endRow TINYINT NOT NULL,
+                        endCol TINYINT NOT NULL,
+                        promotion VARCHAR(16),
+                        PRIMARY KEY (gameID, ply),
+                        FOREIGN KEY (gameID) REFERENCES Game(gameID) ON DELETE CASCADE
+                    );
+                    """;
+                try (var stmt = conn.createStatement()) {
+                    stmt.execute(createMoveLogTable);
+                }
+            }),
+            new Migration(5, "Add game over flag", conn ->
+                    addColumnIfMissing(conn, "Game", "gameOver", "BOOLEAN NOT NULL DEFAULT FALSE")),
+            // Game seats reference User, so the computer needs a row. No BCrypt hash is empty.
+            new Migration(6, "Add computer player", conn -> {
+                try (var stmt = conn.prepareStatement("INSERT IGNORE INTO User (username, password, email) VALUES (?, '', '')")) {
+                    stmt.setString(1, DataAccess.BOT_USERNAME);
+                    stmt.executeUpdate();
+                }
+            })
+    );
+
+    /**
+     * Applies every migration newer than the database's recorded version. A named MySQL lock
+     * keeps two servers starting at once from migrating the same database concurrently.
+     *
+     * @throws DataAccessException If a migration fails; later migrations are not attempted.
+     */
+    public void migrate() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection()) {
+            acquireLock(conn);
+            try {
+                createVersionTable(conn);
+                int current = currentVersion(conn);
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version() > current) {
+                        apply(conn, migration);
+                    }
+                }
+            } finally {
+                releaseLock(conn);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error migrating schema: " + e.getMessage());
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try {
+            migration.step().apply(conn);
+        } catch (SQLException e) {
+            throw new SQLException("migration " + migration.version() + " (" + migration.description()
+                    + ") failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+        try (var stmt = conn.prepareStatement("INSERT INTO SchemaVersion (version, description) VALUES (?, ?)")) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.description());
+            stmt.executeUpdate();
+        }
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (var stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (var rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) throws SQLException {
+        try (var stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS SchemaVersion (
+                version INT PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                appliedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            );
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private int currentVersion(Connection conn) throws SQLException {
+        try (var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM SchemaVersion")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void createBaseTables(Connection conn) throws SQLException {
+        // Create User table
+        String createUserTable = """
+            CREATE TABLE IF NOT EXISTS User (
+                username VARCHAR(255) PRIMARY KEY,
+                password VARCHAR(255) NOT NULL,
+                email VARCHAR(255) NOT NULL
+            );
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(createUserTable);
+        }
+
+        // Create Game table with ON DELETE SET NULL
+        String createGameTable = """
+            CREATE TABLE IF NOT EXISTS Game (
+                gameID INT AUTO_INCREMENT PRIMARY KEY,
+                gameName VARCHAR(255) NOT NULL,
+                whiteUsername VARCHAR(255),
+                blackUsername VARCHAR(255),
+                FOREIGN KEY (whiteUsername) REFERENCES User(username) ON DELETE SET NULL,
+                FOREIGN KEY (blackUsername) REFERENCES User(username) ON DELETE SET NULL
+            );
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(createGameTable);
+        }
+
+        // Create AuthToken table
+        String createAuthTable = """
+            CREATE TABLE IF NOT EXISTS AuthToken (
+                token VARCHAR(255) PRIMARY KEY,
+                username VARCHAR(255),
+                issuedAt BIGINT NOT NULL DEFAULT 0,
+                expiresAt BIGINT NOT NULL DEFAULT 0,
+                INDEX idx_auth_expires (expiresAt),
+                FOREIGN KEY (username) REFERENCES User(username) ON DELETE CASCADE
+            );
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(createAuthTable);
+        }
+    }
+
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        try (var rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (var stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    private static void addIndexIfMissing(Connection conn, String table, String index, String columns) throws SQLException {
+        try (var rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (var stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dataaccess;
+
+/**
+ * Indicates that the server is temporarily too busy to handle the request.
+ */
+public class ServiceUnavailableException extends DataAccessException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
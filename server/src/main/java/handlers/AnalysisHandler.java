@@ -0,0 +1,94 @@
+package handlers;
+
+import chess.ChessMove;
+import com.google.gson.Gson;
+import dataaccess.InvalidAuthTokenException;
+import dataaccess.ServiceUnavailableException;
+import engine.Move;
+import engine.Position;
+import engine.SearchResult;
+import services.AnalysisService;
+import services.AuthService;
+import services.GameService;
+import spark.Request;
+import spark.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles position analysis requests.
+ */
+public class AnalysisHandler {
+    private final AnalysisService analysisService;
+    private final GameService gameService;
+    private final AuthService authService;
+    private final Gson gson = new Gson();
+
+    public AnalysisHandler(AnalysisService analysisService, GameService gameService, AuthService authService) {
+        this.analysisService = analysisService;
+        this.gameService = gameService;
+        this.authService = authService;
+    }
+
+    /**
+     * Analyzes the current position of a game ({@code gameID}) or a FEN position ({@code fen}),
+     * limited by the optional {@code depth} and {@code millis} query parameters. Moves are
+     * returned in coordinate notation, and the score is in centipawns for the side to move.
+     * Positions in the opening book are answered with a book move and {@code "book": true}
+     * instead of being searched.
+     */
+    public Object analyze(Request req, Response res) {
+        try {
+            authService.authenticate(req.headers("Authorization"));
+            String gameID = req.queryParams("gameID");
+            String fen = req.queryParams("fen");
+            Position position;
+            if (gameID != null) {
+                int id = Integer.parseInt(gameID);
+                gameService.getGame(id); // Throws DataAccessException if not found
+                position = Position.from(gameService.loadChessGame(id));
+            } else if (fen != null) {
+                position = Position.fromFen(fen);
+            } else {
+                throw new IllegalArgumentException("gameID or fen is required.");
+            }
+            SearchResult result = analysisService.analyze(position,
+                    intParam(req, "depth"), intParam(req, "millis"));
+
+            List<String> line = new ArrayList<>();
+            for (ChessMove move : result.principalVariation()) {
+                line.add(Move.toString(move));
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("fen", position.toFen());
+            body.put("bestMove", result.bestMove() == null ? null : Move.toString(result.bestMove()));
+            body.put("score", result.score());
+            body.put("mate", result.isMate());
+            body.put("depth", result.depth());
+            body.put("principalVariation", line);
+            body.put("nodes", result.nodes());
+            body.put("book", result.fromBook());
+            res.status(200);
+            res.type("application/json");
+            return gson.toJson(body);
+        } catch (InvalidAuthTokenException e) {
+            res.status(401);
+            return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
+        } catch (ServiceUnavailableException e) {
+            res.status(503);
+            res.header("Retry-After", "1");
+            return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
+        } catch (Exception e) {
+            res.status(400);
+            return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
+        }
+    }
+
+    private static int intParam(Request req, String name) {
+        String value = req.queryParams(name);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+}
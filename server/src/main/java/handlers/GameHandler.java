@@ -28,13 +28,17 @@ public class GameHandler {
     }
 
     /**
-     * Lists all available games.
+     * Lists all available games, or with a "player" query parameter only the games in which
+     * that user holds a seat.
      */
     public Object listGames(Request req, Response res) {
         try {
             String authToken = req.headers("Authorization");
             authService.authenticate(authToken);
-            List<Game> games = gameService.listGames();
+            String player = req.queryParams("player");
+            List<Game> games = player == null || player.isEmpty()
+                    ? gameService.listGames()
+                    : gameService.listGamesForPlayer(player);
             res.status(200);
             res.type("application/json");
             System.out.println(games);
@@ -46,7 +50,7 @@ public class GameHandler {
     }
 
     /**
-     * Creates a new game.
+     * Creates a new game. An optional "botColor" gives that seat to the computer.
      */
     public Object createGame(Request req, Response res) {
         try {
@@ -57,7 +61,7 @@ public class GameHandler {
             if (gameName == null || gameName.isEmpty()) {
                 throw new Exception("Game name is required.");
             }
-            Game game = gameService.createGame(gameName);
+            Game game = gameService.createGame(gameName, requestBody.get("botColor"));
             res.status(200);
             res.type("application/json");
             return gson.toJson(Map.of("gameID", game.getGameID(), "gameName", game.getGameName()));
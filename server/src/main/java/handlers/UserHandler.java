@@ -1,5 +1,6 @@
 package handlers;
 
+import dataaccess.ServiceUnavailableException;
 import dataaccess.UserAlreadyExistsException;
 import services.UserService;
 import models.User;
@@ -34,6 +35,8 @@ public class UserHandler {
         } catch (UserAlreadyExistsException e) {
             res.status(403);
             return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
+        } catch (ServiceUnavailableException e) {
+            return serviceUnavailable(res, e);
         } catch (Exception e) {
             res.status(400);
             return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
@@ -50,6 +53,8 @@ public class UserHandler {
             res.status(200);
             res.type("application/json");
             return gson.toJson(Map.of("username", loginRequest.getUsername(), "authToken", auth.getToken()));
+        } catch (ServiceUnavailableException e) {
+            return serviceUnavailable(res, e);
         } catch (Exception e) {
             res.status(401);
             return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
@@ -71,4 +76,13 @@ public class UserHandler {
             return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tells the client to back off when password hashing is saturated.
+     */
+    private Object serviceUnavailable(Response res, ServiceUnavailableException e) {
+        res.status(503);
+        res.header("Retry-After", "1");
+        return gson.toJson(Map.of("message", "Error: " + e.getMessage(), "success", false));
+    }
+}
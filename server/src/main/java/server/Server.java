@@ -1,21 +1,44 @@
 package server;
 
 import dataaccess.DataAccessException;
+import dataaccess.DataAccessFileImpl;
+import dataaccess.DataAccessImpl;
+import dataaccess.DataAccessJournalImpl;
 import dataaccess.DataAccessMySQLImpl;
+import dataaccess.DataAccessWriteBehindImpl;
+import dataaccess.GameJournal;
 import handlers.UserHandler;
 import handlers.GameHandler;
 import handlers.ErrorHandler;
+import handlers.AnalysisHandler;
 import services.UserService;
 import services.GameService;
 import services.AuthService;
+import services.AnalysisService;
+import services.AuthTokenSweeper;
+import services.BotService;
+import services.PasswordHasher;
+import services.TokenSigner;
 import dataaccess.DataAccess;
 import com.google.gson.Gson;
+import engine.OpeningBook;
+import engine.Tablebase;
 import services.WebSocketService;
 import spark.Session;
 import spark.Spark;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main server class that initializes and runs the Spark server.
@@ -24,34 +47,180 @@ public class Server {
     private final DataAccess dataAccess;
     private final UserService userService;
     private final GameService gameService;
+    private final BotService botService;
+    private final AnalysisService analysisService;
     private final AuthService authService;
+    private final PasswordHasher passwordHasher;
+    private final AuthTokenSweeper authTokenSweeper;
+    private final long sweepIntervalSeconds;
     private final UserHandler userHandler;
     private final GameHandler gameHandler;
+    private final AnalysisHandler analysisHandler;
     private final ErrorHandler errorHandler;
     private final Gson gson = new Gson();
     public static ConcurrentHashMap<Session, Integer> gameSessions = new ConcurrentHashMap<>();
+    // Endgame tables built when engine.tablebase.dir is set; all three-piece tables and the common four-piece ones.
+    private static final String DEFAULT_TABLES = "KQvK,KRvK,KPvK,KQvKR,KRvKP,KRvKB,KRvKN,KQvKP";
 
     public Server() {
+        ServerConfig config = new ServerConfig();
         try {
-            this.dataAccess = new DataAccessMySQLImpl();
+            this.dataAccess = createDataAccess(config);
         } catch (DataAccessException e) {
             throw new RuntimeException("Failed to initialize DataAccess layer: " + e.getMessage(), e);
         }
-        this.userService = new UserService(dataAccess);
-        this.gameService = new GameService(dataAccess);
-        this.authService = new AuthService(dataAccess);
+        this.passwordHasher = new PasswordHasher(
+                config.getInt("auth.hash.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                config.getInt("auth.hash.queue", PasswordHasher.DEFAULT_QUEUE_CAPACITY),
+                config.getInt("auth.hash.cost", PasswordHasher.DEFAULT_WORK_FACTOR));
+        this.authService = new AuthService(dataAccess,
+                TimeUnit.MINUTES.toMillis(config.getLong("auth.token.ttl.minutes", 24 * 60)),
+                createTokenSigner(config),
+                config.getInt("auth.token.revoked.max", AuthService.DEFAULT_MAX_REVOKED_TOKENS));
+        this.authTokenSweeper = new AuthTokenSweeper(dataAccess, config.getInt("auth.sweep.batch", 500));
+        this.sweepIntervalSeconds = config.getLong("auth.sweep.interval.seconds", 300);
+        this.userService = new UserService(dataAccess, passwordHasher, authService);
+        this.gameService = new GameService(dataAccess, config.getInt("game.cache.size", GameService.DEFAULT_CACHE_CAPACITY));
+        this.botService = new BotService(
+                config.getInt("engine.pool.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 4)),
+                config.getInt("engine.pool.queue", BotService.DEFAULT_QUEUE_CAPACITY),
+                config.getInt("engine.search.threads", 1),
+                config.getInt("engine.hash.mb", BotService.DEFAULT_HASH_MEGABYTES),
+                config.getLong("engine.move.millis", BotService.DEFAULT_MOVE_MILLIS),
+                openOpeningBook(config),
+                openTablebase(config));
+        this.analysisService = new AnalysisService(botService,
+                config.getInt("analysis.cache.size", AnalysisService.DEFAULT_CACHE_CAPACITY),
+                config.getLong("analysis.default.millis", AnalysisService.DEFAULT_MILLIS),
+                config.getInt("analysis.max.depth", AnalysisService.DEFAULT_MAX_DEPTH),
+                config.getLong("analysis.max.millis", AnalysisService.DEFAULT_MAX_MILLIS));
         this.userHandler = new UserHandler(userService);
         this.gameHandler = new GameHandler(gameService, authService);
+        this.analysisHandler = new AnalysisHandler(analysisService, gameService, authService);
         this.errorHandler = new ErrorHandler();
     }
 
+    /**
+     * Chooses the storage backend. MySQL is the default; "file" keeps data in memory with an
+     * on-disk journal and needs no external service; "memory" keeps nothing across restarts.
+     */
+    private static DataAccess createDataAccess(ServerConfig config) throws DataAccessException {
+        String backend = config.getString("storage.backend", "mysql");
+        DataAccess dataAccess = switch (backend.toLowerCase()) {
+            case "mysql" -> new DataAccessMySQLImpl();
+            case "file" -> new DataAccessFileImpl(Path.of(config.getString("storage.file.path", "data/chess.journal")),
+                    config.getBoolean("storage.file.sync", false));
+            case "memory" -> new DataAccessImpl();
+            default -> throw new DataAccessException("Unknown storage backend: " + backend);
+        };
+        return layerStorage(dataAccess, config);
+    }
+
+    /**
+     * Stacks the optional storage layers on a backend. Moves and game-over marks can be batched
+     * behind a short window, and setting a move journal directory moves game moves of any backend
+     * into memory-mapped segments, outside the write-behind layer. Moves kept in a journal do not
+     * reach the backend, so the journal is off unless configured.
+     */
+    static DataAccess layerStorage(DataAccess dataAccess, ServerConfig config) throws DataAccessException {
+        long writeBehindMillis = config.getLong("storage.writebehind.window.millis", 0);
+        if (writeBehindMillis > 0) {
+            dataAccess = new DataAccessWriteBehindImpl(dataAccess, writeBehindMillis,
+                    config.getInt("storage.writebehind.max.pending", 1000));
+        }
+        String journalDir = config.getString("storage.journal.dir", null);
+        if (journalDir == null || journalDir.isBlank()) {
+            return dataAccess;
+        }
+        return new DataAccessJournalImpl(dataAccess, new GameJournal(Path.of(journalDir),
+                config.getInt("storage.journal.segment.records", 65536),
+                config.getBoolean("storage.journal.sync", false)));
+    }
+
+    /**
+     * Signed tokens are opt-in. Without a configured secret each process gets a random key,
+     * which is fine for a single node but means tokens do not survive a restart.
+     */
+    private static TokenSigner createTokenSigner(ServerConfig config) {
+        if (!"signed".equalsIgnoreCase(config.getString("auth.token.mode", "database"))) {
+            return null;
+        }
+        String secret = config.getString("auth.token.secret", null);
+        return secret == null ? new TokenSigner() : new TokenSigner(Base64.getDecoder().decode(secret));
+    }
+
+    /**
+     * Maps the opening book named by engine.book.path, if any. A missing book file is first
+     * built from the opening lines bundled with the server.
+     */
+    private static OpeningBook openOpeningBook(ServerConfig config) {
+        String path = config.getString("engine.book.path", null);
+        if (path == null) {
+            return null;
+        }
+        Path file = Path.of(path);
+        try {
+            if (!Files.exists(file)) {
+                try (InputStream in = Server.class.getResourceAsStream("/openings.txt")) {
+                    if (in == null) {
+                        throw new IOException("openings.txt is missing from the classpath");
+                    }
+                    String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    new OpeningBook.Builder().addLines(text.lines().toList()).write(file);
+                }
+            }
+            return OpeningBook.open(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open the opening book: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps the endgame tables in engine.tablebase.dir, if set. Tables listed in
+     * engine.tablebase.tables that are missing are built on a background thread and used as
+     * soon as each is ready.
+     */
+    private static Tablebase openTablebase(ServerConfig config) {
+        String path = config.getString("engine.tablebase.dir", null);
+        if (path == null) {
+            return null;
+        }
+        Tablebase tablebase;
+        try {
+            tablebase = Tablebase.open(Path.of(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open the endgame tables: " + e.getMessage(), e);
+        }
+        List<String> missing = new ArrayList<>();
+        for (String name : config.getString("engine.tablebase.tables", DEFAULT_TABLES).split(",")) {
+            if (!name.isBlank() && !tablebase.has(name.trim())) {
+                missing.add(name.trim());
+            }
+        }
+        if (!missing.isEmpty()) {
+            Thread generator = new Thread(() -> {
+                for (String name : missing) {
+                    try {
+                        tablebase.generate(name);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Failed to build endgame table " + name + ": " + e.getMessage());
+                    }
+                }
+            }, "tablebase-generator");
+            generator.setDaemon(true);
+            generator.setPriority(Thread.MIN_PRIORITY);
+            generator.start();
+        }
+        return tablebase;
+    }
+
     public int run(int desiredPort) {
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
 
         Spark.webSocket("/ws", WebSocketService.class);
-        WebSocketService.initialize(authService, gameService);
+        WebSocketService.initialize(authService, gameService, botService);
 
         Spark.exception(Exception.class, errorHandler::handleException);
 
@@ -65,9 +234,17 @@ public class Server {
         Spark.post("/game", gameHandler::createGame);
         Spark.put("/game", gameHandler::joinGame);
 
+        Spark.get("/analysis", analysisHandler::analyze);
+
+        Spark.get("/metrics", (req, res) -> {
+            res.type("application/json");
+            return gson.toJson(metrics());
+        });
+
         Spark.delete("/db", (req, res) -> {
             try {
                 userService.clearData();
+                gameService.invalidateCache();
                 res.status(200);
                 res.type("application/json");
                 return gson.toJson(Map.of("message", "All data cleared"));
@@ -79,6 +256,7 @@ public class Server {
 
         Spark.init();
         Spark.awaitInitialization();
+        authTokenSweeper.start(sweepIntervalSeconds);
 
         return Spark.port();
     }
@@ -86,5 +264,36 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        passwordHasher.close();
+        authTokenSweeper.close();
+        botService.close();
+        if (dataAccess instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Counters for operators, served at /metrics.
+     */
+    private Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("passwordHasher", Map.of(
+                "workFactor", passwordHasher.getWorkFactor(),
+                "completed", passwordHasher.getCompletedCount(),
+                "rejected", passwordHasher.getRejectedCount(),
+                "queueDepth", passwordHasher.getQueueDepth(),
+                "averageMillis", passwordHasher.getAverageMillis(),
+                "maxMillis", passwordHasher.getMaxMillis()));
+        metrics.put("gameCache", Map.of(
+                "hits", gameService.getCacheHitCount(),
+                "misses", gameService.getCacheMissCount(),
+                "size", gameService.getCacheSize()));
+        metrics.put("auth", Map.of(
+                "revokedTokens", authService.getRevokedTokenCount()));
+        return metrics;
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package server;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Server tuning options. Values come from an optional server.properties file on the
+ * classpath and can be overridden with JVM system properties of the same name.
+ */
+public class ServerConfig {
+    private final Properties props = new Properties();
+
+    public ServerConfig() {
+        try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("server.properties")) {
+            if (propStream != null) {
+                props.load(propStream);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("unable to process server.properties. " + ex.getMessage());
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        return System.getProperty(key, props.getProperty(key, defaultValue));
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,180 @@
+package services;
+
+import dataaccess.DataAccessException;
+import dataaccess.ServiceUnavailableException;
+import engine.Position;
+import engine.SearchLimits;
+import engine.SearchResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers position analysis requests from a bounded, least-recently-used cache of engine
+ * results keyed by position hash and search limits. Requests for a position that is already
+ * being searched with the same limits wait for that search instead of starting another, so a
+ * position that many observers analyze at once is searched once.
+ */
+public class AnalysisService {
+    public static final int DEFAULT_CACHE_CAPACITY = 4096;
+    public static final long DEFAULT_MILLIS = 1000;
+    public static final int DEFAULT_MAX_DEPTH = 20;
+    public static final long DEFAULT_MAX_MILLIS = 5000;
+
+    private record Key(long hash, int depth, long timeMillis) {
+    }
+
+    private final BotService engines;
+    private final int capacity;
+    private final Map<Key, SearchResult> cache;
+    private final Map<Key, CompletableFuture<SearchResult>> inFlight = new ConcurrentHashMap<>();
+    private final long defaultMillis;
+    private final int maxDepth;
+    private final long maxMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public AnalysisService(BotService engines) {
+        this(engines, DEFAULT_CACHE_CAPACITY, DEFAULT_MILLIS, DEFAULT_MAX_DEPTH, DEFAULT_MAX_MILLIS);
+    }
+
+    /**
+     * @param engines       the pool that runs the searches.
+     * @param cacheCapacity the most results kept; 0 disables caching but not coalescing.
+     * @param defaultMillis search time when a request gives neither a depth nor a time.
+     * @param maxDepth      the deepest search a request may ask for.
+     * @param maxMillis     the longest search a request may ask for; depth requests stop here too.
+     */
+    public AnalysisService(BotService engines, int cacheCapacity, long defaultMillis, int maxDepth, long maxMillis) {
+        this.engines = engines;
+        this.capacity = cacheCapacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SearchResult> eldest) {
+                return size() > AnalysisService.this.capacity;
+            }
+        };
+        this.defaultMillis = defaultMillis;
+        this.maxDepth = maxDepth;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Analyzes a position. Limits above the configured maximums are lowered to them.
+     *
+     * @param depth      search depth in plies, or 0 to search by time only.
+     * @param timeMillis search time, or 0 to search by depth only (up to the maximum time).
+     * @throws DataAccessException If a limit is negative or the search fails.
+     * @throws ServiceUnavailableException If the engine pool is saturated.
+     */
+    public SearchResult analyze(Position position, int depth, long timeMillis) throws DataAccessException {
+        if (depth < 0 || timeMillis < 0) {
+            throw new DataAccessException("Search limits must not be negative.");
+        }
+        if (depth == 0 && timeMillis == 0) {
+            timeMillis = defaultMillis;
+        }
+        depth = Math.min(depth, maxDepth);
+        timeMillis = timeMillis == 0 ? maxMillis : Math.min(timeMillis, maxMillis);
+        Key key = new Key(position.key(), depth, timeMillis);
+
+        SearchResult cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<SearchResult> search = new CompletableFuture<>();
+        CompletableFuture<SearchResult> existing = inFlight.putIfAbsent(key, search);
+        if (existing != null) {
+            coalesced.increment();
+            search = existing;
+        } else {
+            start(key, position, new SearchLimits(depth, timeMillis), search);
+        }
+        return await(search, timeMillis);
+    }
+
+    private void start(Key key, Position position, SearchLimits limits, CompletableFuture<SearchResult> search)
+            throws ServiceUnavailableException {
+        // A search for this key may have finished between the cache check and claiming the key.
+        SearchResult cached = getCached(key);
+        if (cached != null) {
+            inFlight.remove(key, search);
+            search.complete(cached);
+            return;
+        }
+        misses.increment();
+        try {
+            engines.analyze(position, limits).whenComplete((result, error) -> {
+                if (result != null) {
+                    putCached(key, result);
+                }
+                // Only after caching, so a later request finds either the search or its result.
+                inFlight.remove(key, search);
+                if (error != null) {
+                    search.completeExceptionally(error);
+                } else {
+                    search.complete(result);
+                }
+            });
+        } catch (ServiceUnavailableException e) {
+            inFlight.remove(key, search);
+            search.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static SearchResult await(CompletableFuture<SearchResult> search, long timeMillis) throws DataAccessException {
+        try {
+            // The search stops itself at its time limit; the slack covers waiting in the queue.
+            return search.get(timeMillis + 30_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while analyzing.");
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("The engine is busy, try again later.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ServiceUnavailableException busy) {
+                throw busy;
+            }
+            throw new DataAccessException("Analysis failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private synchronized SearchResult getCached(Key key) {
+        SearchResult result = cache.get(key);
+        if (result != null) {
+            hits.increment();
+        }
+        return result;
+    }
+
+    private synchronized void putCached(Key key, SearchResult result) {
+        if (capacity > 0) {
+            cache.put(key, result);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+}
@@ -5,14 +5,78 @@ import dataaccess.DataAccessException;
 import dataaccess.InvalidAuthTokenException;
 import models.AuthToken;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Service for handling authentication-related operations.
  */
 public class AuthService {
+    public static final long DEFAULT_TOKEN_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final int DEFAULT_MAX_REVOKED_TOKENS = 100_000;
+
     private final DataAccess dataAccess;
+    private final long tokenTtlMillis;
+    private final TokenSigner tokenSigner;
+    private final int maxRevokedTokens;
+
+    // Signed tokens cannot be deleted, so logged-out ones are remembered until they expire,
+    // keyed by their signed body, in the order they were revoked; guarded by itself. Once more
+    // than maxRevokedTokens are remembered, expired ones are dropped, and if that is not enough
+    // the oldest are forgotten and every token issued no later than them is refused instead, so
+    // the cap never lets a revoked token back in (even with a TTL of 0, when none expire).
+    private final Map<String, AuthToken> revokedTokens = new LinkedHashMap<>();
+    private volatile long refusedIssuedUpTo = Long.MIN_VALUE;
 
     public AuthService(DataAccess dataAccess) {
+        this(dataAccess, DEFAULT_TOKEN_TTL_MILLIS);
+    }
+
+    /**
+     * @param tokenTtlMillis how long issued tokens stay valid, or 0 for tokens that never expire.
+     */
+    public AuthService(DataAccess dataAccess, long tokenTtlMillis) {
+        this(dataAccess, tokenTtlMillis, null);
+    }
+
+    /**
+     * @param tokenTtlMillis how long issued tokens stay valid, or 0 for tokens that never expire.
+     * @param tokenSigner    if not null, tokens are issued as signed tokens and validated in-process
+     *                       instead of being stored in the database.
+     */
+    public AuthService(DataAccess dataAccess, long tokenTtlMillis, TokenSigner tokenSigner) {
+        this(dataAccess, tokenTtlMillis, tokenSigner, DEFAULT_MAX_REVOKED_TOKENS);
+    }
+
+    /**
+     * @param maxRevokedTokens how many logged-out signed tokens are remembered before older
+     *                         ones are dropped; see {@link #revoke}.
+     */
+    public AuthService(DataAccess dataAccess, long tokenTtlMillis, TokenSigner tokenSigner, int maxRevokedTokens) {
         this.dataAccess = dataAccess;
+        this.tokenTtlMillis = tokenTtlMillis;
+        this.tokenSigner = tokenSigner;
+        this.maxRevokedTokens = maxRevokedTokens;
+    }
+
+    /**
+     * Issues and stores a new authentication token for a user.
+     *
+     * @param username The user the token belongs to.
+     * @return The new AuthToken.
+     * @throws DataAccessException If the token cannot be stored.
+     */
+    public AuthToken createAuth(String username) throws DataAccessException {
+        long now = System.currentTimeMillis();
+        long expiresAt = tokenTtlMillis > 0 ? now + tokenTtlMillis : 0;
+        if (tokenSigner != null) {
+            return tokenSigner.sign(username, now, expiresAt);
+        }
+        AuthToken auth = new AuthToken(UUID.randomUUID().toString(), username, now, expiresAt);
+        dataAccess.createAuth(auth);
+        return auth;
     }
 
     /**
@@ -20,13 +84,90 @@ public class AuthService {
      *
      * @param token The authentication token.
      * @return The associated AuthToken.
-     * @throws DataAccessException If the token is invalid or an error occurs.
+     * @throws DataAccessException If the token is invalid, expired, or an error occurs.
      */
     public AuthToken authenticate(String token) throws DataAccessException {
+        if (tokenSigner != null && tokenSigner.isSigned(token)) {
+            return authenticateSigned(token);
+        }
         AuthToken auth = dataAccess.getAuth(token);
         if (auth == null) {
             throw new InvalidAuthTokenException("Invalid auth token.");
         }
+        if (auth.isExpired(System.currentTimeMillis())) {
+            dataAccess.deleteAuth(token);
+            throw new InvalidAuthTokenException("Auth token has expired.");
+        }
         return auth;
     }
-}
\ No newline at end of file
+
+    private AuthToken authenticateSigned(String token) throws DataAccessException {
+        AuthToken auth = tokenSigner.verify(token);
+        if (auth == null || auth.getIssuedAt() <= refusedIssuedUpTo || isRevoked(tokenSigner.body(token))) {
+            throw new InvalidAuthTokenException("Invalid auth token.");
+        }
+        if (auth.isExpired(System.currentTimeMillis())) {
+            throw new InvalidAuthTokenException("Auth token has expired.");
+        }
+        return auth;
+    }
+
+    /**
+     * @return how many logged-out signed tokens are currently remembered.
+     */
+    public int getRevokedTokenCount() {
+        synchronized (revokedTokens) {
+            return revokedTokens.size();
+        }
+    }
+
+    private boolean isRevoked(String body) {
+        synchronized (revokedTokens) {
+            return revokedTokens.containsKey(body);
+        }
+    }
+
+    /**
+     * Invalidates a token so it can no longer be used. A signed token is remembered as revoked
+     * until it expires; if more than the configured number are remembered, the oldest may be
+     * forgotten, and then every signed token issued no later than it is refused as well.
+     *
+     * @param token The authentication token.
+     * @throws DataAccessException If the token is invalid or an error occurs.
+     */
+    public void revoke(String token) throws DataAccessException {
+        AuthToken auth = authenticate(token);
+        if (tokenSigner != null && tokenSigner.isSigned(token)) {
+            synchronized (revokedTokens) {
+                revokedTokens.put(tokenSigner.body(token), auth);
+                if (revokedTokens.size() > maxRevokedTokens) {
+                    pruneRevokedTokens();
+                }
+            }
+            return;
+        }
+        dataAccess.deleteAuth(token);
+    }
+
+    /**
+     * Shrinks the revoked set to three quarters of its cap, so the scan runs once per quarter
+     * cap of revocations rather than on each one. Must hold the revokedTokens lock.
+     */
+    private void pruneRevokedTokens() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(auth -> auth.isExpired(now));
+        int target = maxRevokedTokens - maxRevokedTokens / 4;
+        if (revokedTokens.size() <= target) {
+            return;
+        }
+        long refused = refusedIssuedUpTo;
+        Iterator<AuthToken> oldest = revokedTokens.values().iterator();
+        while (revokedTokens.size() > target) {
+            refused = Math.max(refused, oldest.next().getIssuedAt());
+            oldest.remove();
+        }
+        refusedIssuedUpTo = refused;
+        long covered = refused;
+        revokedTokens.values().removeIf(auth -> auth.getIssuedAt() <= covered);
+    }
+}
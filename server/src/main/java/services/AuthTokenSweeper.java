@@ -0,0 +1,72 @@
+package services;
+
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically deletes expired auth tokens in small batches so the token table
+ * does not grow without bound and no single delete holds locks for long.
+ */
+public class AuthTokenSweeper implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(AuthTokenSweeper.class);
+
+    private final DataAccess dataAccess;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    public AuthTokenSweeper(DataAccess dataAccess, int batchSize) {
+        this.dataAccess = dataAccess;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auth-token-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts sweeping on a fixed interval.
+     *
+     * @param intervalSeconds seconds between sweeps.
+     */
+    public void start(long intervalSeconds) {
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Deletes every token that has expired, one bounded batch at a time.
+     *
+     * @return The total number of tokens deleted.
+     * @throws DataAccessException If a batch fails.
+     */
+    public int sweep() throws DataAccessException {
+        long now = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = dataAccess.deleteExpiredAuths(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (DataAccessException e) {
+            // The next sweep retries; expired tokens are already rejected on use.
+            LOG.error("Failed to sweep expired auth tokens", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
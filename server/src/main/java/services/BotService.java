@@ -0,0 +1,221 @@
+package services;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import dataaccess.ServiceUnavailableException;
+import engine.Engine;
+import engine.OpeningBook;
+import engine.Position;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.Tablebase;
+import engine.TranspositionTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Computes moves for computer seats on a dedicated, bounded pool so that engine searches never
+ * run on the WebSocket threads. Requests are served first come, first served, and each game has
+ * at most one search queued or running, so one busy game cannot crowd out the others. Analysis
+ * requests share the same pool.
+ * <p>
+ * Every pool thread has its own engine; the engines share one transposition table and, if
+ * there are any, an opening book and endgame tables.
+ */
+public class BotService implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_HASH_MEGABYTES = 64;
+    public static final long DEFAULT_MOVE_MILLIS = 1000;
+    private static final Logger LOG = LoggerFactory.getLogger(BotService.class);
+
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<Engine> engines;
+    private final SearchLimits limits;
+    private final Tablebase tablebase;
+    private final Set<Integer> thinking = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BotService() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), DEFAULT_QUEUE_CAPACITY, 1,
+                DEFAULT_HASH_MEGABYTES, DEFAULT_MOVE_MILLIS);
+    }
+
+    /**
+     * @param threads        how many games may be searched at once.
+     * @param queueCapacity  how many games may wait for a thread before requests are turned away.
+     * @param searchThreads  threads each search uses, including its pool thread.
+     * @param hashMegabytes  size of the shared transposition table.
+     * @param moveMillis     time given to each move.
+     */
+    public BotService(int threads, int queueCapacity, int searchThreads, int hashMegabytes, long moveMillis) {
+        this(threads, queueCapacity, searchThreads, hashMegabytes, moveMillis, null);
+    }
+
+    /**
+     * @param book opening book the engines play from before searching, or null for none.
+     */
+    public BotService(int threads, int queueCapacity, int searchThreads, int hashMegabytes, long moveMillis,
+                      OpeningBook book) {
+        this(threads, queueCapacity, searchThreads, hashMegabytes, moveMillis, book, null);
+    }
+
+    /**
+     * @param book      opening book the engines play from before searching, or null for none.
+     * @param tablebase endgame tables the engines play from and games are adjudicated by, or null for none.
+     */
+    public BotService(int threads, int queueCapacity, int searchThreads, int hashMegabytes, long moveMillis,
+                      OpeningBook book, Tablebase tablebase) {
+        TranspositionTable table = new TranspositionTable(hashMegabytes);
+        this.engines = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            engines.add(new Engine(searchThreads, table, book, tablebase));
+        }
+        this.tablebase = tablebase;
+        this.limits = SearchLimits.time(moveMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "bot-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a search for a game's next move; failures are only logged.
+     *
+     * @see #requestMove(int, Position, Consumer, Consumer)
+     */
+    public boolean requestMove(int gameId, Position position, Consumer<ChessMove> onMove)
+            throws ServiceUnavailableException {
+        return requestMove(gameId, position, onMove, e -> { });
+    }
+
+    /**
+     * Queues a search for a game's next move. The position must be a snapshot that nothing
+     * else modifies. The callback runs on a pool thread once the move is chosen; it is not
+     * called if the side to move has no legal moves. If the search or the callback throws, the
+     * error is logged and passed to {@code onError}, and the game may ask again.
+     *
+     * @return False if a search for this game is already queued or running.
+     * @throws ServiceUnavailableException If the pool is saturated.
+     */
+    public boolean requestMove(int gameId, Position position, Consumer<ChessMove> onMove,
+                               Consumer<RuntimeException> onError) throws ServiceUnavailableException {
+        if (!thinking.add(gameId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    ChessMove move;
+                    try {
+                        move = chooseMove(position);
+                    } finally {
+                        // Released before the callback so that the move it applies can queue the next search.
+                        thinking.remove(gameId);
+                    }
+                    if (move != null) {
+                        onMove.accept(move);
+                    }
+                } catch (RuntimeException e) {
+                    // The executor would swallow it, leaving the game waiting on a move that never comes.
+                    failed.increment();
+                    LOG.error("Computer move failed for game " + gameId, e);
+                    try {
+                        onError.accept(e);
+                    } catch (RuntimeException reportError) {
+                        LOG.error("Failed to report a computer move failure for game " + gameId, reportError);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            thinking.remove(gameId);
+            rejected.increment();
+            throw new ServiceUnavailableException("The computer is busy, try again later.");
+        }
+    }
+
+    private ChessMove chooseMove(Position position) {
+        return search(position, limits).bestMove();
+    }
+
+    private SearchResult search(Position position, SearchLimits searchLimits) {
+        Engine engine = engines.poll();
+        if (engine == null) {
+            throw new IllegalStateException("No engine available for a bot thread");
+        }
+        try {
+            SearchResult result = engine.search(position, searchLimits);
+            completed.increment();
+            return result;
+        } finally {
+            engines.add(engine);
+        }
+    }
+
+    /**
+     * Queues a search of a position with the given limits.
+     *
+     * @throws ServiceUnavailableException If the pool is saturated.
+     */
+    public CompletableFuture<SearchResult> analyze(Position position, SearchLimits searchLimits)
+            throws ServiceUnavailableException {
+        try {
+            return CompletableFuture.supplyAsync(() -> search(position, searchLimits), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("The engine is busy, try again later.");
+        }
+    }
+
+    /**
+     * @return True if the endgame tables show the game's position as a draw with best play.
+     */
+    public boolean isTablebaseDraw(ChessGame game) {
+        return tablebase != null && tablebase.probe(Position.from(game)) == 0;
+    }
+
+    public boolean isThinking(int gameId) {
+        return thinking.contains(gameId);
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        engines.forEach(Engine::close);
+    }
+}
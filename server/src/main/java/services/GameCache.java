@@ -0,0 +1,85 @@
+package services;
+
+import models.Game;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, least-recently-used cache of game rows. Entries are stored and returned as copies,
+ * so callers may modify what they get back without affecting the cache.
+ * <p>
+ * A load that races with an invalidation must not repopulate the cache with the row it read
+ * before the change. Callers take a {@link #generation()} stamp before reading from the
+ * database and pass it to {@link #put}, which drops the row if anything was invalidated since.
+ */
+public class GameCache {
+    private final int capacity;
+    private final Map<Integer, Game> entries;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity the most games kept; 0 disables caching.
+     */
+    public GameCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Game> eldest) {
+                return size() > GameCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return A copy of the cached game, or null on a miss.
+     */
+    public synchronized Game get(int gameId) {
+        Game game = entries.get(gameId);
+        if (game == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Game(game);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a game loaded from the database, unless an invalidation happened after the load began.
+     */
+    public synchronized void put(Game game, long loadedAtGeneration) {
+        if (capacity > 0 && loadedAtGeneration == generation) {
+            entries.put(game.getGameID(), new Game(game));
+        }
+    }
+
+    public synchronized void invalidate(int gameId) {
+        generation++;
+        entries.remove(gameId);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
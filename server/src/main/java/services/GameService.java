@@ -1,5 +1,8 @@
 package services;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.TeamColorAlreadyTakenException;
@@ -11,10 +14,26 @@ import java.util.List;
  * Service for handling game-related operations.
  */
 public class GameService {
+    public static final int DEFAULT_CACHE_CAPACITY = 1024;
+    /**
+     * Username recorded in a seat played by the computer. It cannot be registered or log in.
+     */
+    public static final String BOT_USERNAME = DataAccess.BOT_USERNAME;
+
     private final DataAccess dataAccess;
+    private final GameCache cache;
 
     public GameService(DataAccess dataAccess) {
+        this(dataAccess, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * @param dataAccess    the backing store.
+     * @param cacheCapacity how many games to keep in the read-through cache; 0 disables it.
+     */
+    public GameService(DataAccess dataAccess, int cacheCapacity) {
         this.dataAccess = dataAccess;
+        this.cache = new GameCache(cacheCapacity);
     }
 
     /**
@@ -25,14 +44,43 @@ public class GameService {
      * @throws DataAccessException If an error occurs during game creation.
      */
     public Game createGame(String gameName) throws DataAccessException {
+        return createGame(gameName, null);
+    }
+
+    /**
+     * Creates a new game, optionally with one seat taken by the computer.
+     *
+     * @param gameName The name of the game.
+     * @param botColor The color the computer plays ("white" or "black"), or null for none.
+     * @return The created Game object.
+     * @throws DataAccessException If the name or color is invalid or an error occurs during game creation.
+     */
+    public Game createGame(String gameName, String botColor) throws DataAccessException {
         if (gameName == null || gameName.isEmpty()) {
             throw new DataAccessException("Game name is required.");
         }
-        Game game = new Game(-1, gameName, null, null);
+        ChessGame.TeamColor color = null;
+        if (botColor != null && !botColor.isEmpty()) {
+            color = parseColor(botColor);
+            if (color == null) {
+                throw new DataAccessException("Invalid bot color.");
+            }
+        }
+        Game game = new Game(-1, gameName,
+                color == ChessGame.TeamColor.WHITE ? BOT_USERNAME : null,
+                color == ChessGame.TeamColor.BLACK ? BOT_USERNAME : null);
         dataAccess.createGame(game);
         return game;
     }
 
+    private static ChessGame.TeamColor parseColor(String color) {
+        return switch (color.toLowerCase()) {
+            case "white" -> ChessGame.TeamColor.WHITE;
+            case "black" -> ChessGame.TeamColor.BLACK;
+            default -> null;
+        };
+    }
+
     /**
      * Allows a user to join a game with a specified team color.
      *
@@ -42,35 +90,29 @@ public class GameService {
      * @throws DataAccessException If the game is not found, the color is invalid, or the color is already taken.
      */
     public void joinGame(int gameId, String username, String playerColor) throws DataAccessException {
-        Game game = dataAccess.getGame(gameId);
-        if (game == null) {
-            throw new DataAccessException("Game not found.");
-        }
+        ChessGame.TeamColor color = playerColor == null ? null : parseColor(playerColor);
 
-        if (playerColor == null || playerColor.isEmpty()) {
-            throw new DataAccessException("playerColor is required.");
+        if (color == null) {
+            // Preserve the original error precedence: an unknown game is reported before a
+            // missing or bad color.
+            getGame(gameId);
+            if (playerColor == null || playerColor.isEmpty()) {
+                throw new DataAccessException("playerColor is required.");
+            }
+            throw new DataAccessException("Invalid player color.");
         }
 
-        playerColor = playerColor.toLowerCase();
-
-        switch (playerColor) {
-            case "white":
-                if (game.getWhiteUsername() != null && !game.getWhiteUsername().equals(username)) {
-                    throw new TeamColorAlreadyTakenException("White player is already taken.");
-                }
-                game.setWhiteUsername(username);
-                break;
-            case "black":
-                if (game.getBlackUsername() != null && !game.getBlackUsername().equals(username)) {
-                    throw new TeamColorAlreadyTakenException("Black player is already taken.");
-                }
-                game.setBlackUsername(username);
-                break;
-            default:
-                throw new DataAccessException("Invalid player color.");
+        if (dataAccess.claimSeat(gameId, color, username)) {
+            cache.invalidate(gameId);
+            return;
         }
 
-        dataAccess.updateGame(game);
+        // The claim only fails when the game is missing or the seat belongs to someone else.
+        getGame(gameId);
+        if (color == ChessGame.TeamColor.WHITE) {
+            throw new TeamColorAlreadyTakenException("White player is already taken.");
+        }
+        throw new TeamColorAlreadyTakenException("Black player is already taken.");
     }
 
     /**
@@ -83,6 +125,17 @@ public class GameService {
         return dataAccess.getAllGames();
     }
 
+    /**
+     * Lists the games in which a user holds a seat, using the backend's username index.
+     *
+     * @param username The player.
+     * @return The player's games, in no particular order.
+     * @throws DataAccessException If an error occurs while fetching games.
+     */
+    public List<Game> listGamesForPlayer(String username) throws DataAccessException {
+        return dataAccess.getGamesForUser(username);
+    }
+
     /**
      * Retrieves a game by its ID.
      *
@@ -91,28 +144,116 @@ public class GameService {
      * @throws DataAccessException If the game is not found.
      */
     public Game getGame(int gameId) throws DataAccessException {
+        Game cached = cache.get(gameId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
         Game game = dataAccess.getGame(gameId);
         if (game == null) {
             throw new DataAccessException("Game not found.");
         }
+        cache.put(game, generation);
         return game;
     }
 
-    public void removePlayerFromGame(int gameId, String username) throws DataAccessException {
-        Game game = getGame(gameId);
-        boolean changed = false;
+    /**
+     * Drops every cached game. Call after games are changed or deleted outside this service.
+     */
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
 
-        if (game.getWhiteUsername() != null && game.getWhiteUsername().equals(username)) {
-            game.setWhiteUsername(null);
-            changed = true;
+    public long getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Records a move that has been applied to a game.
+     *
+     * @param gameId The ID of the game.
+     * @param move   The move that was played.
+     * @throws DataAccessException If the move cannot be stored.
+     */
+    public void recordMove(int gameId, ChessMove move) throws DataAccessException {
+        dataAccess.appendMove(gameId, move);
+    }
+
+    /**
+     * Records that a game was ended by something other than a move, such as a resignation.
+     *
+     * @param gameId The ID of the game.
+     * @throws DataAccessException If the game is not found or the change cannot be stored.
+     */
+    public void endGame(int gameId) throws DataAccessException {
+        dataAccess.markGameOver(gameId);
+    }
+
+    /**
+     * Ends a game in play on a verdict its moves do not show, such as a resignation or a draw
+     * read from the endgame tables. The verdict is stored before the game in memory is marked
+     * over, so a reload does not bring the game back.
+     *
+     * @param gameId    The ID of the game.
+     * @param chessGame The game in play.
+     * @throws DataAccessException If the game is not found or the change cannot be stored.
+     */
+    public void endGame(int gameId, ChessGame chessGame) throws DataAccessException {
+        endGame(gameId);
+        chessGame.setGameOver(true);
+    }
+
+    /**
+     * Rebuilds a game's board by replaying its recorded moves from the starting position.
+     *
+     * @param gameId The ID of the game.
+     * @return The game in its current state.
+     * @throws DataAccessException If the recorded moves cannot be replayed.
+     */
+    public ChessGame loadChessGame(int gameId) throws DataAccessException {
+        ChessGame chessGame = new ChessGame();
+        for (ChessMove move : dataAccess.getMoves(gameId)) {
+            try {
+                chessGame.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Stored moves for game " + gameId + " are invalid: " + e.getMessage());
+            }
+        }
+        ChessGame.TeamColor toMove = chessGame.getTeamTurn();
+        if (dataAccess.isGameOver(gameId) || chessGame.isInCheckmate(toMove) || chessGame.isInStalemate(toMove)
+                || chessGame.isThreefoldRepetition() || chessGame.isFiftyMoveRule()
+                || chessGame.isInsufficientMaterial()) {
+            chessGame.setGameOver(true);
         }
-        if (game.getBlackUsername() != null && game.getBlackUsername().equals(username)) {
-            game.setBlackUsername(null);
-            changed = true;
+        return chessGame;
+    }
+
+    /**
+     * @return The color the computer plays in this game, or null if both seats are for people.
+     */
+    public ChessGame.TeamColor getBotColor(Game game) {
+        if (BOT_USERNAME.equals(game.getWhiteUsername())) {
+            return ChessGame.TeamColor.WHITE;
         }
+        return BOT_USERNAME.equals(game.getBlackUsername()) ? ChessGame.TeamColor.BLACK : null;
+    }
 
-        if (changed) {
-            dataAccess.updateGame(game);
+    public void removePlayerFromGame(int gameId, String username) throws DataAccessException {
+        getGame(gameId);
+        // Each seat is freed only if this user still holds it, so a player who takes the
+        // other seat at the same moment keeps it.
+        boolean released = dataAccess.releaseSeat(gameId, ChessGame.TeamColor.WHITE, username);
+        released |= dataAccess.releaseSeat(gameId, ChessGame.TeamColor.BLACK, username);
+        if (released) {
+            cache.invalidate(gameId);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package services;
+
+import dataaccess.DataAccessException;
+import dataaccess.ServiceUnavailableException;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt hashing on a dedicated, bounded pool so that password work cannot
+ * starve the request threads that serve every other route.
+ */
+public class PasswordHasher implements AutoCloseable {
+    public static final int DEFAULT_WORK_FACTOR = 10;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final int workFactor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public PasswordHasher() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY, DEFAULT_WORK_FACTOR);
+    }
+
+    /**
+     * @param threads       the number of threads dedicated to hashing.
+     * @param queueCapacity how many requests may wait for a thread before callers are turned away.
+     * @param workFactor    the BCrypt log2 cost used for new hashes.
+     */
+    public PasswordHasher(int threads, int queueCapacity, int workFactor) {
+        this.workFactor = workFactor;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Hashes a password with a fresh salt.
+     *
+     * @throws ServiceUnavailableException If the hashing pool is saturated.
+     */
+    public String hash(String password) throws DataAccessException {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(workFactor)));
+    }
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @throws ServiceUnavailableException If the hashing pool is saturated.
+     */
+    public boolean check(String password, String hashed) throws DataAccessException {
+        return submit(() -> BCrypt.checkpw(password, hashed));
+    }
+
+    private <T> T submit(Callable<T> work) throws DataAccessException {
+        try {
+            return executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    record(System.nanoTime() - start);
+                }
+            }).get();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Server is busy, try again later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while hashing password.");
+        } catch (ExecutionException e) {
+            throw new DataAccessException("Error hashing password: " + e.getCause().getMessage());
+        }
+    }
+
+    private void record(long nanos) {
+        completed.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getWorkFactor() {
+        return workFactor;
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public double getAverageMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,127 @@
+package services;
+
+import models.AuthToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Issues and verifies self-contained auth tokens. The username and expiry are embedded in the
+ * token and protected by an HMAC-SHA256 signature, so validating a token needs no storage lookup.
+ * Every server that shares the secret accepts the same tokens.
+ */
+public class TokenSigner {
+    private static final String PREFIX = "s1.";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Creates a signer with a random key. Tokens stop validating when the process restarts.
+     */
+    public TokenSigner() {
+        this(randomKey());
+    }
+
+    /**
+     * @param secret the shared HMAC key; at least 32 bytes is recommended.
+     */
+    public TokenSigner(byte[] secret) {
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is unavailable", e);
+            }
+        });
+    }
+
+    private static byte[] randomKey() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    /**
+     * @return True if the token has the signed-token shape, whether or not its signature is valid.
+     */
+    public boolean isSigned(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    /**
+     * Creates a signed token for a user.
+     */
+    public AuthToken sign(String username, long issuedAt, long expiresAt) {
+        byte[] nonce = new byte[12];
+        random.nextBytes(nonce);
+        // The username goes last so that it may contain any character.
+        String payload = issuedAt + "\n" + expiresAt + "\n" + encode(nonce) + "\n" + username;
+        String body = encode(payload.getBytes(StandardCharsets.UTF_8));
+        String token = PREFIX + body + "." + encode(mac(body));
+        return new AuthToken(token, username, issuedAt, expiresAt);
+    }
+
+    /**
+     * Verifies a signed token.
+     *
+     * @return The decoded token, or null if it is malformed or its signature does not match.
+     */
+    public AuthToken verify(String token) {
+        if (!isSigned(token)) {
+            return null;
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return null;
+        }
+        String body = token.substring(PREFIX.length(), dot);
+        String encodedSignature = token.substring(dot + 1);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(encodedSignature);
+            // The decoder ignores the unused low bits of the last character, so several strings
+            // decode to the same signature. Only the canonical one is accepted, which keeps a
+            // token's text unique.
+            if (!encode(signature).equals(encodedSignature) || !MessageDigest.isEqual(signature, mac(body))) {
+                return null;
+            }
+            String[] fields = new String(Base64.getUrlDecoder().decode(body), StandardCharsets.UTF_8).split("\n", 4);
+            if (fields.length != 4) {
+                return null;
+            }
+            return new AuthToken(token, fields[3], Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The signed part of a token, which identifies it independently of how the signature
+     * is written; null if the token is not signed.
+     */
+    public String body(String token) {
+        if (!isSigned(token)) {
+            return null;
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        return dot < 0 ? null : token.substring(PREFIX.length(), dot);
+    }
+
+    private byte[] mac(String body) {
+        return macs.get().doFinal(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
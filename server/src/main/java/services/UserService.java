@@ -2,20 +2,25 @@ package services;
 
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.UserAlreadyExistsException;
 import models.User;
 import models.AuthToken;
-import org.mindrot.jbcrypt.BCrypt;
-
-import java.util.UUID;
 
 /**
  * Service for handling user-related operations.
  */
 public class UserService {
     private final DataAccess dataAccess;
+    private final PasswordHasher passwordHasher;
+    private final AuthService authService;
 
-    public UserService(DataAccess dataAccess) {
+    /**
+     * @param passwordHasher the pool passwords are hashed on; the caller owns it and closes it.
+     */
+    public UserService(DataAccess dataAccess, PasswordHasher passwordHasher, AuthService authService) {
         this.dataAccess = dataAccess;
+        this.passwordHasher = passwordHasher;
+        this.authService = authService;
     }
 
     /**
@@ -29,14 +34,14 @@ public class UserService {
         if (user.getUsername() == null || user.getPassword() == null || user.getEmail() == null) {
             throw new DataAccessException("Missing required fields.");
         }
+        if (GameService.BOT_USERNAME.equals(user.getUsername())) {
+            throw new UserAlreadyExistsException("User already exists.");
+        }
         // Hash the password before storing
-        String hashedPassword = BCrypt.hashpw(user.getPassword(), BCrypt.gensalt());
+        String hashedPassword = passwordHasher.hash(user.getPassword());
         user.setPassword(hashedPassword);
         dataAccess.createUser(user);
-        String token = UUID.randomUUID().toString();
-        AuthToken auth = new AuthToken(token, user.getUsername());
-        dataAccess.createAuth(auth);
-        return auth;
+        return authService.createAuth(user.getUsername());
     }
 
     /**
@@ -48,14 +53,12 @@ public class UserService {
      * @throws DataAccessException If the username or password is invalid.
      */
     public AuthToken login(String username, String password) throws DataAccessException {
-        User user = dataAccess.getUser(username);
-        if (user == null || !BCrypt.checkpw(password, user.getPassword())) {
+        // The computer's user row, where there is one, has no usable password.
+        User user = GameService.BOT_USERNAME.equals(username) ? null : dataAccess.getUser(username);
+        if (user == null || !passwordHasher.check(password, user.getPassword())) {
             throw new DataAccessException("Invalid username or password.");
         }
-        String token = UUID.randomUUID().toString();
-        AuthToken auth = new AuthToken(token, username);
-        dataAccess.createAuth(auth);
-        return auth;
+        return authService.createAuth(username);
     }
 
     /**
@@ -65,11 +68,7 @@ public class UserService {
      * @throws DataAccessException If the token is invalid.
      */
     public void logout(String token) throws DataAccessException {
-        AuthToken auth = dataAccess.getAuth(token);
-        if (auth == null) {
-            throw new DataAccessException("Invalid auth token.");
-        }
-        dataAccess.deleteAuth(token);
+        authService.revoke(token);
     }
 
     /**
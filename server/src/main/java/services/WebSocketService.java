@@ -3,6 +3,8 @@ package services;
 import chess.*;
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import dataaccess.ServiceUnavailableException;
+import engine.Position;
 import models.*;
 import org.eclipse.jetty.websocket.api.annotations.*;
 import org.eclipse.jetty.websocket.api.Session;
@@ -18,6 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class WebSocketService {
     private static AuthService authService;
     private static GameService gameService;
+    private static BotService botService;
 
     private static final Map<Integer, ChessGame> CHESS_GAMES = new ConcurrentHashMap<>();
     private static final Map<Integer, Map<Session, String>> GAME_SESSIONS = new ConcurrentHashMap<>();
@@ -26,9 +29,13 @@ public class WebSocketService {
     private enum Role { WHITE, BLACK, OBSERVER }
     private static final Map<Session, Role> SESSION_ROLES = new ConcurrentHashMap<>();
 
-    public static void initialize(AuthService auth, GameService game) {
+    /**
+     * @param bot computes moves for computer seats; null if the computer never plays.
+     */
+    public static void initialize(AuthService auth, GameService game, BotService bot) {
         authService = auth;
         gameService = game;
+        botService = bot;
     }
 
     @OnWebSocketConnect
@@ -90,13 +97,15 @@ public class WebSocketService {
             return;
         }
 
-        if (chessGame.isGameOver()) {
-            sendError(userSession, "Error: The game is already over");
-            return;
-        }
+        // Under the game's lock so that a computer move in flight cannot land after the resignation
+        synchronized (chessGame) {
+            if (chessGame.isGameOver()) {
+                sendError(userSession, "Error: The game is already over");
+                return;
+            }
 
-        // Mark game as over
-        chessGame.setGameOver(true);
+            gameService.endGame(gameID, chessGame);
+        }
         broadcastNotification(gameID, username + " resigned the game", null);
 
         // User stays connected as per the specs (?). Actually, it says "Does not cause the user to leave the game."
@@ -158,56 +167,117 @@ public class WebSocketService {
             return;
         }
 
-        ChessGame.TeamColor turnColor = chessGame.getTeamTurn();
-        boolean userIsWhite = (role == Role.WHITE);
-        boolean userIsBlack = (role == Role.BLACK);
-
-        if (userIsWhite && turnColor != ChessGame.TeamColor.WHITE) {
-            sendError(userSession, "Error: It's not your turn (WHITE)");
-            return;
-        }
-
-        if (userIsBlack && turnColor != ChessGame.TeamColor.BLACK) {
-            sendError(userSession, "Error: It's not your turn (BLACK)");
-            return;
-        }
+        ChessGame.TeamColor color = role == Role.WHITE ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        applyMove(gameID, chessGame, color, username, move, userSession);
+    }
 
-        // Attempt the move
-        try {
-            chessGame.makeMove(move);
-        } catch (InvalidMoveException e) {
-            sendError(userSession, "Error: " + e.getMessage());
-            return;
-        }
+    /**
+     * Applies a move to a game and tells everyone in it. This is the only path by which moves
+     * reach a game, for players and the computer alike, and moves for the same game are applied
+     * one at a time. Errors go to the origin session; the computer has none, so its stale or
+     * rejected moves are dropped.
+     */
+    private static void applyMove(int gameID, ChessGame chessGame, ChessGame.TeamColor color, String username,
+                                  ChessMove move, Session origin) throws DataAccessException {
+        Game game = gameService.getGame(gameID);
+        synchronized (chessGame) {
+            ChessGame.TeamColor turnColor = chessGame.getTeamTurn();
+            if (turnColor != color) {
+                sendError(origin, "Error: It's not your turn (" + color + ")");
+                return;
+            }
 
-        if (chessGame.isGameOver()) {
-            sendError(userSession, "Error: The game is over");
-            return;
-        }
+            // Check the move, then store it before the board changes, so a storage failure
+            // leaves memory and disk in step and the move can simply be sent again.
+            try {
+                chessGame.validateMove(move);
+            } catch (InvalidMoveException e) {
+                sendError(origin, "Error: " + e.getMessage());
+                return;
+            }
+            gameService.recordMove(gameID, move);
+            try {
+                chessGame.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("A validated move was rejected", e);
+            }
 
-        broadcastToAll(gameID, new LoadGameMessage(chessGame));
-        broadcastNotification(gameID, username + " made a move: " + formatMove(move), userSession);
+            if (chessGame.isGameOver()) {
+                sendError(origin, "Error: The game is over");
+                return;
+            }
 
-        // Check for check, checkmate, stalemate
-        ChessGame.TeamColor opponentColor = (turnColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
-        if (chessGame.isInCheck(opponentColor)) {
-            if (chessGame.isInCheckmate(opponentColor)) {
-                // Checkmate
-                broadcastNotification(gameID, "Checkmate! " + username + " has won!", null);
-                chessGame.setGameOver(true);
+            broadcastToAll(gameID, new LoadGameMessage(chessGame));
+            broadcastNotification(gameID, username + " made a move: " + formatMove(move), origin);
+
+            // Check for check, checkmate, stalemate
+            ChessGame.TeamColor opponentColor = (turnColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if (chessGame.isInCheck(opponentColor)) {
+                if (chessGame.isInCheckmate(opponentColor)) {
+                    // Checkmate
+                    broadcastNotification(gameID, "Checkmate! " + username + " has won!", null);
+                    chessGame.setGameOver(true);
+                } else if (chessGame.isInStalemate(opponentColor)) {
+                    // Stalemate
+                    broadcastNotification(gameID, "Stalemate! The game is drawn.", null);
+                    chessGame.setGameOver(true);
+                } else {
+                    // Just check
+                    String checkedPlayer = (opponentColor == ChessGame.TeamColor.WHITE) ? game.getWhiteUsername() : game.getBlackUsername();
+                    broadcastNotification(gameID, checkedPlayer + " is in check", null);
+                }
             } else if (chessGame.isInStalemate(opponentColor)) {
-                // Stalemate
+                // Stalemate with no check
                 broadcastNotification(gameID, "Stalemate! The game is drawn.", null);
                 chessGame.setGameOver(true);
-            } else {
-                // Just check
-                String checkedPlayer = (opponentColor == ChessGame.TeamColor.WHITE) ? game.getWhiteUsername() : game.getBlackUsername();
-                broadcastNotification(gameID, checkedPlayer + " is in check", null);
             }
-        } else if (chessGame.isInStalemate(opponentColor)) {
-            // Stalemate with no check
-            broadcastNotification(gameID, "Stalemate! The game is drawn.", null);
-            chessGame.setGameOver(true);
+
+            // Draws that end the game without a claim, so that games between bots cannot run forever
+            if (!chessGame.isGameOver() && chessGame.isThreefoldRepetition()) {
+                broadcastNotification(gameID, "Threefold repetition! The game is drawn.", null);
+                chessGame.setGameOver(true);
+            } else if (!chessGame.isGameOver() && chessGame.isFiftyMoveRule()) {
+                broadcastNotification(gameID, "Fifty moves without a capture or pawn move! The game is drawn.", null);
+                chessGame.setGameOver(true);
+            } else if (!chessGame.isGameOver() && chessGame.isInsufficientMaterial()) {
+                broadcastNotification(gameID, "Neither side can checkmate! The game is drawn.", null);
+                chessGame.setGameOver(true);
+            } else if (!chessGame.isGameOver() && botService != null && botService.isTablebaseDraw(chessGame)) {
+                // Replaying the moves does not consult the tables, so this draw must be stored
+                gameService.endGame(gameID, chessGame);
+                broadcastNotification(gameID, "The endgame tables show a draw! The game is drawn.", null);
+            }
+        }
+        requestBotMove(gameID, game, chessGame);
+    }
+
+    /**
+     * Starts a search if the computer holds the seat whose turn it is. The search runs on the
+     * bot pool and its move comes back through {@link #applyMove}.
+     */
+    private static void requestBotMove(int gameID, Game game, ChessGame chessGame) {
+        if (botService == null) {
+            return;
+        }
+        ChessGame.TeamColor botColor = gameService.getBotColor(game);
+        Position position;
+        synchronized (chessGame) {
+            if (botColor == null || chessGame.isGameOver() || chessGame.getTeamTurn() != botColor) {
+                return;
+            }
+            position = Position.from(chessGame);
+        }
+        try {
+            botService.requestMove(gameID, position, move -> {
+                try {
+                    applyMove(gameID, chessGame, botColor, GameService.BOT_USERNAME, move, null);
+                } catch (DataAccessException e) {
+                    broadcastNotification(gameID, "The computer could not move: " + e.getMessage(), null);
+                }
+            }, e -> broadcastNotification(gameID,
+                    "The computer could not move. Reconnect to ask for its move again.", null));
+        } catch (ServiceUnavailableException e) {
+            broadcastNotification(gameID, e.getMessage() + " Reconnect to ask for its move again.", null);
         }
     }
 
@@ -236,9 +306,12 @@ public class WebSocketService {
         // Load or create ChessGame in memory
         ChessGame chessGame = CHESS_GAMES.get(gameID);
         if (chessGame == null) {
-            // Create a new chess game if not exists
-            chessGame = new ChessGame();
-            CHESS_GAMES.put(gameID, chessGame);
+            // Rebuild from the stored moves, e.g. after a restart; a new game has none
+            chessGame = gameService.loadChessGame(gameID);
+            ChessGame existing = CHESS_GAMES.putIfAbsent(gameID, chessGame);
+            if (existing != null) {
+                chessGame = existing;
+            }
         }
 
         // Add session to maps
@@ -257,21 +330,32 @@ public class WebSocketService {
         } else {
             broadcastNotification(gameID, username + " connected as an observer", userSession);
         }
+
+        // The computer may be due to move, e.g. when it plays white or the server restarted mid-game
+        requestBotMove(gameID, game, chessGame);
     }
 
-    private void sendMessage(Session session, ServerMessage message) {
+    private static void sendMessage(Session session, ServerMessage message) {
+        String json = new Gson().toJson(message);
         try {
-            session.getRemote().sendString(new Gson().toJson(message));
+            // Jetty rejects a blocking send while another is in progress on the same session,
+            // which happens when commands from two players broadcast to the same observer.
+            synchronized (session) {
+                session.getRemote().sendString(json);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void sendError(Session session, String errorMsg) {
+    private static void sendError(Session session, String errorMsg) {
+        if (session == null) {
+            return;
+        }
         sendMessage(session, new ErrorMessage(errorMsg));
     }
 
-    private void broadcastToAll(int gameID, ServerMessage message) {
+    private static void broadcastToAll(int gameID, ServerMessage message) {
         Map<Session, String> sessions = GAME_SESSIONS.get(gameID);
         if (sessions == null) {
             return;
@@ -281,7 +365,7 @@ public class WebSocketService {
         }
     }
 
-    private void broadcastNotification(int gameID, String notifMessage, Session exclude) {
+    private static void broadcastNotification(int gameID, String notifMessage, Session exclude) {
         Map<Session, String> sessions = GAME_SESSIONS.get(gameID);
         if (sessions == null) {
             return;
@@ -294,11 +378,11 @@ public class WebSocketService {
         }
     }
 
-    private String formatMove(ChessMove move) {
+    private static String formatMove(ChessMove move) {
         return posToStr(move.getStartPosition()) + " -> " + posToStr(move.getEndPosition());
     }
 
-    private String posToStr(ChessPosition pos) {
+    private static String posToStr(ChessPosition pos) {
         char col = (char) ('a' + pos.getColumn() - 1);
         int row = pos.getRow();
         return "" + col + row;
@@ -0,0 +1,51 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    private Connection fakeConnection() {
+        opened.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getAutoCommit", "isValid" -> true;
+                    case "isClosed" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::fakeConnection, 2, 100);
+        for (int i = 0; i < 5; i++) {
+            try (Connection conn = pool.getConnection()) {
+                assertFalse(conn.isClosed());
+            }
+        }
+        assertEquals(1, opened.get(), "Sequential callers should share one physical connection");
+    }
+
+    @Test
+    public void testPoolIsBounded() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::fakeConnection, 1, 50);
+        Connection held = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection, "A full pool should time out");
+
+        held.close();
+        held.close();
+        assertTrue(held.isClosed(), "A returned connection should report closed to its caller");
+        try (Connection conn = pool.getConnection()) {
+            assertNotNull(conn, "Closing twice should only return the connection once");
+        }
+    }
+}
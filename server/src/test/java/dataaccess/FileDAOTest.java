@@ -0,0 +1,177 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journal;
+
+    @BeforeEach
+    public void setUp() {
+        journal = tempDir.resolve("chess.journal");
+    }
+
+    @Test
+    public void testDataSurvivesReopen() throws DataAccessException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, true)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+            dataAccess.createAuth(new AuthToken("token123", "user1"));
+            Game game = new Game(-1, "Test Game", null, null);
+            dataAccess.createGame(game);
+            assertTrue(dataAccess.claimSeat(game.getGameID(), ChessGame.TeamColor.BLACK, "user1"));
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, true)) {
+            assertEquals("user1@example.com", reopened.getUser("user1").getEmail());
+            assertEquals("user1", reopened.getAuth("token123").getUsername());
+            assertEquals("user1", reopened.getAllGames().get(0).getBlackUsername());
+
+            Game next = new Game(-1, "Next Game", null, null);
+            reopened.createGame(next);
+            assertEquals(2, next.getGameID(), "Game IDs should continue after a restart");
+        }
+    }
+
+    @Test
+    public void testDeletesSurviveReopen() throws DataAccessException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+            dataAccess.createAuth(new AuthToken("token123", "user1"));
+            dataAccess.deleteAuth("token123");
+            dataAccess.createGame(new Game(-1, "Test Game", null, null));
+            dataAccess.deleteAllGames();
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, false)) {
+            assertNotNull(reopened.getUser("user1"));
+            assertNull(reopened.getAuth("token123"));
+            assertTrue(reopened.getAllGames().isEmpty());
+        }
+    }
+
+    @Test
+    public void testMovesSurviveReopen() throws DataAccessException {
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false)) {
+            Game game = new Game(-1, "Test Game", null, null);
+            dataAccess.createGame(game);
+            dataAccess.appendMove(game.getGameID(), move);
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, false)) {
+            assertEquals(List.of(move), reopened.getMoves(1));
+        }
+    }
+
+    @Test
+    public void testGameOverSurvivesReopen() throws DataAccessException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false)) {
+            dataAccess.createGame(new Game(-1, "Resigned", null, null));
+            dataAccess.createGame(new Game(-1, "Ongoing", null, null));
+            dataAccess.markGameOver(1);
+            assertThrows(DataAccessException.class, () -> dataAccess.markGameOver(3));
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, false)) {
+            assertTrue(reopened.isGameOver(1));
+            assertFalse(reopened.isGameOver(2));
+        }
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws DataAccessException, IOException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, true)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+        }
+        Files.writeString(journal, "{\"op\":\"user\",\"user\":{\"usern", StandardOpenOption.APPEND);
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, true)) {
+            assertNotNull(reopened.getUser("user1"), "Records before the torn line should load");
+            reopened.createUser(new User("user2", "pass2", "user2@example.com"));
+        }
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, true)) {
+            assertNotNull(reopened.getUser("user1"));
+            assertNotNull(reopened.getUser("user2"), "A record written after the torn line was cut should load");
+        }
+    }
+
+    @Test
+    public void testCorruptLineBeforeTheEndFailsOpen() throws DataAccessException, IOException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, true)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+        }
+        List<String> lines = new ArrayList<>(Files.readAllLines(journal));
+        lines.add(0, "{\"op\":\"user\",\"us");
+        Files.write(journal, lines);
+        byte[] corrupt = Files.readAllBytes(journal);
+
+        assertThrows(DataAccessException.class, () -> new DataAccessFileImpl(journal, true),
+                "Corruption before the last line must not be skipped");
+        assertArrayEquals(corrupt, Files.readAllBytes(journal), "A corrupt file must be left for inspection");
+    }
+
+    @Test
+    public void testFailedWriteLeavesMemoryUnchanged() throws DataAccessException {
+        DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false);
+        dataAccess.createGame(new Game(-1, "Test Game", null, null));
+        dataAccess.close();
+
+        assertThrows(DataAccessException.class, () -> dataAccess.createUser(new User("user1", "pass1", "user1@example.com")));
+        assertNull(dataAccess.getUser("user1"), "A change that was not journaled must not be visible");
+        assertThrows(DataAccessException.class, () -> dataAccess.claimSeat(1, ChessGame.TeamColor.WHITE, "user1"));
+        assertNull(dataAccess.getGame(1).getWhiteUsername());
+    }
+
+    @Test
+    public void testRejectedBatchIsNotJournaled() throws DataAccessException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+            assertThrows(UserAlreadyExistsException.class, () -> dataAccess.createUsers(List.of(
+                    new User("user2", "pass2", "user2@example.com"),
+                    new User("user1", "pass1", "user1@example.com"))));
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, false)) {
+            assertNull(reopened.getUser("user2"));
+        }
+    }
+
+    @Test
+    public void testJournalIsCompactedWhenMostlyDead() throws DataAccessException, IOException {
+        try (DataAccessFileImpl dataAccess = new DataAccessFileImpl(journal, false, 10)) {
+            dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+            for (int i = 0; i < 100; i++) {
+                dataAccess.createAuth(new AuthToken("token" + i, "user1"));
+                dataAccess.deleteAuth("token" + i);
+            }
+            dataAccess.createAuth(new AuthToken("kept", "user1"));
+
+            assertTrue(Files.readAllLines(journal).size() < 20,
+                    "Superseded records should have been compacted away while open");
+        }
+
+        try (DataAccessFileImpl reopened = new DataAccessFileImpl(journal, false)) {
+            assertNotNull(reopened.getUser("user1"));
+            assertNotNull(reopened.getAuth("kept"));
+            assertNull(reopened.getAuth("token99"));
+        }
+    }
+}
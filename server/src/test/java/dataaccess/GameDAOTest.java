@@ -1,5 +1,6 @@
 package dataaccess;
 
+import chess.ChessGame;
 import models.Game;
 import models.User;
 import org.junit.jupiter.api.*;
@@ -97,4 +98,97 @@ public class GameDAOTest {
         List<Game> games = dataAccess.getAllGames();
         assertTrue(games.isEmpty());
     }
+
+    @Test
+    public void testClaimSeatSuccess() throws DataAccessException {
+        Game game = new Game(-1, "Test Game", null, null);
+        dataAccess.createGame(game);
+        assertTrue(dataAccess.claimSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertTrue(dataAccess.claimSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertEquals("user1", dataAccess.getGame(game.getGameID()).getWhiteUsername());
+    }
+
+    @Test
+    public void testClaimSeatTaken() throws DataAccessException {
+        Game game = new Game(-1, "Test Game", "user1", null);
+        dataAccess.createGame(game);
+        assertFalse(dataAccess.claimSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user2"));
+        assertFalse(dataAccess.claimSeat(999, ChessGame.TeamColor.BLACK, "user2"));
+        assertEquals("user1", dataAccess.getGame(game.getGameID()).getWhiteUsername());
+    }
+
+    @Test
+    public void testReleaseSeat() throws DataAccessException {
+        Game game = new Game(-1, "Test Game", "user1", "user2");
+        dataAccess.createGame(game);
+        assertFalse(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user2"));
+        assertTrue(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertFalse(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertNull(dataAccess.getGame(game.getGameID()).getWhiteUsername());
+        assertEquals("user2", dataAccess.getGame(game.getGameID()).getBlackUsername());
+    }
+
+    @Test
+    public void testGetGamesForUser() throws DataAccessException {
+        Game both = new Game(-1, "Both Seats", "user1", "user1");
+        Game black = new Game(-1, "Black Seat", "user2", "user1");
+        Game other = new Game(-1, "Other", "user2", null);
+        dataAccess.createGames(List.of(both, black, other));
+        List<Integer> ids = dataAccess.getGamesForUser("user1").stream().map(Game::getGameID).sorted().toList();
+        assertEquals(List.of(both.getGameID(), black.getGameID()), ids);
+
+        dataAccess.releaseSeat(black.getGameID(), ChessGame.TeamColor.BLACK, "user1");
+        assertEquals(1, dataAccess.getGamesForUser("user1").size());
+        assertTrue(dataAccess.getGamesForUser("nobody").isEmpty());
+    }
+
+    @Test
+    public void testCreateBotGame() throws DataAccessException {
+        Game game = new Game(-1, "Bot Game", "user1", DataAccess.BOT_USERNAME);
+        dataAccess.createGame(game);
+        assertEquals(DataAccess.BOT_USERNAME, dataAccess.getGame(game.getGameID()).getBlackUsername());
+
+        dataAccess.deleteAllUsers();
+        Game cleared = dataAccess.getGame(game.getGameID());
+        assertNull(cleared.getWhiteUsername());
+        assertEquals(DataAccess.BOT_USERNAME, cleared.getBlackUsername(), "The computer's row must survive a clear");
+    }
+
+    @Test
+    public void testMarkGameOver() throws DataAccessException {
+        Game game = new Game(-1, "Test Game", "user1", "user2");
+        dataAccess.createGame(game);
+        assertFalse(dataAccess.isGameOver(game.getGameID()));
+        dataAccess.markGameOver(game.getGameID());
+        dataAccess.markGameOver(game.getGameID());
+        assertTrue(dataAccess.isGameOver(game.getGameID()));
+        assertThrows(DataAccessException.class, () -> dataAccess.markGameOver(game.getGameID() + 1000));
+    }
+
+    @Test
+    public void testMarkGamesOverBatch() throws DataAccessException {
+        Game game1 = new Game(-1, "Game 1", "user1", null);
+        Game game2 = new Game(-1, "Game 2", null, "user2");
+        dataAccess.createGames(List.of(game1, game2));
+        dataAccess.markGameOver(game1.getGameID());
+        dataAccess.markGamesOver(List.of(game1.getGameID(), game2.getGameID()));
+        assertTrue(dataAccess.isGameOver(game1.getGameID()));
+        assertTrue(dataAccess.isGameOver(game2.getGameID()));
+
+        Game game3 = new Game(-1, "Game 3", null, null);
+        dataAccess.createGame(game3);
+        assertThrows(DataAccessException.class,
+                () -> dataAccess.markGamesOver(List.of(game3.getGameID(), game3.getGameID() + 1000)));
+        assertFalse(dataAccess.isGameOver(game3.getGameID()), "A failed batch should mark nothing");
+    }
+
+    @Test
+    public void testCreateGamesBatch() throws DataAccessException {
+        Game game1 = new Game(-1, "Game 1", "user1", null);
+        Game game2 = new Game(-1, "Game 2", null, "user2");
+        dataAccess.createGames(List.of(game1, game2));
+        assertTrue(game1.getGameID() > 0);
+        assertTrue(game2.getGameID() > game1.getGameID());
+        assertEquals("Game 2", dataAccess.getGame(game2.getGameID()).getGameName());
+    }
 }
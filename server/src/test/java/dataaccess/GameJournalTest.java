@@ -0,0 +1,161 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class GameJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    public void testMovesSurviveReopen() throws DataAccessException {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        try (GameJournal journal = new GameJournal(tempDir, 8, false)) {
+            journal.append(1, move(2, 5, 4, 5));
+            journal.append(2, move(2, 4, 4, 4));
+            journal.append(1, move(7, 5, 5, 5));
+            journal.append(1, promotion);
+        }
+
+        try (GameJournal reopened = new GameJournal(tempDir, 8, false)) {
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), promotion), reopened.getMoves(1),
+                    "Moves should come back in play order");
+            assertEquals(List.of(move(2, 4, 4, 4)), reopened.getMoves(2));
+            assertTrue(reopened.getMoves(3).isEmpty(), "Unknown games have no moves");
+
+            reopened.append(2, move(7, 4, 5, 4));
+            assertEquals(2, reopened.getMoves(2).size(), "Appends should continue after a restart");
+        }
+    }
+
+    @Test
+    public void testMovesSpanSegments() throws DataAccessException, IOException {
+        try (GameJournal journal = new GameJournal(tempDir, 4, false)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(1, move(2, 1 + i % 8, 3, 1 + i % 8));
+            }
+            assertEquals(10, journal.getMoves(1).size());
+        }
+        assertEquals(3, countSegments(), "Ten moves at four per segment need three segments");
+
+        try (GameJournal reopened = new GameJournal(tempDir, 4, false)) {
+            List<ChessMove> moves = reopened.getMoves(1);
+            assertEquals(10, moves.size());
+            assertEquals(move(2, 2, 3, 2), moves.get(9));
+        }
+    }
+
+    @Test
+    public void testCompactionDropsDeletedGames() throws DataAccessException, IOException {
+        try (GameJournal journal = new GameJournal(tempDir, 4, false)) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(1, move(2, 1, 3, 1));
+            }
+            journal.append(2, move(2, 2, 3, 2));
+            journal.append(2, move(7, 2, 6, 2));
+            journal.deleteGame(1);
+            // Fill the second segment so the next append seals it and compacts the first.
+            journal.append(2, move(2, 3, 3, 3));
+            journal.append(2, move(7, 3, 6, 3));
+            journal.append(2, move(2, 4, 3, 4));
+
+            assertTrue(journal.getMoves(1).isEmpty());
+            assertEquals(5, journal.getMoves(2).size());
+        }
+        assertEquals(2, countSegments(), "The dead segment should have been deleted");
+
+        try (GameJournal reopened = new GameJournal(tempDir, 4, false)) {
+            assertTrue(reopened.getMoves(1).isEmpty());
+            assertEquals(move(2, 4, 3, 4), reopened.getMoves(2).get(4));
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws DataAccessException, IOException {
+        try (GameJournal journal = new GameJournal(tempDir, 8, false)) {
+            journal.append(1, move(2, 5, 4, 5));
+            journal.append(1, move(7, 5, 5, 5));
+        }
+
+        // Simulate a crash halfway through writing the second record.
+        Path segment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), GameJournal.RECORD_SIZE + 12);
+        }
+
+        try (GameJournal reopened = new GameJournal(tempDir, 8, false)) {
+            assertEquals(List.of(move(2, 5, 4, 5)), reopened.getMoves(1));
+            reopened.append(1, move(7, 4, 5, 4));
+            assertEquals(move(7, 4, 5, 4), reopened.getMoves(1).get(1), "The torn record should be overwritten");
+        }
+    }
+
+    @Test
+    public void testGameIsCutAtFirstMissingPly() throws DataAccessException, IOException {
+        try (GameJournal journal = new GameJournal(tempDir, 4, false)) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(1, move(2, 1 + i, 3, 1 + i));
+            }
+            journal.append(2, move(2, 4, 4, 4));
+        }
+
+        // Lose the third ply while the later segment survives, as a power loss may do.
+        Path first;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            first = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 2 * GameJournal.RECORD_SIZE + 12);
+        }
+
+        try (GameJournal reopened = new GameJournal(tempDir, 4, false)) {
+            assertEquals(List.of(move(2, 1, 3, 1), move(2, 2, 3, 2)), reopened.getMoves(1),
+                    "Moves after the gap should be dropped");
+            assertEquals(List.of(move(2, 4, 4, 4)), reopened.getMoves(2));
+            reopened.append(1, move(7, 1, 6, 1));
+        }
+
+        try (GameJournal reopened = new GameJournal(tempDir, 4, false)) {
+            assertEquals(List.of(move(2, 1, 3, 1), move(2, 2, 3, 2), move(7, 1, 6, 1)), reopened.getMoves(1),
+                    "Dropped moves must not come back once the gap is filled");
+        }
+    }
+
+    @Test
+    public void testClear() throws DataAccessException {
+        try (GameJournal journal = new GameJournal(tempDir, 8, false)) {
+            journal.append(1, move(2, 5, 4, 5));
+            journal.clear();
+            assertTrue(journal.getMoves(1).isEmpty());
+            journal.append(1, move(2, 4, 4, 4));
+            assertEquals(List.of(move(2, 4, 4, 4)), journal.getMoves(1));
+        }
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import models.Game;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class JournalDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    public void testMovesAreKeptForKnownGames() throws Exception {
+        DataAccessImpl memory = new DataAccessImpl();
+        try (DataAccessJournalImpl dataAccess = new DataAccessJournalImpl(memory, new GameJournal(tempDir, 4, false))) {
+            Game game = new Game(-1, "Test Game", null, null);
+            dataAccess.createGame(game);
+            dataAccess.appendMove(game.getGameID(), move(2, 5, 4, 5));
+        }
+
+        try (DataAccessJournalImpl reopened = new DataAccessJournalImpl(memory, new GameJournal(tempDir, 4, false))) {
+            assertEquals(List.of(move(2, 5, 4, 5)), reopened.getMoves(1));
+        }
+    }
+
+    @Test
+    public void testMovesOfVanishedGamesAreReclaimed() throws Exception {
+        try (DataAccessJournalImpl dataAccess = new DataAccessJournalImpl(new DataAccessImpl(),
+                new GameJournal(tempDir, 4, false))) {
+            Game game = new Game(-1, "Test Game", null, null);
+            dataAccess.createGame(game);
+            for (int i = 0; i < 8; i++) {
+                dataAccess.appendMove(game.getGameID(), move(2, 1 + i, 3, 1 + i));
+            }
+        }
+        assertEquals(2, countSegments());
+
+        // The memory backend forgets its games on restart and hands out the same IDs again.
+        try (DataAccessJournalImpl restarted = new DataAccessJournalImpl(new DataAccessImpl(),
+                new GameJournal(tempDir, 4, false))) {
+            assertEquals(1, countSegments(), "The sealed segment of the vanished game should be compacted away");
+
+            Game game = new Game(-1, "New Game", null, null);
+            restarted.createGame(game);
+            assertEquals(1, game.getGameID());
+            assertTrue(restarted.getMoves(1).isEmpty(), "A new game must not inherit an old game's moves");
+
+            restarted.appendMove(1, move(2, 5, 4, 5));
+            assertEquals(List.of(move(2, 5, 4, 5)), restarted.getMoves(1));
+        }
+        assertEquals(1, countSegments(), "Filling the last dead segment should compact it too");
+    }
+
+    @Test
+    public void testMovesRecordedBeforeTheJournalAreAdopted() throws Exception {
+        DataAccessImpl backend = new DataAccessImpl();
+        Game game = new Game(-1, "Test Game", null, null);
+        backend.createGame(game);
+        backend.appendMove(game.getGameID(), move(2, 5, 4, 5));
+
+        try (DataAccessJournalImpl dataAccess = new DataAccessJournalImpl(backend, new GameJournal(tempDir, 4, false))) {
+            dataAccess.appendMove(game.getGameID(), move(7, 5, 5, 5));
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), dataAccess.getMoves(game.getGameID()));
+        }
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
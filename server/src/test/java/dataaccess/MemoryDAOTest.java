@@ -0,0 +1,117 @@
+package dataaccess;
+
+import chess.ChessGame;
+import models.AuthToken;
+import models.Game;
+import models.User;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MemoryDAOTest {
+
+    private DataAccessImpl dataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        dataAccess = new DataAccessImpl();
+    }
+
+    @Test
+    public void testFailedBatchesLeaveNothingBehind() throws DataAccessException {
+        dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+        dataAccess.createAuth(new AuthToken("existing", "user1"));
+
+        assertThrows(UserAlreadyExistsException.class, () -> dataAccess.createUsers(List.of(
+                new User("user2", "pass2", "user2@example.com"),
+                new User("user1", "pass1", "user1@example.com"))));
+        assertNull(dataAccess.getUser("user2"));
+
+        assertThrows(DataAccessException.class, () -> dataAccess.createAuths(List.of(
+                new AuthToken("fresh", "user1"),
+                new AuthToken("existing", "user1"))));
+        assertNull(dataAccess.getAuth("fresh"), "A token before the duplicate should be undone");
+        assertThrows(DataAccessException.class, () -> dataAccess.createAuths(List.of(
+                new AuthToken("fresh", "user1"),
+                new AuthToken(null, "user1"))));
+        assertNull(dataAccess.getAuth("fresh"));
+
+        Game valid = new Game(-1, "Valid", null, null);
+        assertThrows(DataAccessException.class, () -> dataAccess.createGames(List.of(
+                valid,
+                new Game(-1, null, null, null))));
+        assertTrue(dataAccess.getAllGames().isEmpty(), "No game of a failed batch should be stored");
+        assertEquals(-1, valid.getGameID(), "No ID should be handed out for a failed batch");
+    }
+
+    @Test
+    public void testReleaseSeatOnlyFreesOwnSeat() throws DataAccessException {
+        Game game = new Game(-1, "Test Game", "user1", "user2");
+        dataAccess.createGame(game);
+
+        assertFalse(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user2"));
+        assertTrue(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertFalse(dataAccess.releaseSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1"));
+        assertFalse(dataAccess.releaseSeat(999, ChessGame.TeamColor.WHITE, "user1"));
+
+        Game stored = dataAccess.getGame(game.getGameID());
+        assertNull(stored.getWhiteUsername());
+        assertEquals("user2", stored.getBlackUsername());
+    }
+
+    @Test
+    public void testLeavingDoesNotUndoConcurrentJoin() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Game game = new Game(-1, "Game " + i, "leaver", null);
+                dataAccess.createGame(game);
+                int gameId = game.getGameID();
+                Future<Boolean> leave = executor.submit(
+                        () -> dataAccess.releaseSeat(gameId, ChessGame.TeamColor.WHITE, "leaver"));
+                Future<Boolean> join = executor.submit(
+                        () -> dataAccess.claimSeat(gameId, ChessGame.TeamColor.BLACK, "joiner"));
+                assertTrue(leave.get());
+                assertTrue(join.get());
+
+                Game stored = dataAccess.getGame(gameId);
+                assertNull(stored.getWhiteUsername());
+                assertEquals("joiner", stored.getBlackUsername(), "The join must survive the leave");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndexKeepsSeatRetakenDuringLeave() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Game game = new Game(-1, "Game " + i, "player", null);
+                dataAccess.createGame(game);
+                int gameId = game.getGameID();
+                Future<Boolean> leave = executor.submit(
+                        () -> dataAccess.releaseSeat(gameId, ChessGame.TeamColor.WHITE, "player"));
+                Future<Boolean> switchSides = executor.submit(
+                        () -> dataAccess.claimSeat(gameId, ChessGame.TeamColor.BLACK, "player"));
+                assertTrue(leave.get());
+                assertTrue(switchSides.get());
+                assertTrue(dataAccess.getGamesForUser("player").stream().anyMatch(g -> g.getGameID() == gameId),
+                        "A player still seated must stay indexed");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUpdateMissingGameFails() throws DataAccessException {
+        assertThrows(DataAccessException.class, () -> dataAccess.updateGame(new Game(42, "Missing", "user1", null)));
+        assertNull(dataAccess.getGame(42));
+    }
+}
@@ -0,0 +1,23 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigratorTest {
+
+    @Test
+    public void testMigrationVersionsAreSequential() {
+        int expected = 1;
+        for (SchemaMigrator.Migration migration : SchemaMigrator.MIGRATIONS) {
+            assertEquals(expected++, migration.version(), "Migrations must be numbered 1, 2, 3, ... in order");
+            assertNotNull(migration.description());
+        }
+    }
+
+    @Test
+    public void testMigrateIsIdempotent() throws DataAccessException {
+        DataAccessMySQLImpl dataAccess = new DataAccessMySQLImpl();
+        new SchemaMigrator().migrate();
+        assertNotNull(dataAccess.getAllGames());
+    }
+}
@@ -4,6 +4,8 @@ import models.User;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 public class UserDAOTest {
 
     private DataAccessMySQLImpl dataAccess;
@@ -67,4 +69,22 @@ public class UserDAOTest {
         assertNull(dataAccess.getUser("user1"));
         assertNull(dataAccess.getUser("user2"));
     }
+
+    @Test
+    public void testCreateUsersBatch() throws DataAccessException {
+        dataAccess.createUsers(List.of(
+                new User("user1", "pass1", "user1@example.com"),
+                new User("user2", "pass2", "user2@example.com")));
+        assertNotNull(dataAccess.getUser("user1"));
+        assertNotNull(dataAccess.getUser("user2"));
+    }
+
+    @Test
+    public void testCreateUsersBatchDuplicate() throws DataAccessException {
+        dataAccess.createUser(new User("user1", "pass1", "user1@example.com"));
+        assertThrows(UserAlreadyExistsException.class, () -> dataAccess.createUsers(List.of(
+                new User("user2", "pass2", "user2@example.com"),
+                new User("user1", "pass1", "user1@example.com"))));
+        assertNull(dataAccess.getUser("user2"), "A failed batch should not leave partial rows");
+    }
 }
@@ -0,0 +1,214 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import models.Game;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+public class WriteBehindDAOTest {
+
+    private DataAccessImpl backend;
+    private Game game;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        backend = new DataAccessImpl();
+        game = new Game(-1, "Test Game", null, null);
+        backend.createGame(game);
+    }
+
+    @Test
+    public void testUpdatesAreCoalesced() throws Exception {
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100)) {
+            for (String name : new String[]{"a", "b", "c", "d", "e"}) {
+                game.setWhiteUsername(name);
+                writeBehind.updateGame(game);
+            }
+            assertNull(backend.getGame(game.getGameID()).getWhiteUsername(), "Updates should wait for a flush");
+            assertEquals("e", writeBehind.getGame(game.getGameID()).getWhiteUsername(),
+                    "Reads should see pending updates");
+
+            writeBehind.flush();
+            assertEquals("e", backend.getGame(game.getGameID()).getWhiteUsername());
+            assertEquals(5, writeBehind.getUpdateCount());
+            assertEquals(1, writeBehind.getRowsWritten(), "Five updates to one game should write one row");
+            assertEquals(0, writeBehind.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testClaimSeatSeesPendingUpdate() throws Exception {
+        backend.claimSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user1");
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100)) {
+            Game left = writeBehind.getGame(game.getGameID());
+            left.setWhiteUsername(null);
+            writeBehind.updateGame(left);
+
+            assertTrue(writeBehind.claimSeat(game.getGameID(), ChessGame.TeamColor.WHITE, "user2"),
+                    "The seat freed by the pending update should be claimable");
+            writeBehind.flush();
+            assertEquals("user2", backend.getGame(game.getGameID()).getWhiteUsername(),
+                    "A later flush must not undo the claim");
+        }
+    }
+
+    @Test
+    public void testCloseFlushesPendingUpdates() throws Exception {
+        DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100);
+        game.setBlackUsername("user1");
+        writeBehind.updateGame(game);
+        writeBehind.close();
+        assertEquals("user1", backend.getGame(game.getGameID()).getBlackUsername());
+    }
+
+    @Test
+    public void testBackgroundFlushBoundsLag() throws Exception {
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 10, 100)) {
+            game.setBlackUsername("user1");
+            writeBehind.updateGame(game);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (backend.getGame(game.getGameID()).getBlackUsername() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals("user1", backend.getGame(game.getGameID()).getBlackUsername(),
+                    "The background flusher should write the update");
+        }
+    }
+
+    @Test
+    public void testStrictModeWritesThrough() throws Exception {
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 0, 100)) {
+            game.setWhiteUsername("user1");
+            writeBehind.updateGame(game);
+            assertEquals("user1", backend.getGame(game.getGameID()).getWhiteUsername());
+            assertEquals(0, writeBehind.getPendingCount());
+        }
+    }
+
+    /**
+     * A backend whose game writes fail while {@code failing} is set.
+     */
+    private static class FlakyBackend extends DataAccessImpl {
+        boolean failing;
+
+        @Override
+        public void updateGame(Game game) throws DataAccessException {
+            check();
+            super.updateGame(game);
+        }
+
+        @Override
+        public void updateGames(List<Game> games) throws DataAccessException {
+            check();
+            super.updateGames(games);
+        }
+
+        @Override
+        public void appendMoves(Map<Integer, List<ChessMove>> moves) throws DataAccessException {
+            check();
+            super.appendMoves(moves);
+        }
+
+        @Override
+        public void markGameOver(int gameId) throws DataAccessException {
+            check();
+            super.markGameOver(gameId);
+        }
+
+        @Override
+        public void markGamesOver(List<Integer> gameIds) throws DataAccessException {
+            check();
+            super.markGamesOver(gameIds);
+        }
+
+        private void check() throws DataAccessException {
+            if (failing) {
+                throw new DataAccessException("Backend unavailable.");
+            }
+        }
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    public void testMovesAreBatched() throws Exception {
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100)) {
+            writeBehind.appendMove(game.getGameID(), move(2, 5, 4, 5));
+            writeBehind.appendMove(game.getGameID(), move(7, 5, 5, 5));
+            assertTrue(backend.getMoves(game.getGameID()).isEmpty(), "Moves should wait for a flush");
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), writeBehind.getMoves(game.getGameID()),
+                    "Reads should see pending moves");
+
+            writeBehind.flush();
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), backend.getMoves(game.getGameID()));
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), writeBehind.getMoves(game.getGameID()),
+                    "Flushed moves should be seen once");
+            assertEquals(0, writeBehind.getPendingMoveCount());
+        }
+    }
+
+    @Test
+    public void testFailedFlushKeepsWritesPending() throws Exception {
+        FlakyBackend flaky = new FlakyBackend();
+        flaky.createGame(new Game(-1, "Test Game", null, null));
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(flaky, 60_000, 100)) {
+            Game update = flaky.getGame(1);
+            update.setWhiteUsername("user1");
+            writeBehind.updateGame(update);
+            writeBehind.appendMove(1, move(2, 5, 4, 5));
+            writeBehind.markGameOver(1);
+
+            flaky.failing = true;
+            assertThrows(DataAccessException.class, writeBehind::flush, "A failed flush should be reported");
+            assertEquals(1, writeBehind.getFailedFlushCount());
+            assertEquals(1, writeBehind.getPendingCount(), "The failed update should stay pending");
+            writeBehind.appendMove(1, move(7, 5, 5, 5));
+            assertEquals(2, writeBehind.getPendingMoveCount());
+            assertEquals(1, writeBehind.getPendingGameOverCount());
+            assertTrue(writeBehind.isGameOver(1), "A mark that failed to write should still be seen");
+
+            flaky.failing = false;
+            writeBehind.flush();
+            assertEquals("user1", flaky.getGame(1).getWhiteUsername(), "The retry should write the update");
+            assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), flaky.getMoves(1),
+                    "Retried moves should keep their order");
+            assertTrue(flaky.isGameOver(1), "The retry should write the game-over mark");
+        }
+    }
+
+    @Test
+    public void testGameOverMarksAreBatched() throws Exception {
+        Game other = new Game(-1, "Other Game", null, null);
+        backend.createGame(other);
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100)) {
+            writeBehind.markGameOver(game.getGameID());
+            writeBehind.markGameOver(other.getGameID());
+            assertFalse(backend.isGameOver(game.getGameID()), "Marks should wait for a flush");
+            assertTrue(writeBehind.isGameOver(game.getGameID()), "Reads should see pending marks");
+            assertEquals(2, writeBehind.getPendingGameOverCount());
+
+            writeBehind.flush();
+            assertTrue(backend.isGameOver(game.getGameID()));
+            assertTrue(backend.isGameOver(other.getGameID()));
+            assertEquals(1, writeBehind.getFlushCount(), "Both marks should go out in one batch");
+            assertEquals(0, writeBehind.getPendingGameOverCount());
+        }
+    }
+
+    @Test
+    public void testWritesForDeletedGamesAreDropped() throws Exception {
+        try (DataAccessWriteBehindImpl writeBehind = new DataAccessWriteBehindImpl(backend, 60_000, 100)) {
+            Game stale = new Game(42, "Gone", "user1", null);
+            writeBehind.updateGame(stale);
+            assertThrows(DataAccessException.class, writeBehind::flush);
+            assertEquals(0, writeBehind.getPendingCount(), "An update for a missing game cannot succeed later");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package server;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.DataAccessImpl;
+import dataaccess.DataAccessJournalImpl;
+import dataaccess.DataAccessWriteBehindImpl;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import services.GameService;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs the storage layers the way the server stacks them over a backend.
+ */
+public class StorageLayersTest {
+
+    private static final List<String> PROPERTIES = List.of(
+            "storage.writebehind.window.millis", "storage.writebehind.max.pending", "storage.journal.dir");
+
+    @TempDir
+    Path tempDir;
+
+    private DataAccessImpl backend;
+
+    @BeforeEach
+    public void setUp() {
+        backend = new DataAccessImpl();
+        System.setProperty("storage.writebehind.window.millis", "60000");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        PROPERTIES.forEach(System::clearProperty);
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    public void testWriteBehindBatchesMovesAndGameOvers() throws Exception {
+        DataAccess dataAccess = Server.layerStorage(backend, new ServerConfig());
+        DataAccessWriteBehindImpl writeBehind = assertInstanceOf(DataAccessWriteBehindImpl.class, dataAccess);
+        GameService gameService = new GameService(dataAccess, 0);
+        int gameId = gameService.createGame("Layered").getGameID();
+
+        gameService.recordMove(gameId, move(2, 5, 4, 5));
+        gameService.recordMove(gameId, move(7, 5, 5, 5));
+        gameService.endGame(gameId);
+        assertTrue(backend.getMoves(gameId).isEmpty(), "Moves should wait for a flush");
+        assertFalse(backend.isGameOver(gameId), "The game-over mark should wait for a flush");
+        assertTrue(gameService.loadChessGame(gameId).isGameOver(), "Reads should see the pending mark");
+
+        writeBehind.close();
+        assertEquals(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)), backend.getMoves(gameId));
+        assertTrue(backend.isGameOver(gameId));
+        assertEquals(2, writeBehind.getFlushCount(), "Moves and marks should each go out in one batch");
+    }
+
+    @Test
+    public void testJournalTakesMovesAndWriteBehindTakesGameOvers() throws Exception {
+        System.setProperty("storage.journal.dir", tempDir.resolve("moves").toString());
+        DataAccess dataAccess = Server.layerStorage(backend, new ServerConfig());
+        assertInstanceOf(DataAccessJournalImpl.class, dataAccess);
+        GameService gameService = new GameService(dataAccess, 0);
+        int gameId = gameService.createGame("Layered").getGameID();
+
+        gameService.recordMove(gameId, move(2, 5, 4, 5));
+        gameService.endGame(gameId);
+        assertFalse(backend.isGameOver(gameId), "The game-over mark should wait for a flush");
+        assertEquals(List.of(move(2, 5, 4, 5)), dataAccess.getMoves(gameId));
+
+        ((AutoCloseable) dataAccess).close();
+        assertTrue(backend.isGameOver(gameId), "Closing should flush the mark through the journal");
+        assertTrue(backend.getMoves(gameId).isEmpty(), "Journaled moves stay out of the backend");
+    }
+
+    @Test
+    public void testNoWindowWritesThrough() throws DataAccessException {
+        System.clearProperty("storage.writebehind.window.millis");
+        DataAccess dataAccess = Server.layerStorage(backend, new ServerConfig());
+        assertSame(backend, dataAccess, "Without a window or journal the backend is used as is");
+    }
+}
@@ -0,0 +1,77 @@
+package service;
+
+import engine.Position;
+import engine.SearchResult;
+import org.junit.jupiter.api.*;
+import services.AnalysisService;
+import services.BotService;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AnalysisServiceTest {
+
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/8/4R1K1 w - - 0 1";
+
+    private BotService botService;
+    private AnalysisService analysisService;
+
+    @BeforeEach
+    public void setUp() {
+        botService = new BotService(2, 16, 1, 1, 100);
+        analysisService = new AnalysisService(botService, 16, 100, 10, 2000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        botService.close();
+    }
+
+    @Test
+    public void analyzeFindsMate() throws DataAccessException {
+        SearchResult result = analysisService.analyze(Position.fromFen(MATE_IN_ONE), 3, 0);
+        assertTrue(result.isMate());
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    public void repeatedRequestIsCached() throws DataAccessException {
+        SearchResult first = analysisService.analyze(Position.fromFen(Position.START_FEN), 3, 0);
+        SearchResult second = analysisService.analyze(Position.fromFen(Position.START_FEN), 3, 0);
+        assertSame(first, second);
+        assertEquals(1, analysisService.getHitCount());
+        assertEquals(1, botService.getCompletedCount());
+
+        analysisService.analyze(Position.fromFen(Position.START_FEN), 4, 0);
+        assertEquals(2, botService.getCompletedCount(), "A different depth is a different entry");
+    }
+
+    @Test
+    public void concurrentRequestsCoalesce() throws Exception {
+        int requests = 8;
+        List<Future<SearchResult>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(requests)) {
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> analysisService.analyze(Position.fromFen(Position.START_FEN), 0, 500)));
+            }
+            SearchResult first = results.getFirst().get();
+            for (Future<SearchResult> result : results) {
+                assertSame(first, result.get());
+            }
+        }
+        assertEquals(1, botService.getCompletedCount(), "Only one search should run");
+        assertEquals(requests - 1, analysisService.getCoalescedCount() + analysisService.getHitCount());
+    }
+
+    @Test
+    public void negativeLimitsRejected() {
+        assertThrows(DataAccessException.class,
+                () -> analysisService.analyze(Position.fromFen(Position.START_FEN), -1, 0));
+    }
+}
@@ -6,6 +6,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import dataaccess.*;
 import models.*;
 import services.AuthService;
+import services.AuthTokenSweeper;
+import services.PasswordHasher;
+import services.TokenSigner;
 import services.UserService;
 
 public class AuthServiceTest {
@@ -13,15 +16,22 @@ public class AuthServiceTest {
     private DataAccess dataAccess;
     private AuthService authService;
     private UserService userService;
+    private PasswordHasher passwordHasher;
 
     @BeforeEach
     public void setUp() throws DataAccessException {
         dataAccess = new DataAccessImpl();
-        userService = new UserService(dataAccess);
         authService = new AuthService(dataAccess);
+        passwordHasher = new PasswordHasher(1, 4, 4);
+        userService = new UserService(dataAccess, passwordHasher, authService);
         userService.clearData();
     }
 
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.close();
+    }
+
     @Test
     public void authenticateSuccess() throws DataAccessException {
         User user = new User("testuser", "password123", "test@example.com");
@@ -41,4 +51,113 @@ public class AuthServiceTest {
         }, "Authenticating with an invalid token should throw InvalidAuthTokenException");
         assertEquals("Invalid auth token.", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void authenticateExpiredToken() throws DataAccessException {
+        AuthToken expired = new AuthToken("expiredtoken", "testuser", 0, 1);
+        dataAccess.createAuth(expired);
+
+        Exception exception = assertThrows(InvalidAuthTokenException.class, () -> {
+            authService.authenticate(expired.getToken());
+        }, "Authenticating with an expired token should throw InvalidAuthTokenException");
+        assertEquals("Auth token has expired.", exception.getMessage());
+        assertNull(dataAccess.getAuth(expired.getToken()), "Expired token should be removed on use");
+    }
+
+    @Test
+    public void sweepExpiredTokens() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            dataAccess.createAuth(new AuthToken("expired" + i, "testuser", 0, 1));
+        }
+        AuthToken live = new AuthToken("live", "testuser", 0, Long.MAX_VALUE);
+        dataAccess.createAuth(live);
+
+        try (AuthTokenSweeper sweeper = new AuthTokenSweeper(dataAccess, 2)) {
+            assertEquals(5, sweeper.sweep(), "Every expired token should be swept across batches");
+        }
+        assertNull(dataAccess.getAuth("expired0"), "Expired token should be gone");
+        assertEquals(live, dataAccess.getAuth(live.getToken()), "Unexpired token should remain");
+    }
+
+    @Test
+    public void signedTokenSkipsStorage() throws DataAccessException {
+        AuthService signedAuthService = new AuthService(dataAccess, 60_000, new TokenSigner());
+        AuthToken auth = signedAuthService.createAuth("testuser");
+
+        assertNull(dataAccess.getAuth(auth.getToken()), "Signed tokens should not be stored");
+        AuthToken authenticated = signedAuthService.authenticate(auth.getToken());
+        assertEquals("testuser", authenticated.getUsername(), "Username should be read from the token");
+    }
+
+    @Test
+    public void signedTokenRejectedWhenTamperedOrRevoked() throws DataAccessException {
+        AuthService signedAuthService = new AuthService(dataAccess, 60_000, new TokenSigner());
+        AuthToken auth = signedAuthService.createAuth("testuser");
+        String token = auth.getToken();
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThrows(InvalidAuthTokenException.class, () -> signedAuthService.authenticate(tampered),
+                "A token with a bad signature should be rejected");
+        assertThrows(InvalidAuthTokenException.class,
+                () -> new AuthService(dataAccess, 60_000, new TokenSigner()).authenticate(auth.getToken()),
+                "A token signed with another key should be rejected");
+
+        signedAuthService.revoke(auth.getToken());
+        assertThrows(InvalidAuthTokenException.class, () -> signedAuthService.authenticate(auth.getToken()),
+                "A revoked token should be rejected");
+    }
+
+    @Test
+    public void revokedSignedTokenCannotBeReusedWithAnotherEncoding() throws DataAccessException {
+        AuthService signedAuthService = new AuthService(dataAccess, 60_000, new TokenSigner());
+        String token = signedAuthService.createAuth("testuser").getToken();
+        signedAuthService.revoke(token);
+
+        // The last signature character carries unused bits; no other spelling of it may pass.
+        String prefix = token.substring(0, token.length() - 1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (char last : alphabet.toCharArray()) {
+            String variant = prefix + last;
+            assertThrows(InvalidAuthTokenException.class, () -> signedAuthService.authenticate(variant),
+                    "A logged-out token should stay rejected when its last character is changed to " + last);
+        }
+    }
+
+    @Test
+    public void revokedSignedTokensStayBoundedWithoutExpiry() throws Exception {
+        AuthService signedAuthService = new AuthService(dataAccess, 0, new TokenSigner(), 8);
+        String first = signedAuthService.createAuth("testuser").getToken();
+        signedAuthService.revoke(first);
+        for (int i = 0; i < 40; i++) {
+            // Tokens issued in the same millisecond as a forgotten one are refused along with it.
+            Thread.sleep(1);
+            signedAuthService.revoke(signedAuthService.createAuth("testuser").getToken());
+            assertTrue(signedAuthService.getRevokedTokenCount() <= 8,
+                    "The revoked set should never grow past its cap");
+        }
+
+        assertThrows(InvalidAuthTokenException.class, () -> signedAuthService.authenticate(first),
+                "A token forgotten by the revoked set should still be rejected");
+        Thread.sleep(1);
+        String fresh = signedAuthService.createAuth("testuser").getToken();
+        assertEquals("testuser", signedAuthService.authenticate(fresh).getUsername(),
+                "Tokens issued after the forgotten ones should still work");
+    }
+
+    @Test
+    public void expiredRevokedSignedTokensAreForgotten() throws Exception {
+        AuthService signedAuthService = new AuthService(dataAccess, 50, new TokenSigner(), 4);
+        for (int i = 0; i < 4; i++) {
+            signedAuthService.revoke(signedAuthService.createAuth("testuser").getToken());
+        }
+        Thread.sleep(60);
+        String live = signedAuthService.createAuth("testuser").getToken();
+        signedAuthService.revoke(signedAuthService.createAuth("testuser").getToken());
+
+        assertEquals(1, signedAuthService.getRevokedTokenCount(),
+                "Going past the cap should first forget tokens that have expired");
+        assertEquals("testuser", signedAuthService.authenticate(live).getUsername(),
+                "Forgetting expired tokens should not refuse any live ones");
+    }
+}
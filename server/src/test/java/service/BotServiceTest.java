@@ -0,0 +1,117 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import dataaccess.ServiceUnavailableException;
+import engine.Position;
+import org.junit.jupiter.api.*;
+import services.BotService;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BotServiceTest {
+
+    private BotService botService;
+
+    @AfterEach
+    public void tearDown() {
+        if (botService != null) {
+            botService.close();
+        }
+    }
+
+    @Test
+    public void requestMoveReturnsLegalMove() throws Exception {
+        botService = new BotService(1, 4, 1, 1, 100);
+        ChessGame game = new ChessGame();
+        AtomicReference<ChessMove> reply = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        assertTrue(botService.requestMove(1, Position.from(game), move -> {
+            reply.set(move);
+            done.countDown();
+        }));
+        assertTrue(done.await(10, TimeUnit.SECONDS), "The computer should reply");
+
+        ChessMove move = reply.get();
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        assertNotNull(piece);
+        assertEquals(ChessGame.TeamColor.WHITE, piece.getTeamColor());
+        Collection<ChessMove> valid = game.validMoves(move.getStartPosition());
+        assertTrue(valid.contains(move), "Computer move should be legal: " + move);
+        assertEquals(1, botService.getCompletedCount());
+    }
+
+    @Test
+    public void oneSearchPerGame() throws Exception {
+        botService = new BotService(1, 4, 1, 1, 300);
+        CountDownLatch done = new CountDownLatch(1);
+        Position position = Position.from(new ChessGame());
+
+        assertTrue(botService.requestMove(7, position, move -> done.countDown()));
+        assertFalse(botService.requestMove(7, position, move -> fail("A second search should not be queued")));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedMoveIsReportedAndCanBeRetried() throws Exception {
+        botService = new BotService(1, 4, 1, 1, 100);
+        Position position = Position.from(new ChessGame());
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+
+        assertTrue(botService.requestMove(1, position, move -> {
+            throw new IllegalStateException("storage is down");
+        }, e -> {
+            error.set(e);
+            failed.countDown();
+        }));
+        assertTrue(failed.await(10, TimeUnit.SECONDS), "The failure should be reported");
+        assertEquals("storage is down", error.get().getMessage());
+        assertEquals(1, botService.getFailedCount());
+
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(botService.requestMove(1, position, move -> done.countDown()),
+                "The game should be able to ask again after a failure");
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void saturatedPoolRejects() throws Exception {
+        botService = new BotService(1, 1, 1, 1, 500);
+        Position position = Position.from(new ChessGame());
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(botService.requestMove(1, position, move -> done.countDown()));
+        assertTrue(botService.requestMove(2, position, move -> done.countDown()));
+        assertThrows(ServiceUnavailableException.class, () -> botService.requestMove(3, position, move -> { }));
+        assertFalse(botService.isThinking(3), "A rejected game should be able to ask again");
+        assertEquals(1, botService.getRejectedCount());
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void noCallbackWithoutLegalMoves() throws Exception {
+        botService = new BotService(1, 4, 1, 1, 100);
+        // Fool's mate: white to move and checkmated.
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        assertTrue(botService.requestMove(1, Position.from(game), move -> fail("No move should be reported")));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (botService.isThinking(1) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(botService.isThinking(1));
+    }
+}
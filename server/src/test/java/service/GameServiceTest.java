@@ -3,27 +3,46 @@ package service;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 import dataaccess.*;
 import models.*;
 import services.GameService;
+import services.AuthService;
+import services.PasswordHasher;
 import services.UserService;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class GameServiceTest {
 
     private DataAccess dataAccess;
     private GameService gameService;
     private UserService userService;
+    private PasswordHasher passwordHasher;
 
     @BeforeEach
     public void setUp() throws DataAccessException {
         dataAccess = new DataAccessImpl();
         gameService = new GameService(dataAccess);
-        userService = new UserService(dataAccess);
+        passwordHasher = new PasswordHasher(1, 4, 4);
+        userService = new UserService(dataAccess, passwordHasher, new AuthService(dataAccess));
         userService.clearData();
     }
 
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.close();
+    }
+
     @Test
     public void createGameSuccess() throws DataAccessException {
         String gameName = "Test Game";
@@ -88,6 +107,18 @@ public class GameServiceTest {
         assertEquals("Invalid player color.", exception.getMessage());
     }
 
+    @Test
+    public void joinGameMissingColorReportsMissingGameFirst() throws DataAccessException {
+        Exception exception = assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(999, "testuser", null));
+        assertEquals("Game not found.", exception.getMessage());
+
+        Game game = gameService.createGame("Test Game");
+        exception = assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(game.getGameID(), "testuser", ""));
+        assertEquals("playerColor is required.", exception.getMessage());
+    }
+
     @Test
     public void joinGameColorAlreadyTaken() throws DataAccessException {
         User user1 = new User("user1", "password1", "user1@example.com");
@@ -141,4 +172,159 @@ public class GameServiceTest {
         }, "Retrieving a non-existent game should throw DataAccessException");
         assertEquals("Game not found.", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createGameConcurrentUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Game>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String gameName = "Game " + i;
+            futures.add(executor.submit(() -> gameService.createGame(gameName)));
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Future<Game> future : futures) {
+            ids.add(future.get().getGameID());
+        }
+        executor.shutdown();
+
+        assertEquals(200, ids.size(), "Every concurrently created game should get its own ID");
+        assertEquals(200, gameService.listGames().size(), "No game should overwrite another");
+    }
+
+    @Test
+    public void joinGameConcurrentSingleWinner() throws Exception {
+        Game game = gameService.createGame("Test Game");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String username = "user" + i;
+            futures.add(executor.submit(() -> {
+                try {
+                    gameService.joinGame(game.getGameID(), username, "white");
+                    return true;
+                } catch (TeamColorAlreadyTakenException e) {
+                    return false;
+                }
+            }));
+        }
+        int winners = 0;
+        for (Future<Boolean> future : futures) {
+            winners += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners, "Exactly one player should claim the white seat");
+        String white = gameService.getGame(game.getGameID()).getWhiteUsername();
+        assertEquals(List.of(gameService.getGame(game.getGameID())), gameService.listGamesForPlayer(white),
+                "The seated player should be indexed to the game");
+    }
+
+    @Test
+    public void listGamesForPlayerFollowsSeats() throws DataAccessException {
+        Game first = gameService.createGame("First");
+        Game second = gameService.createGame("Second");
+        gameService.createGame("Empty");
+        gameService.joinGame(first.getGameID(), "user1", "white");
+        gameService.joinGame(second.getGameID(), "user1", "black");
+        gameService.joinGame(second.getGameID(), "user2", "white");
+
+        assertEquals(2, gameService.listGamesForPlayer("user1").size());
+        assertEquals(List.of(gameService.getGame(second.getGameID())), gameService.listGamesForPlayer("user2"));
+
+        gameService.removePlayerFromGame(first.getGameID(), "user1");
+        assertEquals(List.of(gameService.getGame(second.getGameID())), gameService.listGamesForPlayer("user1"),
+                "A player who left should no longer be listed");
+        assertTrue(gameService.listGamesForPlayer("nobody").isEmpty());
+    }
+
+    @Test
+    public void getGameIsCached() throws DataAccessException {
+        Game game = gameService.createGame("Cached Game");
+        gameService.getGame(game.getGameID());
+        Game cached = gameService.getGame(game.getGameID());
+
+        assertEquals(1, gameService.getCacheMissCount(), "The first read should miss");
+        assertEquals(1, gameService.getCacheHitCount(), "The second read should hit");
+        assertEquals(1, gameService.getCacheSize());
+        cached.setWhiteUsername("someone");
+        assertNull(gameService.getGame(game.getGameID()).getWhiteUsername(),
+                "Changing a returned game should not change the cached copy");
+    }
+
+    @Test
+    public void getGameSeesSeatChanges() throws DataAccessException {
+        Game game = gameService.createGame("Cached Game");
+        gameService.getGame(game.getGameID());
+
+        gameService.joinGame(game.getGameID(), "player1", "white");
+        assertEquals("player1", gameService.getGame(game.getGameID()).getWhiteUsername(),
+                "Joining should invalidate the cached game");
+
+        gameService.removePlayerFromGame(game.getGameID(), "player1");
+        assertNull(gameService.getGame(game.getGameID()).getWhiteUsername(),
+                "Leaving should invalidate the cached game");
+    }
+
+    @Test
+    public void invalidateCacheAfterClear() throws DataAccessException {
+        Game game = gameService.createGame("Cached Game");
+        gameService.getGame(game.getGameID());
+
+        userService.clearData();
+        gameService.invalidateCache();
+        assertThrows(DataAccessException.class, () -> gameService.getGame(game.getGameID()),
+                "Cleared games should not be served from the cache");
+    }
+
+    @Test
+    public void createGameWithBotSeat() throws DataAccessException {
+        Game game = gameService.createGame("Bot Game", "black");
+        assertNull(game.getWhiteUsername());
+        assertEquals(GameService.BOT_USERNAME, game.getBlackUsername());
+        assertEquals(ChessGame.TeamColor.BLACK, gameService.getBotColor(gameService.getGame(game.getGameID())));
+
+        assertThrows(TeamColorAlreadyTakenException.class,
+                () -> gameService.joinGame(game.getGameID(), "alice", "black"));
+        gameService.joinGame(game.getGameID(), "alice", "white");
+        assertEquals("alice", gameService.getGame(game.getGameID()).getWhiteUsername());
+    }
+
+    @Test
+    public void createGameWithInvalidBotColor() {
+        assertThrows(DataAccessException.class, () -> gameService.createGame("Bot Game", "green"));
+    }
+
+    @Test
+    public void resignedGameStaysOverAfterReload() throws DataAccessException, InvalidMoveException {
+        Game game = gameService.createGame("Resigned Game");
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        gameService.recordMove(game.getGameID(), move);
+        assertFalse(gameService.loadChessGame(game.getGameID()).isGameOver());
+
+        gameService.endGame(game.getGameID());
+        ChessGame reloaded = gameService.loadChessGame(game.getGameID());
+        assertTrue(reloaded.isGameOver(), "A resignation has no move to replay, so it must be stored");
+        assertThrows(InvalidMoveException.class,
+                () -> reloaded.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null)));
+
+        assertThrows(DataAccessException.class, () -> gameService.endGame(999));
+    }
+
+    @Test
+    public void adjudicatedDrawStaysOverAfterReload() throws DataAccessException, InvalidMoveException {
+        Game game = gameService.createGame("Adjudicated Game");
+        ChessGame chessGame = gameService.loadChessGame(game.getGameID());
+        ChessMove move = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+        gameService.recordMove(game.getGameID(), move);
+        chessGame.makeMove(move);
+
+        // As the server does when the endgame tables call the position a draw
+        gameService.endGame(game.getGameID(), chessGame);
+        assertTrue(chessGame.isGameOver());
+
+        GameService restarted = new GameService(dataAccess);
+        ChessGame reloaded = restarted.loadChessGame(game.getGameID());
+        assertTrue(reloaded.isGameOver(), "Replaying the moves does not show the draw, so it must be stored");
+        assertEquals(chessGame.getBoard(), reloaded.getBoard());
+    }
+}
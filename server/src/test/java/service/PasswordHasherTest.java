@@ -0,0 +1,38 @@
+package service;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.DataAccessException;
+import services.PasswordHasher;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    public void setUp() {
+        passwordHasher = new PasswordHasher(1, 4, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.close();
+    }
+
+    @Test
+    public void hashAndCheckSuccess() throws DataAccessException {
+        String hashed = passwordHasher.hash("password123");
+
+        assertTrue(hashed.startsWith("$2a$04$"), "Hash should use the configured work factor");
+        assertTrue(passwordHasher.check("password123", hashed), "Correct password should match");
+        assertEquals(2, passwordHasher.getCompletedCount(), "Both operations should be recorded");
+    }
+
+    @Test
+    public void checkWrongPassword() throws DataAccessException {
+        String hashed = passwordHasher.hash("password123");
+
+        assertFalse(passwordHasher.check("wrongpassword", hashed), "Wrong password should not match");
+    }
+}
@@ -5,6 +5,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import dataaccess.*;
 import models.*;
+import services.GameService;
+import services.AuthService;
+import services.PasswordHasher;
 import services.UserService;
 
 import java.util.List;
@@ -13,14 +16,21 @@ public class UserServiceTest {
 
     private DataAccess dataAccess;
     private UserService userService;
+    private PasswordHasher passwordHasher;
 
     @BeforeEach
     public void setUp() throws DataAccessException {
         dataAccess = new DataAccessImpl();
-        userService = new UserService(dataAccess);
+        passwordHasher = new PasswordHasher(1, 4, 4);
+        userService = new UserService(dataAccess, passwordHasher, new AuthService(dataAccess));
         userService.clearData();
     }
 
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.close();
+    }
+
     @Test
     public void registerSuccess() throws DataAccessException {
         User user = new User("testuser", "password123", "test@example.com");
@@ -48,6 +58,21 @@ public class UserServiceTest {
         }, "Registering a duplicate user should throw UserAlreadyExistsException");
     }
 
+    @Test
+    public void registerBotNameRejected() {
+        User user = new User(GameService.BOT_USERNAME, "password123", "bot@example.com");
+        assertThrows(UserAlreadyExistsException.class, () -> userService.register(user),
+                "The computer's seat name should not be available to users");
+    }
+
+    @Test
+    public void loginAsBotRejected() throws DataAccessException {
+        dataAccess.createUser(new User(GameService.BOT_USERNAME, "", ""));
+        Exception exception = assertThrows(DataAccessException.class,
+                () -> userService.login(GameService.BOT_USERNAME, ""));
+        assertEquals("Invalid username or password.", exception.getMessage());
+    }
+
     @Test
     public void loginSuccess() throws DataAccessException {
         User user = new User("testuser", "password123", "test@example.com");
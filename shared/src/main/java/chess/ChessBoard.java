@@ -1,5 +1,16 @@
 package chess;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -11,6 +22,7 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * the signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.GsonAdapter.class)
 public class ChessBoard {
 
     private final Map<ChessPosition, ChessPiece> board;
@@ -163,4 +175,44 @@ public class ChessBoard {
     public int hashCode() {
         return Objects.hashCode(board);
     }
+
+    /**
+     * Serializes the board as eight rows of eight squares, rank 1 first, with null for empty
+     * squares. Gson would otherwise write the position keys with toString() and fail to read
+     * them back.
+     */
+    static class GsonAdapter implements JsonSerializer<ChessBoard>, JsonDeserializer<ChessBoard> {
+        @Override
+        public JsonElement serialize(ChessBoard board, Type type, JsonSerializationContext context) {
+            JsonArray rows = new JsonArray();
+            for (int row = 1; row <= 8; row++) {
+                JsonArray squares = new JsonArray();
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                    squares.add(piece == null ? JsonNull.INSTANCE : context.serialize(piece));
+                }
+                rows.add(squares);
+            }
+            return rows;
+        }
+
+        @Override
+        public ChessBoard deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            if (!json.isJsonArray() || json.getAsJsonArray().size() != 8) {
+                throw new JsonParseException("A chess board must be an array of 8 rows");
+            }
+            ChessBoard board = new ChessBoard();
+            JsonArray rows = json.getAsJsonArray();
+            for (int row = 1; row <= 8; row++) {
+                JsonArray squares = rows.get(row - 1).getAsJsonArray();
+                for (int col = 1; col <= 8; col++) {
+                    JsonElement square = squares.get(col - 1);
+                    if (!square.isJsonNull()) {
+                        board.addPiece(new ChessPosition(row, col), context.deserialize(square, ChessPiece.class));
+                    }
+                }
+            }
+            return board;
+        }
+    }
 }
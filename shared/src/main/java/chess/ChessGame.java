@@ -1,7 +1,13 @@
 package chess;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Manages a chess game, handling moves on a chess board.
@@ -11,14 +17,103 @@ import java.util.HashSet;
  */
 public class ChessGame {
 
+    // Castling rights, one bit per side and wing.
+    private static final int WHITE_KINGSIDE = 1;
+    private static final int WHITE_QUEENSIDE = 2;
+    private static final int BLACK_KINGSIDE = 4;
+    private static final int BLACK_QUEENSIDE = 8;
+    // Rights kept when a move starts or ends on each square: moving a king or rook, or capturing
+    // a rook, on its starting square gives up the rights that depend on it.
+    private static final int[] CASTLING_MASK = new int[64];
+
+    // Fields of the material signature, four bits each, for each team: the count of each kind
+    // of piece other than the king, with bishops split by the color of their square.
+    private static final int MATERIAL_QUEEN = 0;
+    private static final int MATERIAL_ROOK = 1;
+    private static final int MATERIAL_PAWN = 2;
+    private static final int MATERIAL_KNIGHT = 3;
+    private static final int MATERIAL_LIGHT_BISHOP = 4;
+    private static final int MATERIAL_DARK_BISHOP = 5;
+    private static final int MATERIAL_FIELDS = 6;
+    // Queens, rooks and pawns of either team; any of them is enough to mate with.
+    private static final long MATING_MATERIAL = 0xFFFL | 0xFFFL << 4 * MATERIAL_FIELDS;
+
+    // Zobrist keys for the position hash: one per piece (color and type) per square, the side to
+    // move, each combination of castling rights, and the file of the en passant square.
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long BLACK_TO_MOVE_KEY;
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x0C4E_55A1_1L);
+        for (long[] squares : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+        for (int rights = 1; rights < 16; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+    }
+
     private TeamColor currentTeamColor;
     private ChessBoard chessBoard;
     private boolean gameOver = false;
 
+    // Castling rights still held (see WHITE_KINGSIDE etc.), updated by makeMove.
+    private int castlingRights;
+    // Square (0-63, row-major from a1) a pawn skipped with a double push on the last move, if an
+    // enemy pawn can capture it en passant; otherwise -1.
+    private int enPassantSquare = -1;
+
+    // Material signature (see MATERIAL_QUEEN etc.), updated by makeMove.
+    private long material;
+    // Moves since the last capture or pawn move.
+    private int halfmoveClock;
+    // Hash of the current position, updated by makeMove.
+    private transient long positionHash;
+    // How often each position has occurred since the last capture or pawn move; no earlier
+    // position can recur, so older entries are dropped when the clock resets.
+    private transient Map<Long, Integer> positionCounts = new HashMap<>();
+    // The same history in order: the position after the last capture or pawn move, and the
+    // moves played since, so that other code can rebuild every position that may still recur.
+    private transient ChessGame historyStart;
+    private transient List<ChessMove> historyMoves = new ArrayList<>();
+    // The board the fields above were computed for. Gson fills in a new board without
+    // replaying any moves, so a mismatch means they must be rebuilt (see ensureHistory).
+    private transient ChessBoard hashedBoard;
+
     public ChessGame() {
         currentTeamColor = TeamColor.WHITE;
         chessBoard = new ChessBoard();
         chessBoard.resetBoard();
+        resetHistory();
+    }
+
+    /**
+     * Copies a game's position, without its history.
+     */
+    private ChessGame(ChessGame other) {
+        currentTeamColor = other.currentTeamColor;
+        chessBoard = new ChessBoard(other.chessBoard);
+        gameOver = other.gameOver;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        material = other.material;
+        halfmoveClock = other.halfmoveClock;
     }
 
     /**
@@ -35,6 +130,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         currentTeamColor = team;
+        resetHistory();
     }
 
     /**
@@ -60,16 +156,15 @@ public class ChessGame {
 
         TeamColor pieceColor = piece.getTeamColor();
         Collection<ChessMove> possibleMoves = piece.pieceMoves(chessBoard, startPosition);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            addCastlingMoves(pieceColor, startPosition, possibleMoves);
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addEnPassantMove(pieceColor, startPosition, possibleMoves);
+        }
         Collection<ChessMove> validMoves = new HashSet<>();
 
         for (ChessMove move : possibleMoves) {
-
-            // Simulate the move
-            ChessBoard simulatedBoard = new ChessBoard(chessBoard);
-            simulatedBoard.addPiece(move.getEndPosition(), piece);
-            simulatedBoard.removePiece(move.getStartPosition());
-
-            // Check if the player is still in check after the move on the simulated board
+            // Check if the player is still in check after the move on a simulated board
             if (isMoveSafe(pieceColor, move)) {
                 validMoves.add(move);
             }
@@ -87,25 +182,126 @@ public class ChessGame {
      */
     private boolean isMoveSafe(TeamColor pieceColor, ChessMove move) {
         ChessBoard simulatedBoard = new ChessBoard(chessBoard);
-        ChessPiece pieceToMove = chessBoard.getPiece(move.getStartPosition());
+        movePieces(simulatedBoard, move);
+        return !isInCheck(pieceColor, simulatedBoard);
+    }
 
-        if (move.getPromotionPiece() != null) {
-            pieceToMove = new ChessPiece(pieceColor, move.getPromotionPiece());
+    /**
+     * Adds the castling moves a king on its starting square may make. The king may not castle
+     * out of or through check; whether it lands in check is left to {@link #isMoveSafe}.
+     *
+     * @param color the king's team.
+     * @param start the king's position.
+     * @param moves the collection to add the moves to.
+     */
+    private void addCastlingMoves(TeamColor color, ChessPosition start, Collection<ChessMove> moves) {
+        int row = color == TeamColor.WHITE ? 1 : 8;
+        int kingside = color == TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = color == TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0 || start.getRow() != row || start.getColumn() != 5
+                || isInCheck(color, chessBoard)) {
+            return;
+        }
+        if ((castlingRights & kingside) != 0 && isCastlingPathClear(color, row, 8)) {
+            moves.add(new ChessMove(start, new ChessPosition(row, 7), null));
+        }
+        if ((castlingRights & queenside) != 0 && isCastlingPathClear(color, row, 1)) {
+            moves.add(new ChessMove(start, new ChessPosition(row, 3), null));
         }
+    }
 
-        simulatedBoard.addPiece(move.getEndPosition(), pieceToMove);
-        simulatedBoard.removePiece(move.getStartPosition());
+    /**
+     * @return True if the rook is in place, the squares between it and the king are empty, and
+     * the square the king passes over is not attacked.
+     */
+    private boolean isCastlingPathClear(TeamColor color, int row, int rookColumn) {
+        ChessPiece rook = chessBoard.getPiece(new ChessPosition(row, rookColumn));
+        if (rook == null || rook.getPieceType() != ChessPiece.PieceType.ROOK || rook.getTeamColor() != color) {
+            return false;
+        }
+        int step = rookColumn > 5 ? 1 : -1;
+        for (int col = 5 + step; col != rookColumn; col += step) {
+            if (chessBoard.getPiece(new ChessPosition(row, col)) != null) {
+                return false;
+            }
+        }
+        return !chessBoard.isPositionUnderAttack(new ChessPosition(row, 5 + step), color);
+    }
 
-        return !isInCheck(pieceColor, simulatedBoard);
+    /**
+     * Adds the en passant capture a pawn may make, if the opponent's last move was a double
+     * push past a square the pawn attacks.
+     *
+     * @param color the pawn's team.
+     * @param start the pawn's position.
+     * @param moves the collection to add the move to.
+     */
+    private void addEnPassantMove(TeamColor color, ChessPosition start, Collection<ChessMove> moves) {
+        if (enPassantSquare < 0 || color != currentTeamColor) {
+            return;
+        }
+        int row = enPassantSquare / 8 + 1;
+        int col = enPassantSquare % 8 + 1;
+        int direction = color == TeamColor.WHITE ? 1 : -1;
+        if (start.getRow() + direction == row && Math.abs(start.getColumn() - col) == 1) {
+            moves.add(new ChessMove(start, new ChessPosition(row, col), null));
+        }
     }
 
     /**
-     * Makes a move in a chess game.
+     * Moves the pieces for a move on a board, including the rook of a castling move and the
+     * pawn taken by an en passant capture. The move is not checked for legality.
      *
-     * @param move the chess move to preform.
-     * @throws InvalidMoveException if move is invalid.
+     * @param board the board to change.
+     * @param move  the move to make.
      */
-    public void makeMove(ChessMove move) throws InvalidMoveException {
+    private void movePieces(ChessBoard board, ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = board.getPiece(start);
+        if (isEnPassant(board, piece, move)) {
+            board.removePiece(enPassantVictim(move));
+        } else if (isCastling(piece, move)) {
+            board.addPiece(castlingRookEnd(move), board.getPiece(castlingRookStart(move)));
+            board.removePiece(castlingRookStart(move));
+        }
+        board.addPiece(end, move.getPromotionPiece() != null
+                ? new ChessPiece(piece.getTeamColor(), move.getPromotionPiece())
+                : piece);
+        board.removePiece(start);
+    }
+
+    private boolean isEnPassant(ChessBoard board, ChessPiece piece, ChessMove move) {
+        return piece.getPieceType() == ChessPiece.PieceType.PAWN
+                && move.getStartPosition().getColumn() != move.getEndPosition().getColumn()
+                && board.getPiece(move.getEndPosition()) == null;
+    }
+
+    private static boolean isCastling(ChessPiece piece, ChessMove move) {
+        return piece.getPieceType() == ChessPiece.PieceType.KING
+                && Math.abs(move.getStartPosition().getColumn() - move.getEndPosition().getColumn()) == 2;
+    }
+
+    // The pawn taken en passant stands beside the capturing pawn's starting square.
+    private static ChessPosition enPassantVictim(ChessMove move) {
+        return new ChessPosition(move.getStartPosition().getRow(), move.getEndPosition().getColumn());
+    }
+
+    private static ChessPosition castlingRookStart(ChessMove move) {
+        return new ChessPosition(move.getStartPosition().getRow(), move.getEndPosition().getColumn() == 7 ? 8 : 1);
+    }
+
+    private static ChessPosition castlingRookEnd(ChessMove move) {
+        return new ChessPosition(move.getStartPosition().getRow(), move.getEndPosition().getColumn() == 7 ? 6 : 4);
+    }
+
+    /**
+     * Checks a move without making it, so that it can be recorded before the board changes.
+     *
+     * @param move the chess move to check.
+     * @throws InvalidMoveException if {@link #makeMove} would reject the move.
+     */
+    public void validateMove(ChessMove move) throws InvalidMoveException {
         if (gameOver) {
             throw new InvalidMoveException("Invalid move: The game is over.");
         }
@@ -123,14 +319,250 @@ public class ChessGame {
         if (validMoves == null || !validMoves.contains(move)) {
             throw new InvalidMoveException("Invalid move.");
         }
+    }
+
+    /**
+     * Makes a move in a chess game.
+     *
+     * @param move the chess move to preform.
+     * @throws InvalidMoveException if move is invalid.
+     */
+    public void makeMove(ChessMove move) throws InvalidMoveException {
+        validateMove(move);
+        ensureHistory();
 
+        ChessPiece piece = chessBoard.getPiece(move.getStartPosition());
+
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
         ChessPiece pieceAfterMove = move.getPromotionPiece() != null
                 ? new ChessPiece(currentTeamColor, move.getPromotionPiece())
                 : piece;
+        ChessPosition capturedAt = isEnPassant(chessBoard, piece, move) ? enPassantVictim(move) : end;
+        ChessPiece captured = chessBoard.getPiece(capturedAt);
 
-        chessBoard.addPiece(move.getEndPosition(), pieceAfterMove);
-        chessBoard.removePiece(move.getStartPosition());
+        positionHash ^= pieceKey(piece, start) ^ pieceKey(pieceAfterMove, end) ^ BLACK_TO_MOVE_KEY;
+        if (captured != null) {
+            positionHash ^= pieceKey(captured, capturedAt);
+            material -= materialUnit(captured, capturedAt);
+        }
+        if (pieceAfterMove != piece) {
+            material += materialUnit(pieceAfterMove, end) - materialUnit(piece, start);
+        }
+        if (isCastling(piece, move)) {
+            ChessPiece rook = chessBoard.getPiece(castlingRookStart(move));
+            positionHash ^= pieceKey(rook, castlingRookStart(move)) ^ pieceKey(rook, castlingRookEnd(move));
+        }
+
+        movePieces(chessBoard, move);
         toggleTeamTurn();
+
+        positionHash ^= CASTLING_KEYS[castlingRights] ^ enPassantKey();
+        castlingRights &= CASTLING_MASK[square(start)] & CASTLING_MASK[square(end)];
+        // Only recorded when a pawn could take it, so that otherwise identical positions repeat.
+        enPassantSquare = piece.getPieceType() == ChessPiece.PieceType.PAWN
+                && Math.abs(start.getRow() - end.getRow()) == 2
+                && (hasPiece(end.getRow(), end.getColumn() - 1, currentTeamColor, ChessPiece.PieceType.PAWN)
+                || hasPiece(end.getRow(), end.getColumn() + 1, currentTeamColor, ChessPiece.PieceType.PAWN))
+                ? square(new ChessPosition((start.getRow() + end.getRow()) / 2, start.getColumn()))
+                : -1;
+        positionHash ^= CASTLING_KEYS[castlingRights] ^ enPassantKey();
+        if (captured != null || piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
+            positionCounts.clear();
+            historyStart = new ChessGame(this);
+            historyMoves.clear();
+        } else {
+            halfmoveClock++;
+            historyMoves.add(move);
+        }
+        positionCounts.merge(positionHash, 1, Integer::sum);
+    }
+
+    private static long pieceKey(ChessPiece piece, ChessPosition position) {
+        int index = piece.getPieceType().ordinal() * 2 + piece.getTeamColor().ordinal();
+        return PIECE_KEYS[index][square(position)];
+    }
+
+    /**
+     * @return The amount one piece on a square adds to the material signature; 0 for kings.
+     */
+    private static long materialUnit(ChessPiece piece, ChessPosition position) {
+        int field = switch (piece.getPieceType()) {
+            case KING -> -1;
+            case QUEEN -> MATERIAL_QUEEN;
+            case ROOK -> MATERIAL_ROOK;
+            case PAWN -> MATERIAL_PAWN;
+            case KNIGHT -> MATERIAL_KNIGHT;
+            // a1 is a dark square
+            case BISHOP -> (position.getRow() + position.getColumn()) % 2 == 0
+                    ? MATERIAL_DARK_BISHOP : MATERIAL_LIGHT_BISHOP;
+        };
+        if (field < 0) {
+            return 0;
+        }
+        return 1L << 4 * (piece.getTeamColor().ordinal() * MATERIAL_FIELDS + field);
+    }
+
+    private int materialCount(int field) {
+        return (int) (material >>> 4 * field & 0xF) + (int) (material >>> 4 * (MATERIAL_FIELDS + field) & 0xF);
+    }
+
+    private long enPassantKey() {
+        return enPassantSquare < 0 ? 0 : EN_PASSANT_KEYS[enPassantSquare % 8];
+    }
+
+    private static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    /**
+     * Starts the repetition history over from the current board, e.g. after the board is replaced.
+     * Each side may castle on a wing if its king and that rook are on their starting squares,
+     * and no en passant capture is available.
+     */
+    private void resetHistory() {
+        castlingRights = 0;
+        if (hasPiece(1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            castlingRights |= hasPiece(1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_KINGSIDE : 0;
+            castlingRights |= hasPiece(1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_QUEENSIDE : 0;
+        }
+        if (hasPiece(8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            castlingRights |= hasPiece(8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_KINGSIDE : 0;
+            castlingRights |= hasPiece(8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_QUEENSIDE : 0;
+        }
+        enPassantSquare = -1;
+
+        material = 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = chessBoard.getPiece(position);
+                if (piece != null) {
+                    material += materialUnit(piece, position);
+                }
+            }
+        }
+        halfmoveClock = 0;
+        hashedBoard = null;
+        ensureHistory();
+    }
+
+    /**
+     * Rebuilds the position hash and repetition history if they were not computed for the
+     * current board, as after deserialization. A rebuilt history starts at the current
+     * position: the moves that led to it are not part of the serialized form, so only a game
+     * that played them itself, such as the server's, counts earlier repetitions.
+     */
+    private void ensureHistory() {
+        if (hashedBoard == chessBoard) {
+            return;
+        }
+        positionHash = (currentTeamColor == TeamColor.BLACK ? BLACK_TO_MOVE_KEY : 0)
+                ^ CASTLING_KEYS[castlingRights] ^ enPassantKey();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = chessBoard.getPiece(position);
+                if (piece != null) {
+                    positionHash ^= pieceKey(piece, position);
+                }
+            }
+        }
+        positionCounts = new HashMap<>();
+        positionCounts.put(positionHash, 1);
+        historyStart = new ChessGame(this);
+        historyMoves = new ArrayList<>();
+        hashedBoard = chessBoard;
+    }
+
+    private boolean hasPiece(int row, int col, TeamColor color, ChessPiece.PieceType type) {
+        if (col < 1 || col > 8) {
+            return false;
+        }
+        ChessPiece piece = chessBoard.getPiece(new ChessPosition(row, col));
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+
+    /**
+     * @param teamColor the team to ask about.
+     * @param kingside  true for the kingside (h-file rook), false for the queenside.
+     * @return True if neither the team's king nor that rook has moved. The king may still be
+     * unable to castle right now, e.g. because it is in check.
+     */
+    public boolean hasCastlingRight(TeamColor teamColor, boolean kingside) {
+        int right = teamColor == TeamColor.WHITE
+                ? (kingside ? WHITE_KINGSIDE : WHITE_QUEENSIDE)
+                : (kingside ? BLACK_KINGSIDE : BLACK_QUEENSIDE);
+        return (castlingRights & right) != 0;
+    }
+
+    /**
+     * @return The square a pawn skipped over with a double push on the last move, where an
+     * enemy pawn beside it may capture it en passant; null if there is no such capture.
+     */
+    public ChessPosition getEnPassantTarget() {
+        return enPassantSquare < 0 ? null : new ChessPosition(enPassantSquare / 8 + 1, enPassantSquare % 8 + 1);
+    }
+
+    /**
+     * @return The number of moves since the last capture or pawn move.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return A copy of the position the repetition history starts from: the one after the last
+     * capture or pawn move, or the current one if the history was rebuilt (see ensureHistory).
+     */
+    public ChessGame getHistoryStart() {
+        ensureHistory();
+        return new ChessGame(historyStart);
+    }
+
+    /**
+     * @return The moves played since {@link #getHistoryStart()}, in order. Playing them from
+     * that position passes through every earlier position that may still recur.
+     */
+    public List<ChessMove> getHistoryMoves() {
+        ensureHistory();
+        return List.copyOf(historyMoves);
+    }
+
+    /**
+     * @return True if the current position, with the same side to move, has occurred at least three times.
+     */
+    public boolean isThreefoldRepetition() {
+        ensureHistory();
+        return positionCounts.getOrDefault(positionHash, 0) >= 3;
+    }
+
+    /**
+     * @return True if fifty moves by each side have passed without a capture or pawn move.
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Detects the positions where neither team can ever checkmate: king against king, king and
+     * one knight against king, and kings with any number of bishops that all stand on squares of
+     * one color. Answered from the material signature without looking at the board.
+     *
+     * @return True if neither team has enough material left to checkmate.
+     */
+    public boolean isInsufficientMaterial() {
+        if ((material & MATING_MATERIAL) != 0) {
+            return false;
+        }
+        int knights = materialCount(MATERIAL_KNIGHT);
+        int lightBishops = materialCount(MATERIAL_LIGHT_BISHOP);
+        int darkBishops = materialCount(MATERIAL_DARK_BISHOP);
+        if (knights == 0) {
+            return lightBishops == 0 || darkBishops == 0;
+        }
+        return knights == 1 && lightBishops + darkBishops == 0;
     }
 
     /**
@@ -217,6 +649,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         chessBoard = board;
+        resetHistory();
     }
 
     /**
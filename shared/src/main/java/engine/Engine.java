@@ -0,0 +1,156 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entry point for picking moves. The engine copies the game into its own {@link Position}, so
+ * the ChessGame passed in is never modified and may be used by other threads while a search runs.
+ * <p>
+ * With more than one thread the engine runs a Lazy SMP search: helper threads search the same
+ * root as the calling thread and share its transposition table, and the calling thread's
+ * result is returned once it finishes. The table is kept between searches, so later moves of
+ * the same game start with what earlier searches learned, and several engines may share one
+ * table. Engines are thread-safe but a search occupies all of the engine's helpers, so
+ * concurrent callers should use separate engines.
+ * <p>
+ * An engine with an {@link OpeningBook} plays book moves without searching while the game is
+ * still in the book. An engine with a {@link Tablebase} plays positions the tables cover
+ * perfectly without searching, and its searches stop at captures into such positions.
+ */
+public class Engine implements AutoCloseable {
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final ExecutorService helpers;
+
+    /**
+     * A single-threaded engine with the default table size.
+     */
+    public Engine() {
+        this(1, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param threads search threads, including the calling thread.
+     * @param table   transposition table, which may be shared with other engines.
+     */
+    public Engine(int threads, TranspositionTable table) {
+        this(threads, table, null);
+    }
+
+    /**
+     * @param threads search threads, including the calling thread.
+     * @param table   transposition table, which may be shared with other engines.
+     * @param book    opening book consulted before each search, or null for none.
+     */
+    public Engine(int threads, TranspositionTable table, OpeningBook book) {
+        this(threads, table, book, null);
+    }
+
+    /**
+     * @param threads   search threads, including the calling thread.
+     * @param table     transposition table, which may be shared with other engines.
+     * @param book      opening book consulted before each search, or null for none.
+     * @param tablebase endgame tables, or null for none.
+     */
+    public Engine(int threads, TranspositionTable table, OpeningBook book, Tablebase tablebase) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An engine needs at least one thread");
+        }
+        this.threads = threads;
+        this.table = table;
+        this.book = book;
+        this.tablebase = tablebase;
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "engine-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Searches the current position of a game.
+     *
+     * @return The best move found; its bestMove is null if the side to move has no legal moves.
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(Position.from(game), limits);
+    }
+
+    /**
+     * Searches a position. The position is left as it was given.
+     */
+    public SearchResult search(Position position, SearchLimits limits) {
+        if (book != null) {
+            int bookMove = book.choose(position, ThreadLocalRandom.current());
+            if (bookMove != Move.NONE) {
+                return SearchResult.book(Move.toChessMove(bookMove));
+            }
+        }
+        if (tablebase != null) {
+            int tablebaseMove = tablebase.bestMove(position);
+            if (tablebaseMove != Move.NONE) {
+                ChessMove move = Move.toChessMove(tablebaseMove);
+                return new SearchResult(move, tablebase.probe(position), 0, List.of(move), 0, 0, false);
+            }
+        }
+        table.newSearch();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Search> helperSearches = new ArrayList<>();
+        List<Future<?>> running = new ArrayList<>();
+        for (int id = 1; id < threads; id++) {
+            Search helper = new Search(position.copy(), table, tablebase, stop, id);
+            helperSearches.add(helper);
+            running.add(helpers.submit(() -> helper.run(limits)));
+        }
+
+        SearchResult result;
+        try {
+            result = new Search(position.copy(), table, tablebase, stop, 0).run(limits);
+        } finally {
+            stop.set(true);
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // A failed helper only costs table entries; the main result stands.
+                }
+            }
+        }
+        if (helperSearches.isEmpty()) {
+            return result;
+        }
+        long nodes = result.nodes();
+        for (Search helper : helperSearches) {
+            nodes += helper.nodes();
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(),
+                result.principalVariation(), nodes, result.elapsedMillis(), false);
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package engine;
+
+/**
+ * Static evaluation: material plus piece-square tables, with the king table blended between
+ * middlegame and endgame by how much material is left. Scores are in centipawns from the
+ * point of view of the side to move.
+ */
+final class Evaluator {
+    static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 20000};
+
+    private static final int BISHOP_PAIR = 30;
+    // Phase weights per piece type; the starting position has a total of 24.
+    private static final int[] PHASE = {0, 0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    // Tables are written from white's side with rank 8 first; squares are flipped on lookup.
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[][] TABLES = {null, PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE};
+
+    private Evaluator() {
+    }
+
+    static int evaluate(Position position) {
+        int[] material = new int[2];
+        int[] bishops = new int[2];
+        int[] kingMiddlegame = new int[2];
+        int[] kingEndgame = new int[2];
+        int phase = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.pieceAt(sq);
+            if (piece == 0) {
+                continue;
+            }
+            int type = Position.typeOf(piece);
+            int color = Position.colorOf(piece);
+            // Table index: rank 8 first from white's side, so white squares flip vertically.
+            int index = color == Position.WHITE ? sq ^ 56 : sq;
+            if (type == Position.KING) {
+                kingMiddlegame[color] = KING_MIDDLEGAME[index];
+                kingEndgame[color] = KING_ENDGAME[index];
+                continue;
+            }
+            material[color] += PIECE_VALUES[type] + TABLES[type][index];
+            phase += PHASE[type];
+            if (type == Position.BISHOP) {
+                bishops[color]++;
+            }
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        int score = material[Position.WHITE] - material[Position.BLACK];
+        score += ((kingMiddlegame[Position.WHITE] - kingMiddlegame[Position.BLACK]) * phase
+                + (kingEndgame[Position.WHITE] - kingEndgame[Position.BLACK]) * (MAX_PHASE - phase)) / MAX_PHASE;
+        if (bishops[Position.WHITE] >= 2) {
+            score += BISHOP_PAIR;
+        }
+        if (bishops[Position.BLACK] >= 2) {
+            score -= BISHOP_PAIR;
+        }
+        return position.sideToMove() == Position.WHITE ? score : -score;
+    }
+}
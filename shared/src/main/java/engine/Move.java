@@ -0,0 +1,125 @@
+package engine;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Moves packed into an int so the search can keep them in plain arrays.
+ * <p>
+ * Bits 0-5 hold the from square, 6-11 the to square, 12-14 the promotion piece type (0 for
+ * none) and 15-16 a flag for special moves. Squares run from 0 (a1) to 63 (h8). The value 0 is
+ * never a legal move and stands for "no move".
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    static final int FLAG_NONE = 0;
+    static final int FLAG_EN_PASSANT = 1;
+    static final int FLAG_CASTLE = 2;
+    static final int FLAG_DOUBLE_PUSH = 3;
+
+    private Move() {
+    }
+
+    static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    static int of(int from, int to, int promotion, int flag) {
+        return from | to << 6 | promotion << 12 | flag << 15;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return The promotion piece type (see {@link Position#KNIGHT} etc.), or 0.
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    public static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        int promotion = promotion(move);
+        return new ChessMove(position(from(move)), position(to(move)),
+                promotion == 0 ? null : Position.toPieceType(promotion));
+    }
+
+    /**
+     * @return The move in coordinate notation, e.g. {@code e2e4} or {@code a7a8q}.
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = squareName(from(move)) + squareName(to(move));
+        int promotion = promotion(move);
+        return promotion == 0 ? text : text + "nbrq".charAt(promotion - Position.KNIGHT);
+    }
+
+    /**
+     * @return The move in coordinate notation, e.g. {@code e2e4} or {@code a7a8q}.
+     */
+    public static String toString(ChessMove move) {
+        return toString(of(square(move.getStartPosition()), square(move.getEndPosition()),
+                promotionType(move.getPromotionPiece()), FLAG_NONE));
+    }
+
+    /**
+     * Parses coordinate notation, e.g. {@code e2e4} or {@code a7a8q}. The move is not checked
+     * against any position.
+     *
+     * @throws IllegalArgumentException If the text is not a move in coordinate notation.
+     */
+    public static ChessMove parse(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+        int from = parseSquare(text, 0);
+        int to = parseSquare(text, 2);
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            int type = "nbrq".indexOf(text.charAt(4));
+            if (type < 0) {
+                throw new IllegalArgumentException("Bad promotion piece: " + text);
+            }
+            promotion = Position.toPieceType(Position.KNIGHT + type);
+        }
+        return new ChessMove(position(from), position(to), promotion);
+    }
+
+    private static int parseSquare(String text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % 8) + (char) ('1' + square / 8);
+    }
+
+    static int promotionType(ChessPiece.PieceType type) {
+        return type == null ? 0 : Position.fromPieceType(type);
+    }
+}
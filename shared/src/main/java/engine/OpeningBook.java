@@ -0,0 +1,237 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Read-only table of opening moves, memory-mapped from a file. It maps a position's key to the
+ * moves played from it, each with a weight; the engine plays one of them, chosen in proportion
+ * to its weight, instead of searching.
+ * <p>
+ * File layout (big-endian): the magic number, the entry count, then 16-byte entries sorted by
+ * key: key (long), move (int, as in {@link Move}), weight (int). Keys are {@link Position#key()}
+ * values, so a book only works with the Zobrist keys it was built with. Book moves are checked
+ * against the legal moves before use, so a key collision cannot produce an illegal move.
+ */
+public final class OpeningBook {
+    private static final int MAGIC = 0x43424F31; // "CBO1"
+    private static final int HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * A book move and how often it should be played relative to the other moves from its position.
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file into memory.
+     *
+     * @throws IOException If the file cannot be read or is not a book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book: " + file);
+        }
+        int size = buffer.getInt(4);
+        if (size < 0 || (long) size * ENTRY_BYTES != buffer.capacity() - HEADER_BYTES) {
+            throw new IOException("Opening book is truncated: " + file);
+        }
+        return new OpeningBook(buffer.slice(HEADER_BYTES, size * ENTRY_BYTES), size);
+    }
+
+    /**
+     * @return The number of position and move pairs in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The legal book moves for a position, most played first; empty if it is not in the book.
+     */
+    public List<BookMove> moves(Position position) {
+        List<BookMove> moves = new ArrayList<>();
+        int[] legal = position.legalMoves();
+        for (int i = firstEntry(position.key()); i < size && key(i) == position.key(); i++) {
+            if (contains(legal, move(i))) {
+                moves.add(new BookMove(Move.toChessMove(move(i)), weight(i)));
+            }
+        }
+        moves.sort((a, b) -> Integer.compare(b.weight(), a.weight()));
+        return moves;
+    }
+
+    /**
+     * Picks a legal book move for a position, each in proportion to its weight.
+     *
+     * @return The move, or {@link Move#NONE} if the position is not in the book.
+     */
+    int choose(Position position, RandomGenerator random) {
+        int first = firstEntry(position.key());
+        int total = 0;
+        int[] legal = null;
+        for (int i = first; i < size && key(i) == position.key(); i++) {
+            if (legal == null) {
+                legal = position.legalMoves();
+            }
+            if (contains(legal, move(i))) {
+                total += weight(i);
+            }
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        int pick = random.nextInt(total);
+        for (int i = first; ; i++) {
+            if (contains(legal, move(i))) {
+                pick -= weight(i);
+                if (pick < 0) {
+                    return move(i);
+                }
+            }
+        }
+    }
+
+    // Index of the first entry whose key is not less than the given key.
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int move(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 8);
+    }
+
+    private int weight(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 12);
+    }
+
+    private static boolean contains(int[] moves, int move) {
+        for (int candidate : moves) {
+            if (candidate == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects opening lines and writes them as a book. Every line adds one to the weight of
+     * each of its moves, so moves shared by many lines are played more often.
+     */
+    public static final class Builder {
+        private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+
+        /**
+         * Adds a line of moves in coordinate notation (e.g. "e2e4 e7e5 g1f3") played from the
+         * starting position.
+         *
+         * @throws IllegalArgumentException If a move is malformed or illegal.
+         */
+        public Builder addLine(String line) {
+            Position position = Position.fromFen(Position.START_FEN);
+            for (String text : line.trim().split("\\s+")) {
+                if (text.isEmpty()) {
+                    continue;
+                }
+                int move = position.findMove(Move.parse(text));
+                if (move == Move.NONE) {
+                    throw new IllegalArgumentException("Illegal book move " + text + " in: " + line);
+                }
+                weights.computeIfAbsent(position.key(), key -> new HashMap<>()).merge(move, 1, Integer::sum);
+                position.makeMove(move);
+            }
+            return this;
+        }
+
+        /**
+         * Adds every line of a text; blank lines and lines starting with '#' are skipped.
+         */
+        public Builder addLines(List<String> lines) {
+            for (String line : lines) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    addLine(line);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Writes the book, replacing the file if it exists.
+         */
+        public void write(Path file) throws IOException {
+            TreeMap<Long, Map<Integer, Integer>> sorted = new TreeMap<>(weights);
+            int count = 0;
+            for (Map<Integer, Integer> moves : sorted.values()) {
+                count += moves.size();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(MAGIC).putInt(count);
+            for (Map.Entry<Long, Map<Integer, Integer>> position : sorted.entrySet()) {
+                for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                    buffer.putLong(position.getKey()).putInt(move.getKey()).putInt(move.getValue());
+                }
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, buffer.array());
+        }
+    }
+
+    /**
+     * Builds a book file from a text file of opening lines.
+     * <p>
+     * Usage: {@code OpeningBook <lines.txt> <book file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OpeningBook <lines.txt> <book file>");
+            System.exit(2);
+        }
+        new Builder().addLines(Files.readAllLines(Path.of(args[0]))).write(Path.of(args[1]));
+        System.out.println("Wrote " + open(Path.of(args[1])).size() + " book entries to " + args[1]);
+    }
+}
@@ -0,0 +1,711 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.util.Arrays;
+
+/**
+ * Mutable board used by the search. Pieces live in a 64-square array, and every move is
+ * applied with {@link #makeMove} and reverted with {@link #unmakeMove}, so the search never
+ * copies a board or allocates per node. The position keeps an incremental Zobrist key and
+ * the history of keys needed to recognize repetitions.
+ * <p>
+ * A piece is its type (PAWN through KING) with {@link #BLACK_BIT} set for black pieces.
+ */
+public final class Position {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+    static final int BLACK_BIT = 8;
+
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final int[][] KNIGHT_ATTACKS = new int[64][];
+    static final int[][] KING_ATTACKS = new int[64][];
+    // PAWN_ATTACKS[color][sq]: squares a pawn of that color on sq attacks.
+    static final int[][][] PAWN_ATTACKS = new int[2][64][];
+    // RAYS[dir][sq]: squares outward from sq; directions 0-3 are orthogonal, 4-7 diagonal.
+    static final int[][][] RAYS = new int[8][64][];
+    // Castling rights that survive a move touching this square.
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        int[][] knight = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq / 8;
+            int col = sq % 8;
+            KNIGHT_ATTACKS[sq] = targets(row, col, knight);
+            KING_ATTACKS[sq] = targets(row, col, directions);
+            PAWN_ATTACKS[WHITE][sq] = targets(row, col, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[BLACK][sq] = targets(row, col, new int[][]{{-1, -1}, {-1, 1}});
+            for (int dir = 0; dir < 8; dir++) {
+                int[] ray = new int[8];
+                int length = 0;
+                for (int r = row + directions[dir][0], c = col + directions[dir][1];
+                     r >= 0 && r < 8 && c >= 0 && c < 8; r += directions[dir][0], c += directions[dir][1]) {
+                    ray[length++] = r * 8 + c;
+                }
+                RAYS[dir][sq] = Arrays.copyOf(ray, length);
+            }
+        }
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+    }
+
+    private static int[] targets(int row, int col, int[][] deltas) {
+        int[] result = new int[deltas.length];
+        int count = 0;
+        for (int[] delta : deltas) {
+            int r = row + delta[0];
+            int c = col + delta[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                result[count++] = r * 8 + c;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private final int[] board = new int[64];
+    private final int[] kingSquare = {-1, -1};
+    private int side;
+    private int castling;
+    private int enPassant = -1;
+    private int halfmoveClock;
+    private long key;
+
+    // Undo information, one entry per move made. A position built from a game starts with the
+    // game's moves since its last capture or pawn move, so repetitions of earlier positions count.
+    private int historyLength;
+    private long[] keyHistory = new long[256];
+    private int[] capturedHistory = new int[256];
+    private int[] castlingHistory = new int[256];
+    private int[] enPassantHistory = new int[256];
+    private int[] halfmoveHistory = new int[256];
+
+    private Position() {
+    }
+
+    /**
+     * Builds a position from a game's current board, turn, castling rights, en passant square and
+     * halfmove clock. The game's moves since its last capture or pawn move are replayed into the
+     * history, so {@link #isRepetition} sees positions that occurred before the search.
+     */
+    public static Position from(ChessGame game) {
+        Position position = fromBoard(game.getHistoryStart());
+        for (ChessMove move : game.getHistoryMoves()) {
+            int encoded = position.findMove(move);
+            if (encoded == Move.NONE) {
+                // Cannot happen for moves the game accepted; fall back to a position without history.
+                return fromBoard(game);
+            }
+            position.makeMove(encoded);
+        }
+        return position;
+    }
+
+    /**
+     * Builds a position from a game's current state alone, with an empty history.
+     */
+    private static Position fromBoard(ChessGame game) {
+        Position position = new Position();
+        ChessBoard chessBoard = game.getBoard();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = chessBoard.getPiece(Move.position(sq));
+            if (piece != null) {
+                position.put(sq, fromPieceType(piece.getPieceType())
+                        | (piece.getTeamColor() == ChessGame.TeamColor.BLACK ? BLACK_BIT : 0));
+            }
+        }
+        position.side = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+        position.castling = (game.hasCastlingRight(ChessGame.TeamColor.WHITE, true) ? WHITE_KINGSIDE : 0)
+                | (game.hasCastlingRight(ChessGame.TeamColor.WHITE, false) ? WHITE_QUEENSIDE : 0)
+                | (game.hasCastlingRight(ChessGame.TeamColor.BLACK, true) ? BLACK_KINGSIDE : 0)
+                | (game.hasCastlingRight(ChessGame.TeamColor.BLACK, false) ? BLACK_QUEENSIDE : 0);
+        ChessPosition enPassantTarget = game.getEnPassantTarget();
+        position.enPassant = enPassantTarget == null ? -1 : Move.square(enPassantTarget);
+        position.halfmoveClock = game.getHalfmoveClock();
+        position.key = position.computeKey();
+        return position;
+    }
+
+    /**
+     * Parses Forsyth-Edwards Notation.
+     *
+     * @throws IllegalArgumentException If the text is not a valid FEN record.
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("FEN needs at least a board and a side to move");
+        }
+        Position position = new Position();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN board must have 8 ranks");
+        }
+        for (int i = 0; i < 8; i++) {
+            int row = 7 - i;
+            int col = 0;
+            for (char ch : ranks[i].toCharArray()) {
+                if (Character.isDigit(ch)) {
+                    col += ch - '0';
+                } else {
+                    int type = "pnbrqk".indexOf(Character.toLowerCase(ch)) + 1;
+                    if (type == 0 || col > 7) {
+                        throw new IllegalArgumentException("Bad FEN rank: " + ranks[i]);
+                    }
+                    position.put(row * 8 + col, type | (Character.isLowerCase(ch) ? BLACK_BIT : 0));
+                    col++;
+                }
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("Bad FEN rank: " + ranks[i]);
+            }
+        }
+        if (position.kingSquare[WHITE] < 0 || position.kingSquare[BLACK] < 0) {
+            throw new IllegalArgumentException("FEN must have a king for each side");
+        }
+        position.side = switch (fields[1]) {
+            case "w" -> WHITE;
+            case "b" -> BLACK;
+            default -> throw new IllegalArgumentException("Bad side to move: " + fields[1]);
+        };
+        if (fields.length > 2 && !fields[2].equals("-")) {
+            for (char ch : fields[2].toCharArray()) {
+                position.castling |= switch (ch) {
+                    case 'K' -> WHITE_KINGSIDE;
+                    case 'Q' -> WHITE_QUEENSIDE;
+                    case 'k' -> BLACK_KINGSIDE;
+                    case 'q' -> BLACK_QUEENSIDE;
+                    default -> throw new IllegalArgumentException("Bad castling rights: " + fields[2]);
+                };
+            }
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            String ep = fields[3];
+            if (ep.length() != 2 || ep.charAt(0) < 'a' || ep.charAt(0) > 'h' || (ep.charAt(1) != '3' && ep.charAt(1) != '6')) {
+                throw new IllegalArgumentException("Bad en passant square: " + ep);
+            }
+            int square = (ep.charAt(1) - '1') * 8 + (ep.charAt(0) - 'a');
+            if (position.hasPawnBeside(square < 32 ? square + 8 : square - 8, position.side)) {
+                position.enPassant = square;
+            }
+        }
+        if (fields.length > 4) {
+            try {
+                position.halfmoveClock = Integer.parseInt(fields[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad halfmove clock: " + fields[4]);
+            }
+        }
+        position.key = position.computeKey();
+        return position;
+    }
+
+    /**
+     * @return The position in Forsyth-Edwards Notation. The fullmove number is not tracked and is written as 1.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = board[row * 8 + col];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char letter = "pnbrqk".charAt(typeOf(piece) - 1);
+                fen.append(colorOf(piece) == WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(side == WHITE ? " w " : " b ");
+        if (castling == 0) {
+            fen.append('-');
+        } else {
+            fen.append((castling & WHITE_KINGSIDE) != 0 ? "K" : "").append((castling & WHITE_QUEENSIDE) != 0 ? "Q" : "")
+                    .append((castling & BLACK_KINGSIDE) != 0 ? "k" : "").append((castling & BLACK_QUEENSIDE) != 0 ? "q" : "");
+        }
+        fen.append(' ').append(enPassant < 0 ? "-" : Move.squareName(enPassant));
+        fen.append(' ').append(halfmoveClock).append(" 1");
+        return fen.toString();
+    }
+
+    /**
+     * @return An independent copy, including the key history, for use by another search thread.
+     */
+    public Position copy() {
+        Position copy = new Position();
+        System.arraycopy(board, 0, copy.board, 0, 64);
+        copy.kingSquare[WHITE] = kingSquare[WHITE];
+        copy.kingSquare[BLACK] = kingSquare[BLACK];
+        copy.side = side;
+        copy.castling = castling;
+        copy.enPassant = enPassant;
+        copy.halfmoveClock = halfmoveClock;
+        copy.key = key;
+        copy.historyLength = historyLength;
+        copy.keyHistory = keyHistory.clone();
+        copy.capturedHistory = capturedHistory.clone();
+        copy.castlingHistory = castlingHistory.clone();
+        copy.enPassantHistory = enPassantHistory.clone();
+        copy.halfmoveHistory = halfmoveHistory.clone();
+        return copy;
+    }
+
+    private void put(int sq, int piece) {
+        board[sq] = piece;
+        if (typeOf(piece) == KING) {
+            kingSquare[colorOf(piece)] = sq;
+        }
+    }
+
+    private long computeKey() {
+        long hash = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] != 0) {
+                hash ^= Zobrist.PIECES[board[sq]][sq];
+            }
+        }
+        hash ^= Zobrist.CASTLING[castling];
+        if (enPassant >= 0) {
+            hash ^= Zobrist.EN_PASSANT[enPassant & 7];
+        }
+        return side == BLACK ? hash ^ Zobrist.SIDE : hash;
+    }
+
+    static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    static int colorOf(int piece) {
+        return piece >>> 3;
+    }
+
+    static int fromPieceType(ChessPiece.PieceType type) {
+        return switch (type) {
+            case PAWN -> PAWN;
+            case KNIGHT -> KNIGHT;
+            case BISHOP -> BISHOP;
+            case ROOK -> ROOK;
+            case QUEEN -> QUEEN;
+            case KING -> KING;
+        };
+    }
+
+    static ChessPiece.PieceType toPieceType(int type) {
+        return switch (type) {
+            case PAWN -> ChessPiece.PieceType.PAWN;
+            case KNIGHT -> ChessPiece.PieceType.KNIGHT;
+            case BISHOP -> ChessPiece.PieceType.BISHOP;
+            case ROOK -> ChessPiece.PieceType.ROOK;
+            case QUEEN -> ChessPiece.PieceType.QUEEN;
+            case KING -> ChessPiece.PieceType.KING;
+            default -> throw new IllegalArgumentException("Not a piece type: " + type);
+        };
+    }
+
+    public int pieceAt(int sq) {
+        return board[sq];
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    int castlingRights() {
+        return castling;
+    }
+
+    int enPassantSquare() {
+        return enPassant;
+    }
+
+    public boolean inCheck() {
+        return isAttacked(kingSquare[side], side ^ 1);
+    }
+
+    /**
+     * @return True if the side that just moved left its own king attacked, i.e. the last move was illegal.
+     */
+    boolean leftKingInCheck() {
+        return isAttacked(kingSquare[side ^ 1], side);
+    }
+
+    /**
+     * @return True if the current position occurred before with the same side to move since
+     *         the last capture or pawn move.
+     */
+    public boolean isRepetition() {
+        for (int i = historyLength - 2; i >= 0 && i >= historyLength - halfmoveClock; i -= 2) {
+            if (keyHistory[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if any piece of {@code bySide} attacks {@code sq}.
+     */
+    public boolean isAttacked(int sq, int bySide) {
+        return isAttacked(board, sq, bySide);
+    }
+
+    /**
+     * @return True if any piece of {@code bySide} on a board laid out like this class's attacks {@code sq}.
+     */
+    static boolean isAttacked(int[] board, int sq, int bySide) {
+        int colorBits = bySide == BLACK ? BLACK_BIT : 0;
+        // A pawn of bySide attacks sq from the squares a pawn of the other color on sq would attack.
+        for (int from : PAWN_ATTACKS[bySide ^ 1][sq]) {
+            if (board[from] == (PAWN | colorBits)) {
+                return true;
+            }
+        }
+        for (int from : KNIGHT_ATTACKS[sq]) {
+            if (board[from] == (KNIGHT | colorBits)) {
+                return true;
+            }
+        }
+        for (int from : KING_ATTACKS[sq]) {
+            if (board[from] == (KING | colorBits)) {
+                return true;
+            }
+        }
+        for (int dir = 0; dir < 8; dir++) {
+            int slider = dir < 4 ? ROOK : BISHOP;
+            for (int from : RAYS[dir][sq]) {
+                int piece = board[from];
+                if (piece != 0) {
+                    if (piece == (slider | colorBits) || piece == (QUEEN | colorBits)) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes pseudo-legal moves into {@code moves}. Moves that leave the king in check are
+     * included; callers reject them after {@link #makeMove} with {@link #leftKingInCheck}.
+     *
+     * @param capturesOnly generate only captures and promotions, for quiescence search.
+     * @return The number of moves written.
+     */
+    int generateMoves(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = side;
+        int colorBits = us == BLACK ? BLACK_BIT : 0;
+        for (int from = 0; from < 64; from++) {
+            int piece = board[from];
+            if (piece == 0 || colorOf(piece) != us) {
+                continue;
+            }
+            switch (typeOf(piece)) {
+                case PAWN -> count = generatePawnMoves(moves, count, from, capturesOnly);
+                case KNIGHT -> count = generateSteps(moves, count, from, KNIGHT_ATTACKS[from], capturesOnly);
+                case KING -> count = generateSteps(moves, count, from, KING_ATTACKS[from], capturesOnly);
+                case BISHOP -> count = generateSlides(moves, count, from, 4, 8, capturesOnly);
+                case ROOK -> count = generateSlides(moves, count, from, 0, 4, capturesOnly);
+                case QUEEN -> count = generateSlides(moves, count, from, 0, 8, capturesOnly);
+                default -> {
+                }
+            }
+        }
+        if (!capturesOnly && castling != 0) {
+            count = generateCastling(moves, count, colorBits);
+        }
+        return count;
+    }
+
+    private int generatePawnMoves(int[] moves, int count, int from, boolean capturesOnly) {
+        int forward = side == WHITE ? 8 : -8;
+        int startRow = side == WHITE ? 1 : 6;
+        int promotionRow = side == WHITE ? 7 : 0;
+        int to = from + forward;
+        if (board[to] == 0) {
+            if (to / 8 == promotionRow) {
+                count = addPromotions(moves, count, from, to);
+            } else if (!capturesOnly) {
+                moves[count++] = Move.of(from, to);
+                int twoAhead = to + forward;
+                if (from / 8 == startRow && board[twoAhead] == 0) {
+                    moves[count++] = Move.of(from, twoAhead, 0, Move.FLAG_DOUBLE_PUSH);
+                }
+            }
+        }
+        for (int target : PAWN_ATTACKS[side][from]) {
+            int victim = board[target];
+            if (victim != 0 && colorOf(victim) != side) {
+                if (target / 8 == promotionRow) {
+                    count = addPromotions(moves, count, from, target);
+                } else {
+                    moves[count++] = Move.of(from, target);
+                }
+            } else if (target == enPassant) {
+                moves[count++] = Move.of(from, target, 0, Move.FLAG_EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int from, int to) {
+        moves[count++] = Move.of(from, to, QUEEN, 0);
+        moves[count++] = Move.of(from, to, KNIGHT, 0);
+        moves[count++] = Move.of(from, to, ROOK, 0);
+        moves[count++] = Move.of(from, to, BISHOP, 0);
+        return count;
+    }
+
+    private int generateSteps(int[] moves, int count, int from, int[] targets, boolean capturesOnly) {
+        for (int to : targets) {
+            int target = board[to];
+            if (target == 0 ? !capturesOnly : colorOf(target) != side) {
+                moves[count++] = Move.of(from, to);
+            }
+        }
+        return count;
+    }
+
+    private int generateSlides(int[] moves, int count, int from, int firstDir, int lastDir, boolean capturesOnly) {
+        for (int dir = firstDir; dir < lastDir; dir++) {
+            for (int to : RAYS[dir][from]) {
+                int target = board[to];
+                if (target == 0) {
+                    if (!capturesOnly) {
+                        moves[count++] = Move.of(from, to);
+                    }
+                    continue;
+                }
+                if (colorOf(target) != side) {
+                    moves[count++] = Move.of(from, to);
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    private int generateCastling(int[] moves, int count, int colorBits) {
+        int kingFrom = side == WHITE ? 4 : 60;
+        int kingside = side == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = side == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        int enemy = side ^ 1;
+        if (board[kingFrom] != (KING | colorBits) || isAttacked(kingFrom, enemy)) {
+            return count;
+        }
+        if ((castling & kingside) != 0 && board[kingFrom + 3] == (ROOK | colorBits)
+                && board[kingFrom + 1] == 0 && board[kingFrom + 2] == 0
+                && !isAttacked(kingFrom + 1, enemy) && !isAttacked(kingFrom + 2, enemy)) {
+            moves[count++] = Move.of(kingFrom, kingFrom + 2, 0, Move.FLAG_CASTLE);
+        }
+        if ((castling & queenside) != 0 && board[kingFrom - 4] == (ROOK | colorBits)
+                && board[kingFrom - 1] == 0 && board[kingFrom - 2] == 0 && board[kingFrom - 3] == 0
+                && !isAttacked(kingFrom - 1, enemy) && !isAttacked(kingFrom - 2, enemy)) {
+            moves[count++] = Move.of(kingFrom, kingFrom - 2, 0, Move.FLAG_CASTLE);
+        }
+        return count;
+    }
+
+    /**
+     * @return Every legal move in the position.
+     */
+    public int[] legalMoves() {
+        int[] buffer = new int[256];
+        int count = generateMoves(buffer, false);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            makeMove(buffer[i]);
+            if (!leftKingInCheck()) {
+                buffer[legal++] = buffer[i];
+            }
+            unmakeMove(buffer[i]);
+        }
+        return Arrays.copyOf(buffer, legal);
+    }
+
+    /**
+     * Applies a pseudo-legal move. Every call must be matched by {@link #unmakeMove} with the same move.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        int piece = board[from];
+        int captured = board[to];
+
+        if (historyLength == keyHistory.length) {
+            growHistory();
+        }
+        keyHistory[historyLength] = key;
+        castlingHistory[historyLength] = castling;
+        enPassantHistory[historyLength] = enPassant;
+        halfmoveHistory[historyLength] = halfmoveClock;
+
+        if (enPassant >= 0) {
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+            enPassant = -1;
+        }
+
+        if (flag == Move.FLAG_EN_PASSANT) {
+            int capturedSquare = side == WHITE ? to - 8 : to + 8;
+            captured = board[capturedSquare];
+            board[capturedSquare] = 0;
+            key ^= Zobrist.PIECES[captured][capturedSquare];
+        } else if (captured != 0) {
+            key ^= Zobrist.PIECES[captured][to];
+        }
+        capturedHistory[historyLength] = captured;
+        historyLength++;
+
+        board[from] = 0;
+        key ^= Zobrist.PIECES[piece][from];
+        int promotion = Move.promotion(move);
+        int placed = promotion != 0 ? promotion | (piece & BLACK_BIT) : piece;
+        board[to] = placed;
+        key ^= Zobrist.PIECES[placed][to];
+
+        if (typeOf(piece) == KING) {
+            kingSquare[side] = to;
+            if (flag == Move.FLAG_CASTLE) {
+                int rookFrom = to > from ? from + 3 : from - 4;
+                int rookTo = to > from ? from + 1 : from - 1;
+                int rook = board[rookFrom];
+                board[rookFrom] = 0;
+                board[rookTo] = rook;
+                key ^= Zobrist.PIECES[rook][rookFrom] ^ Zobrist.PIECES[rook][rookTo];
+            }
+        } else if (flag == Move.FLAG_DOUBLE_PUSH && hasPawnBeside(to, side ^ 1)) {
+            enPassant = (from + to) / 2;
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+        }
+
+        key ^= Zobrist.CASTLING[castling];
+        castling &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castling];
+
+        halfmoveClock = typeOf(piece) == PAWN || captured != 0 ? 0 : halfmoveClock + 1;
+        side ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    /**
+     * Reverts the most recent {@link #makeMove}.
+     */
+    public void unmakeMove(int move) {
+        side ^= 1;
+        historyLength--;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        int placed = board[to];
+        int piece = Move.promotion(move) != 0 ? PAWN | (placed & BLACK_BIT) : placed;
+        int captured = capturedHistory[historyLength];
+
+        board[from] = piece;
+        if (flag == Move.FLAG_EN_PASSANT) {
+            board[to] = 0;
+            board[side == WHITE ? to - 8 : to + 8] = captured;
+        } else {
+            board[to] = captured;
+        }
+        if (typeOf(piece) == KING) {
+            kingSquare[side] = from;
+            if (flag == Move.FLAG_CASTLE) {
+                int rookFrom = to > from ? from + 3 : from - 4;
+                int rookTo = to > from ? from + 1 : from - 1;
+                board[rookFrom] = board[rookTo];
+                board[rookTo] = 0;
+            }
+        }
+
+        key = keyHistory[historyLength];
+        castling = castlingHistory[historyLength];
+        enPassant = enPassantHistory[historyLength];
+        halfmoveClock = halfmoveHistory[historyLength];
+    }
+
+    private void growHistory() {
+        int size = keyHistory.length * 2;
+        keyHistory = Arrays.copyOf(keyHistory, size);
+        capturedHistory = Arrays.copyOf(capturedHistory, size);
+        castlingHistory = Arrays.copyOf(castlingHistory, size);
+        enPassantHistory = Arrays.copyOf(enPassantHistory, size);
+        halfmoveHistory = Arrays.copyOf(halfmoveHistory, size);
+    }
+
+    /**
+     * The en passant square is only kept while a pawn can use it, so that positions which only
+     * differ by an unusable en passant square have the same key, as they do in ChessGame.
+     *
+     * @return True if a pawn of the given side stands next to the square.
+     */
+    private boolean hasPawnBeside(int sq, int pawnSide) {
+        int pawn = PAWN | (pawnSide == BLACK ? BLACK_BIT : 0);
+        return sq % 8 > 0 && board[sq - 1] == pawn || sq % 8 < 7 && board[sq + 1] == pawn;
+    }
+
+    /**
+     * Finds the legal move matching a ChessMove, so moves from the game can be applied here.
+     *
+     * @return The encoded move, or {@link Move#NONE} if it is not legal in this position.
+     */
+    public int findMove(ChessMove move) {
+        int from = Move.square(move.getStartPosition());
+        int to = Move.square(move.getEndPosition());
+        int promotion = Move.promotionType(move.getPromotionPiece());
+        for (int candidate : legalMoves()) {
+            if (Move.from(candidate) == from && Move.to(candidate) == to && Move.promotion(candidate) == promotion) {
+                return candidate;
+            }
+        }
+        return Move.NONE;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
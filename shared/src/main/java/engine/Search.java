@@ -0,0 +1,346 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One search over a {@link Position}: iterative deepening around a negamax alpha-beta search
+ * with principal variation search, a check extension and a captures-only quiescence search.
+ * Moves are ordered by the previous iteration's principal variation, then captures by
+ * most valuable victim / least valuable attacker, then killer moves, then the history table.
+ * Results go into a {@link TranspositionTable} that may be shared with other searches.
+ * <p>
+ * For Lazy SMP, several Searches run the same root on their own threads against one table.
+ * Only the main search watches the clock; helpers run until the shared stop flag is set and
+ * help only by filling the table, since their different move timing makes each thread find
+ * different parts of the tree first.
+ * <p>
+ * A Search is single-use and not thread-safe; it owns the position it is given.
+ */
+final class Search {
+    static final int MAX_PLY = 128;
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    static final int MATE_THRESHOLD = MATE - MAX_PLY;
+
+    private static final int MAX_MOVES = 256;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final int PV_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int FIRST_KILLER_SCORE = 90_000;
+    private static final int SECOND_KILLER_SCORE = 80_000;
+    private static final int HISTORY_LIMIT = 50_000;
+
+    private final Position position;
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final AtomicBoolean stop;
+    private final int helperId;
+    private final int[][] moves = new int[MAX_PLY][MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] previousPv = new int[0];
+
+    private long nodes;
+    private long deadline;
+    private boolean timed;
+    private boolean stopped;
+    private int currentDepth;
+
+    /**
+     * @param tablebase endgame tables to stop at, or null.
+     * @param helperId  0 for the main search, which owns the clock and the result; a positive
+     *                  number for a Lazy SMP helper.
+     */
+    Search(Position position, TranspositionTable table, Tablebase tablebase, AtomicBoolean stop, int helperId) {
+        this.position = position;
+        this.table = table;
+        this.tablebase = tablebase;
+        this.stop = stop;
+        this.helperId = helperId;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    SearchResult run(SearchLimits limits) {
+        long start = System.nanoTime();
+        timed = limits.timeMillis() > 0;
+        deadline = start + limits.timeMillis() * 1_000_000;
+        int maxDepth = limits.maxDepth() > 0 ? Math.min(limits.maxDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        // Odd helpers start one ply deeper so the threads are not all on the same iteration.
+        for (int depth = 1 + (helperId & 1); depth <= maxDepth; depth++) {
+            currentDepth = depth;
+            int score = search(depth, -INFINITY, INFINITY, 0);
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            bestScore = score;
+            previousPv = Arrays.copyOf(pv[0], pvLength[0]);
+            bestMove = previousPv.length > 0 ? previousPv[0] : Move.NONE;
+            if (bestMove == Move.NONE || Math.abs(score) >= MATE_THRESHOLD && MATE - Math.abs(score) <= depth) {
+                // No legal moves, or a mate that a deeper search cannot shorten.
+                break;
+            }
+            // Another iteration costs several times the last one; do not start what cannot finish.
+            if (timed && System.nanoTime() - start > limits.timeMillis() * 500_000) {
+                break;
+            }
+        }
+
+        List<ChessMove> line = new ArrayList<>();
+        for (int move : previousPv) {
+            line.add(Move.toChessMove(move));
+        }
+        return new SearchResult(bestMove == Move.NONE ? null : Move.toChessMove(bestMove), bestScore,
+                completedDepth, List.copyOf(line), nodes, (System.nanoTime() - start) / 1_000_000, false);
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (position.isRepetition() || position.halfmoveClock() >= 100)) {
+            return 0;
+        }
+        // The piece count only drops on a capture, so only positions right after one can have entered the tables.
+        if (ply > 0 && tablebase != null && position.halfmoveClock() == 0) {
+            int score = tablebase.probe(position);
+            if (score != Tablebase.NOT_FOUND) {
+                return TranspositionTable.fromStored(score, ply);
+            }
+        }
+        boolean inCheck = position.inCheck();
+        if (inCheck && ply < MAX_PLY / 2) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(position);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        int hashMove = Move.NONE;
+        long entry = table.probe(position.key());
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            // Cut only in null-window nodes so the principal variation stays intact.
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.fromStored(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || bound == TranspositionTable.BOUND_LOWER && score >= beta
+                        || bound == TranspositionTable.BOUND_UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+        if (hashMove == Move.NONE && ply < previousPv.length) {
+            hashMove = previousPv[ply];
+        }
+
+        int[] list = moves[ply];
+        int count = position.generateMoves(list, false);
+        scoreMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            boolean quiet = isQuiet(move);
+            position.makeMove(move);
+            if (position.leftKingInCheck()) {
+                position.unmakeMove(move);
+                continue;
+            }
+            legal++;
+            int score;
+            if (legal == 1) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            position.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (quiet) {
+                            rememberCutoff(ply, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (legal == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(position.key(), bestMove, TranspositionTable.toStored(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (countNode()) {
+            return 0;
+        }
+        int standPat = Evaluator.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] list = moves[ply];
+        int count = position.generateMoves(list, true);
+        scoreMoves(ply, count, Move.NONE);
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            position.makeMove(move);
+            if (position.leftKingInCheck()) {
+                position.unmakeMove(move);
+                continue;
+            }
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            position.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePv(ply, move);
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and, every {@value #TIME_CHECK_INTERVAL} nodes, checks the clock and the
+     * shared stop flag. The main search always finishes its first iteration so there is a move
+     * to return.
+     *
+     * @return True if the search must stop.
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes % TIME_CHECK_INTERVAL == 0 && (helperId > 0 || currentDepth > 1)
+                && (stop.get() || timed && System.nanoTime() > deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private boolean isQuiet(int move) {
+        return position.pieceAt(Move.to(move)) == 0 && Move.promotion(move) == 0
+                && Move.flag(move) != Move.FLAG_EN_PASSANT;
+    }
+
+    private void scoreMoves(int ply, int count, int pvMove) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int side = position.sideToMove();
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int victim = Position.typeOf(position.pieceAt(Move.to(move)));
+            if (Move.flag(move) == Move.FLAG_EN_PASSANT) {
+                victim = Position.PAWN;
+            }
+            if (move == pvMove) {
+                scores[i] = PV_SCORE;
+            } else if (victim != 0 || Move.promotion(move) != 0) {
+                int attacker = Position.typeOf(position.pieceAt(Move.from(move)));
+                scores[i] = CAPTURE_SCORE + (victim + Move.promotion(move)) * 16 - attacker;
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = history[side][Move.from(move)][Move.to(move)];
+            }
+        }
+    }
+
+    /**
+     * Selection sort one step at a time: most nodes cut off after a move or two, so sorting
+     * the whole list up front would be wasted work.
+     */
+    private int pickMove(int ply, int index, int count) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        for (int i = ply + 1; i < childLength; i++) {
+            pv[ply][i] = pv[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private void rememberCutoff(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] row = history[position.sideToMove()][Move.from(move)];
+        row[Move.to(move)] += depth * depth;
+        if (row[Move.to(move)] > HISTORY_LIMIT) {
+            for (int[][] side : history) {
+                for (int[] from : side) {
+                    for (int to = 0; to < 64; to++) {
+                        from[to] /= 2;
+                    }
+                }
+            }
+        }
+    }
+}
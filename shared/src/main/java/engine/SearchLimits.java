@@ -0,0 +1,15 @@
+package engine;
+
+/**
+ * Bounds for one search. The search stops at whichever limit is reached first; a depth of 0
+ * or a time of 0 means that limit is not used. At least one ply is always searched.
+ */
+public record SearchLimits(int maxDepth, long timeMillis) {
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis);
+    }
+}
@@ -0,0 +1,23 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of a search. The score is in centipawns from the point of view of the side to
+ * move; {@link #isMate()} tells whether it is a forced mate. The best move is null
+ * only when the side to move has no legal moves. A move taken from the opening book was not
+ * searched: its score and depth are 0.
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, List<ChessMove> principalVariation,
+                           long nodes, long elapsedMillis, boolean fromBook) {
+
+    static SearchResult book(ChessMove move) {
+        return new SearchResult(move, 0, 0, List.of(move), 0, 0, true);
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_THRESHOLD;
+    }
+}
@@ -0,0 +1,405 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Endgame tables for positions with at most {@value #MAX_PIECES} pieces, kings included. Each
+ * table covers one material balance (e.g. "KQvKR": white king and queen against black king
+ * and rook; the other colors are looked up by mirroring the board) and gives the exact result
+ * of every position with the number of plies to mate under best play.
+ * <p>
+ * Tables are built by retrograde analysis (see {@link TablebaseGenerator}) and kept in a
+ * directory, one memory-mapped file per table. A file is a header (magic number and entry
+ * count, big-endian) followed by one byte per position: 0 for a draw, 1 for an illegal
+ * position, or 2 plus the plies to mate, which are odd when the side to move wins. Positions
+ * are indexed by side to move and the squares of the pieces, with the white king folded into
+ * one quarter of the board (one half with pawns) by mirroring. Castling and en passant are
+ * not covered; positions where either is possible are not found.
+ * <p>
+ * Probing is thread-safe, and tables may be added while other threads probe.
+ */
+public final class Tablebase {
+    public static final int MAX_PIECES = 4;
+    /** Returned by {@link #probe} for positions no table covers. */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    static final int DRAW = 0;
+    static final int ILLEGAL = 1;
+    static final int MAX_PLIES = 253;
+
+    private static final int MAGIC = 0x43544231; // "CTB1"
+    private static final int HEADER_BYTES = 8;
+    private static final String SUFFIX = ".tb";
+    // Piece letters from strongest to weakest; tables list each side's pieces in this order.
+    private static final String LETTERS = "QRBNP";
+    private static final int[] TYPES = {Position.QUEEN, Position.ROOK, Position.BISHOP, Position.KNIGHT, Position.PAWN};
+
+    /**
+     * The index layout of one material balance: which piece is at which slot, and how many
+     * positions there are. Slot 0 is the white king and slot 1 the black king.
+     */
+    static final class Table {
+        final String name;
+        final long signature;
+        final int[] codes;
+        final boolean pawns;
+        final int kingSquares;
+        final int size;
+        volatile ByteBuffer data;
+
+        Table(long signature) {
+            this.signature = signature;
+            int count = 2;
+            for (int field = 0; field < 16; field++) {
+                count += (int) (signature >>> 4 * field & 0xF);
+            }
+            this.codes = new int[count];
+            codes[0] = Position.KING;
+            codes[1] = Position.KING | Position.BLACK_BIT;
+            StringBuilder white = new StringBuilder("K");
+            StringBuilder black = new StringBuilder("K");
+            int slot = 2;
+            boolean hasPawns = false;
+            for (int color = 0; color < 2; color++) {
+                for (int i = 0; i < TYPES.length; i++) {
+                    for (int k = count(signature, color, TYPES[i]); k > 0; k--) {
+                        codes[slot++] = TYPES[i] | (color == 1 ? Position.BLACK_BIT : 0);
+                        (color == 0 ? white : black).append(LETTERS.charAt(i));
+                        hasPawns |= TYPES[i] == Position.PAWN;
+                    }
+                }
+            }
+            this.name = white + "v" + black;
+            this.pawns = hasPawns;
+            this.kingSquares = hasPawns ? 32 : 16;
+            this.size = 2 * kingSquares * (1 << 6 * (count - 1));
+        }
+
+        /**
+         * @param squares the square of the piece at each slot; not modified.
+         * @return The index of the position, after mirroring the white king into its region.
+         */
+        int index(int[] squares, int side) {
+            int wk = squares[0];
+            int mirror = (wk % 8 >= 4 ? 7 : 0) ^ (!pawns && wk / 8 >= 4 ? 56 : 0);
+            wk ^= mirror;
+            int index = side * kingSquares + (wk / 8) * 4 + wk % 8;
+            for (int slot = 1; slot < codes.length; slot++) {
+                index = index * 64 + (squares[slot] ^ mirror);
+            }
+            return index;
+        }
+
+        /**
+         * Fills in the squares of a position from its index.
+         *
+         * @return The side to move.
+         */
+        int decode(int index, int[] squares) {
+            for (int slot = codes.length - 1; slot >= 1; slot--) {
+                squares[slot] = index & 63;
+                index >>>= 6;
+            }
+            int wk = index % kingSquares;
+            squares[0] = (wk / 4) * 8 + wk % 4;
+            return index / kingSquares;
+        }
+
+        int value(int index) {
+            return data.get(HEADER_BYTES + index) & 0xFF;
+        }
+    }
+
+    private final Path directory;
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
+
+    private Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Maps every table in a directory, creating the directory if needed.
+     *
+     * @throws IOException If the directory or a table cannot be read.
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Tablebase tablebase = new Tablebase(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                tablebase.load(layout(name.substring(0, name.length() - SUFFIX.length())), file);
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return The names of the tables available, e.g. "KQvKR".
+     */
+    public Set<String> tables() {
+        Set<String> names = new TreeSet<>();
+        for (Table table : tables.values()) {
+            names.add(table.name);
+        }
+        return names;
+    }
+
+    /**
+     * @return True if the table for this material balance is available, in either color order.
+     */
+    public boolean has(String name) {
+        return tables.containsKey(layout(name).signature);
+    }
+
+    /**
+     * Builds a table and any smaller tables it depends on that are missing, writes them to the
+     * directory and maps them. Does nothing if the table is already available. Building a
+     * four-piece table takes seconds to minutes and up to a few times its file size in memory.
+     *
+     * @param name a material balance such as "KRvKP".
+     * @throws IllegalArgumentException If the name is not a balance of at most {@value #MAX_PIECES} pieces.
+     */
+    public synchronized void generate(String name) throws IOException {
+        generate(layout(name));
+    }
+
+    private void generate(Table table) throws IOException {
+        if (tables.containsKey(table.signature)) {
+            return;
+        }
+        for (long dependency : dependencies(table)) {
+            generate(new Table(dependency));
+        }
+        byte[] values = new TablebaseGenerator(this, table).run();
+        ByteBuffer file = ByteBuffer.allocate(HEADER_BYTES + values.length).order(ByteOrder.BIG_ENDIAN);
+        file.putInt(MAGIC).putInt(values.length).put(values);
+        Path path = directory.resolve(table.name + SUFFIX);
+        Path temp = directory.resolve(table.name + SUFFIX + ".tmp");
+        Files.write(temp, file.array());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        load(table, path);
+    }
+
+    // The tables reached by a capture or a promotion, other than the bare kings.
+    private static Set<Long> dependencies(Table table) {
+        Set<Long> result = new TreeSet<>();
+        for (int slot = 2; slot < table.codes.length; slot++) {
+            int code = table.codes[slot];
+            long without = table.signature - unit(code);
+            if (without != 0) {
+                result.add(canonical(without));
+            }
+            if (Position.typeOf(code) == Position.PAWN) {
+                for (int type : new int[]{Position.QUEEN, Position.ROOK, Position.BISHOP, Position.KNIGHT}) {
+                    result.add(canonical(without + unit(type | code & Position.BLACK_BIT)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void load(Table table, Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() != HEADER_BYTES + table.size || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != table.size) {
+            throw new IOException("Not a tablebase file for " + table.name + ": " + file);
+        }
+        table.data = buffer;
+        tables.put(table.signature, table);
+    }
+
+    /**
+     * Looks up a position in the tables.
+     *
+     * @return {@link #NOT_FOUND} if no table covers the position; otherwise 0 for a draw, or a
+     * mate score from the side to move's point of view, as the search uses: larger the sooner
+     * the side to move mates, and negative if it is mated.
+     */
+    public int probe(Position position) {
+        if (position.castlingRights() != 0 || position.enPassantSquare() >= 0) {
+            return NOT_FOUND;
+        }
+        int[] codes = new int[MAX_PIECES];
+        int[] squares = new int[MAX_PIECES];
+        int count = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.pieceAt(sq);
+            if (piece != 0) {
+                if (count == MAX_PIECES) {
+                    return NOT_FOUND;
+                }
+                codes[count] = piece;
+                squares[count++] = sq;
+            }
+        }
+        return score(value(codes, squares, count, position.sideToMove()));
+    }
+
+    /**
+     * Chooses the move that wins fastest, or draws, or loses slowest, according to the tables.
+     *
+     * @return The move, or {@link Move#NONE} if the position or one of its successors is not covered.
+     */
+    int bestMove(Position position) {
+        if (probe(position) == NOT_FOUND) {
+            return Move.NONE;
+        }
+        int best = Move.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int move : position.legalMoves()) {
+            position.makeMove(move);
+            int score = probe(position);
+            position.unmakeMove(move);
+            if (score == NOT_FOUND) {
+                return Move.NONE;
+            }
+            if (-score > bestScore) {
+                bestScore = -score;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    static int score(int value) {
+        if (value < 0 || value == ILLEGAL) {
+            return NOT_FOUND;
+        }
+        if (value == DRAW) {
+            return 0;
+        }
+        int plies = value - 2;
+        return plies % 2 == 1 ? Search.MATE - plies : -(Search.MATE - plies);
+    }
+
+    /**
+     * Looks up the stored value of a position given as a list of pieces in any order, with
+     * exactly one king of each color.
+     *
+     * @return The stored byte (see the class comment), or -1 if no table covers the position.
+     */
+    int value(int[] codes, int[] squares, int count, int side) {
+        if (count == 2) {
+            return DRAW;
+        }
+        long signature = 0;
+        for (int i = 0; i < count; i++) {
+            signature += unit(codes[i]);
+        }
+        boolean flip = canonical(signature) != signature;
+        Table table = tables.get(flip ? flip(signature) : signature);
+        if (table == null) {
+            return -1;
+        }
+        int colorSwap = flip ? Position.BLACK_BIT : 0;
+        int rankSwap = flip ? 56 : 0;
+        int[] placed = new int[count];
+        int used = 0;
+        for (int slot = 0; slot < count; slot++) {
+            for (int i = 0; i < count; i++) {
+                if ((used & 1 << i) == 0 && (codes[i] ^ colorSwap) == table.codes[slot]) {
+                    used |= 1 << i;
+                    placed[slot] = squares[i] ^ rankSwap;
+                    break;
+                }
+            }
+        }
+        return table.value(table.index(placed, flip ? side ^ 1 : side));
+    }
+
+    // Piece counts, four bits for each color and type; kings are not counted.
+    static long unit(int code) {
+        int type = Position.typeOf(code);
+        return type == Position.KING ? 0 : 1L << 4 * (Position.colorOf(code) * 8 + type);
+    }
+
+    private static int count(long signature, int color, int type) {
+        return (int) (signature >>> 4 * (color * 8 + type) & 0xF);
+    }
+
+    private static long flip(long signature) {
+        return signature >>> 32 | signature << 32;
+    }
+
+    /**
+     * @return The signature with the stronger side as white: more pieces, or else stronger
+     * pieces comparing queens first. Equal sides are left as they are.
+     */
+    static long canonical(long signature) {
+        int whiteCount = 0;
+        int blackCount = 0;
+        for (int type : TYPES) {
+            whiteCount += count(signature, 0, type);
+            blackCount += count(signature, 1, type);
+        }
+        if (whiteCount != blackCount) {
+            return whiteCount > blackCount ? signature : flip(signature);
+        }
+        for (int type : TYPES) {
+            int difference = count(signature, 0, type) - count(signature, 1, type);
+            if (difference != 0) {
+                return difference > 0 ? signature : flip(signature);
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Parses a name like "KRvKP" into its table layout, with the stronger side as white.
+     */
+    static Table layout(String name) {
+        String[] sides = name.toUpperCase().split("V", -1);
+        if (sides.length != 2 || !sides[0].startsWith("K") || !sides[1].startsWith("K")
+                || sides[0].length() + sides[1].length() > MAX_PIECES || sides[0].length() + sides[1].length() < 3) {
+            throw new IllegalArgumentException("Not a table of 3 to " + MAX_PIECES + " pieces: " + name);
+        }
+        long signature = 0;
+        for (int color = 0; color < 2; color++) {
+            for (char letter : sides[color].substring(1).toCharArray()) {
+                int i = LETTERS.indexOf(letter);
+                if (i < 0) {
+                    throw new IllegalArgumentException("Bad piece " + letter + " in " + name);
+                }
+                signature += unit(TYPES[i] | (color == 1 ? Position.BLACK_BIT : 0));
+            }
+        }
+        return new Table(canonical(signature));
+    }
+
+    /**
+     * Builds tables into a directory.
+     * <p>
+     * Usage: {@code Tablebase <directory> <table>...}, e.g. {@code Tablebase tb KQvK KRvK KQvKR}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Tablebase <directory> <table>...");
+            System.exit(2);
+        }
+        Tablebase tablebase = open(Path.of(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            long start = System.nanoTime();
+            tablebase.generate(args[i]);
+            System.out.println(args[i] + " ready in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        System.out.println("Tables: " + tablebase.tables());
+    }
+}
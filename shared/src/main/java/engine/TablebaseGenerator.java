@@ -0,0 +1,420 @@
+package engine;
+
+/**
+ * Builds one endgame table by retrograde analysis.
+ * <p>
+ * A first pass marks illegal positions and checkmates, and scores the moves that leave the
+ * table (captures and promotions) from the smaller tables, which must already be available.
+ * Then the results spread backwards one ply at a time: every position that can move into a
+ * position lost for the opponent in n plies is won in n + 1, and a position becomes lost once
+ * every one of its moves leads to a win for the opponent. Positions never resolved are draws.
+ * Predecessors are found by un-making moves, so each pass only visits positions next to the
+ * ones just resolved.
+ * <p>
+ * A generator is single-use and not thread-safe.
+ */
+final class TablebaseGenerator {
+    private static final int[] PROMOTIONS = {Position.QUEEN, Position.ROOK, Position.BISHOP, Position.KNIGHT};
+
+    private final Tablebase tablebase;
+    private final Tablebase.Table table;
+    private final int pieces;
+    private final byte[] values;
+    // Plies to mate of the fastest win that leaves the table, or 0; applied when the passes reach it.
+    private final byte[] exitWins;
+
+    private final int[] board = new int[64];
+    private final int[] squares;
+    private final int[] childSquares;
+    private final int[] exitCodes;
+    private final int[] exitSquares;
+    private final int[] predecessors = new int[256];
+
+    // The moves of the position on the board: piece slot, target square and promotion type (or 0).
+    private final int[] moveSlots = new int[256];
+    private final int[] moveTargets = new int[256];
+    private final int[] movePromotions = new int[256];
+
+    // Set by childValue: whether the move left the table.
+    private boolean exit;
+
+    TablebaseGenerator(Tablebase tablebase, Tablebase.Table table) {
+        this.tablebase = tablebase;
+        this.table = table;
+        this.pieces = table.codes.length;
+        this.values = new byte[table.size];
+        this.exitWins = new byte[table.size];
+        this.squares = new int[pieces];
+        this.childSquares = new int[pieces];
+        this.exitCodes = new int[pieces];
+        this.exitSquares = new int[pieces];
+    }
+
+    byte[] run() {
+        int highest = initialize();
+        for (int plies = 0; plies <= highest; plies++) {
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] == Tablebase.DRAW && exitWins[index] == plies && plies > 0) {
+                    values[index] = (byte) (plies + 2);
+                }
+                if ((values[index] & 0xFF) == plies + 2) {
+                    highest = Math.max(highest, propagate(index, plies));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Marks illegal positions and mates, and finds the results decided by moves out of the table.
+     *
+     * @return The most plies to mate recorded.
+     */
+    private int initialize() {
+        int highest = 0;
+        for (int index = 0; index < values.length; index++) {
+            int side = table.decode(index, squares);
+            if (!place()) {
+                values[index] = Tablebase.ILLEGAL;
+                continue;
+            }
+            if (Position.isAttacked(board, squares[side ^ 1], side)) {
+                // The side that just moved left its king in check.
+                values[index] = Tablebase.ILLEGAL;
+                clear();
+                continue;
+            }
+            int count = generate(side);
+            int legal = 0;
+            boolean stays = false;
+            boolean allWon = true;
+            int fastestWin = Integer.MAX_VALUE;
+            int slowestLoss = 0;
+            for (int i = 0; i < count; i++) {
+                int value = childValue(i, side);
+                if (value < 0) {
+                    continue;
+                }
+                legal++;
+                if (!exit) {
+                    stays = true;
+                    continue;
+                }
+                int plies = value - 2;
+                if (value >= 2 && plies % 2 == 0) {
+                    fastestWin = Math.min(fastestWin, plies + 1);
+                }
+                if (value >= 2 && plies % 2 == 1) {
+                    slowestLoss = Math.max(slowestLoss, plies + 1);
+                } else {
+                    allWon = false;
+                }
+            }
+            if (legal == 0) {
+                // Checkmate, or stalemate which stays a draw.
+                if (Position.isAttacked(board, squares[side], side ^ 1)) {
+                    values[index] = 2;
+                }
+            } else if (fastestWin != Integer.MAX_VALUE) {
+                exitWins[index] = (byte) checkPlies(fastestWin);
+                highest = Math.max(highest, fastestWin);
+            } else if (!stays && allWon) {
+                values[index] = (byte) (checkPlies(slowestLoss) + 2);
+                highest = Math.max(highest, slowestLoss);
+            }
+            clear();
+        }
+        return highest;
+    }
+
+    /**
+     * Resolves the predecessors of a position that was just resolved.
+     *
+     * @return The most plies to mate recorded.
+     */
+    private int propagate(int index, int plies) {
+        int side = table.decode(index, squares);
+        place();
+        int mover = side ^ 1;
+        int count = 0;
+        for (int slot = 0; slot < pieces; slot++) {
+            if (Position.colorOf(table.codes[slot]) == mover) {
+                count = unmoves(slot, mover, count);
+            }
+        }
+        clear();
+
+        int highest = 0;
+        for (int i = 0; i < count; i++) {
+            int predecessor = predecessors[i];
+            if (values[predecessor] != Tablebase.DRAW) {
+                continue;
+            }
+            if (plies % 2 == 0) {
+                // Moving here wins: the opponent is lost.
+                values[predecessor] = (byte) (checkPlies(plies + 1) + 2);
+                highest = Math.max(highest, plies + 1);
+            } else {
+                int loss = lossPlies(predecessor);
+                if (loss > 0) {
+                    values[predecessor] = (byte) (loss + 2);
+                    highest = Math.max(highest, loss);
+                }
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * @return The plies to mate if every move from the position leads to a win for the
+     * opponent, or 0 if some move does not (yet).
+     */
+    private int lossPlies(int index) {
+        int side = table.decode(index, squares);
+        place();
+        int count = generate(side);
+        int slowest = 0;
+        for (int i = 0; i < count; i++) {
+            int value = childValue(i, side);
+            if (value < 0) {
+                continue;
+            }
+            int plies = value - 2;
+            if (value < 2 || plies % 2 == 0) {
+                slowest = 0;
+                break;
+            }
+            slowest = Math.max(slowest, plies + 1);
+        }
+        clear();
+        return slowest == 0 ? 0 : checkPlies(slowest);
+    }
+
+    private static int checkPlies(int plies) {
+        if (plies > Tablebase.MAX_PLIES) {
+            throw new IllegalStateException("Mate too long to store: " + plies + " plies");
+        }
+        return plies;
+    }
+
+    /**
+     * Puts the pieces of {@link #squares} on the board.
+     *
+     * @return False, leaving the board empty, if two pieces share a square or a pawn is on the first or last rank.
+     */
+    private boolean place() {
+        for (int slot = 0; slot < pieces; slot++) {
+            int sq = squares[slot];
+            int code = table.codes[slot];
+            if (board[sq] != 0 || Position.typeOf(code) == Position.PAWN && (sq < 8 || sq >= 56)) {
+                clear();
+                return false;
+            }
+            board[sq] = code;
+        }
+        return true;
+    }
+
+    private void clear() {
+        for (int slot = 0; slot < pieces; slot++) {
+            board[squares[slot]] = 0;
+        }
+    }
+
+    /**
+     * Lists the pseudo-legal moves of a side on the board.
+     *
+     * @return The number of moves.
+     */
+    private int generate(int side) {
+        int count = 0;
+        for (int slot = 0; slot < pieces; slot++) {
+            int code = table.codes[slot];
+            if (Position.colorOf(code) != side) {
+                continue;
+            }
+            int from = squares[slot];
+            switch (Position.typeOf(code)) {
+                case Position.KING -> count = steps(slot, side, Position.KING_ATTACKS[from], count);
+                case Position.KNIGHT -> count = steps(slot, side, Position.KNIGHT_ATTACKS[from], count);
+                case Position.BISHOP -> count = slides(slot, side, 4, 8, count);
+                case Position.ROOK -> count = slides(slot, side, 0, 4, count);
+                case Position.QUEEN -> count = slides(slot, side, 0, 8, count);
+                case Position.PAWN -> count = pawnMoves(slot, side, count);
+                default -> throw new IllegalStateException("Unknown piece " + code);
+            }
+        }
+        return count;
+    }
+
+    private int steps(int slot, int side, int[] targets, int count) {
+        for (int to : targets) {
+            if (canEnter(to, side)) {
+                count = add(slot, to, 0, count);
+            }
+        }
+        return count;
+    }
+
+    private int slides(int slot, int side, int firstDirection, int lastDirection, int count) {
+        for (int dir = firstDirection; dir < lastDirection; dir++) {
+            for (int to : Position.RAYS[dir][squares[slot]]) {
+                if (canEnter(to, side)) {
+                    count = add(slot, to, 0, count);
+                }
+                if (board[to] != 0) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int pawnMoves(int slot, int side, int count) {
+        int from = squares[slot];
+        int forward = side == Position.WHITE ? 8 : -8;
+        int one = from + forward;
+        if (board[one] == 0) {
+            count = pawnMove(slot, one, count);
+            int startRow = side == Position.WHITE ? 1 : 6;
+            if (from / 8 == startRow && board[one + forward] == 0) {
+                count = add(slot, one + forward, 0, count);
+            }
+        }
+        for (int to : Position.PAWN_ATTACKS[side][from]) {
+            if (board[to] != 0 && canEnter(to, side)) {
+                count = pawnMove(slot, to, count);
+            }
+        }
+        return count;
+    }
+
+    private int pawnMove(int slot, int to, int count) {
+        if (to < 8 || to >= 56) {
+            for (int promotion : PROMOTIONS) {
+                count = add(slot, to, promotion, count);
+            }
+            return count;
+        }
+        return add(slot, to, 0, count);
+    }
+
+    // Empty, or an enemy piece other than the king.
+    private boolean canEnter(int to, int side) {
+        int piece = board[to];
+        return piece == 0 || Position.colorOf(piece) != side && Position.typeOf(piece) != Position.KING;
+    }
+
+    private int add(int slot, int to, int promotion, int count) {
+        moveSlots[count] = slot;
+        moveTargets[count] = to;
+        movePromotions[count] = promotion;
+        return count + 1;
+    }
+
+    /**
+     * Plays a generated move on a copy of the position and looks up the result. Moves that stay
+     * in the table read this table; captures and promotions read the smaller tables.
+     *
+     * @return The stored value of the position after the move (see {@link Tablebase}), or -1
+     * if the move leaves the mover's king in check.
+     */
+    private int childValue(int move, int side) {
+        int slot = moveSlots[move];
+        int from = squares[slot];
+        int to = moveTargets[move];
+        int promotion = movePromotions[move];
+        int captured = board[to];
+        int moved = promotion != 0 ? promotion | (table.codes[slot] & Position.BLACK_BIT) : table.codes[slot];
+
+        board[from] = 0;
+        board[to] = moved;
+        int king = slot == side ? to : squares[side];
+        boolean legal = !Position.isAttacked(board, king, side ^ 1);
+        board[to] = captured;
+        board[from] = table.codes[slot];
+        if (!legal) {
+            return -1;
+        }
+
+        exit = captured != 0 || promotion != 0;
+        if (!exit) {
+            System.arraycopy(squares, 0, childSquares, 0, pieces);
+            childSquares[slot] = to;
+            return values[table.index(childSquares, side ^ 1)] & 0xFF;
+        }
+        int count = 0;
+        for (int i = 0; i < pieces; i++) {
+            if (squares[i] == to && i != slot) {
+                continue;
+            }
+            exitCodes[count] = i == slot ? moved : table.codes[i];
+            exitSquares[count++] = i == slot ? to : squares[i];
+        }
+        int value = tablebase.value(exitCodes, exitSquares, count, side ^ 1);
+        if (value < 0) {
+            throw new IllegalStateException("Table " + table.name + " needs a missing smaller table");
+        }
+        return value;
+    }
+
+    /**
+     * Adds the positions from which a piece of {@code mover} could have reached its square
+     * without capturing or promoting.
+     *
+     * @return The new number of predecessors.
+     */
+    private int unmoves(int slot, int mover, int count) {
+        int code = table.codes[slot];
+        int at = squares[slot];
+        switch (Position.typeOf(code)) {
+            case Position.KING -> count = unsteps(slot, mover, Position.KING_ATTACKS[at], count);
+            case Position.KNIGHT -> count = unsteps(slot, mover, Position.KNIGHT_ATTACKS[at], count);
+            case Position.BISHOP -> count = unslides(slot, mover, 4, 8, count);
+            case Position.ROOK -> count = unslides(slot, mover, 0, 4, count);
+            case Position.QUEEN -> count = unslides(slot, mover, 0, 8, count);
+            case Position.PAWN -> {
+                int back = mover == Position.WHITE ? -8 : 8;
+                int one = at + back;
+                // A pawn cannot have come from its first rank.
+                if (board[one] == 0 && one >= 8 && one < 56) {
+                    count = predecessor(slot, one, mover, count);
+                    int doublePushRow = mover == Position.WHITE ? 3 : 4;
+                    if (at / 8 == doublePushRow && board[one + back] == 0) {
+                        count = predecessor(slot, one + back, mover, count);
+                    }
+                }
+            }
+            default -> throw new IllegalStateException("Unknown piece " + code);
+        }
+        return count;
+    }
+
+    private int unsteps(int slot, int mover, int[] origins, int count) {
+        for (int from : origins) {
+            if (board[from] == 0) {
+                count = predecessor(slot, from, mover, count);
+            }
+        }
+        return count;
+    }
+
+    private int unslides(int slot, int mover, int firstDirection, int lastDirection, int count) {
+        for (int dir = firstDirection; dir < lastDirection; dir++) {
+            for (int from : Position.RAYS[dir][squares[slot]]) {
+                if (board[from] != 0) {
+                    break;
+                }
+                count = predecessor(slot, from, mover, count);
+            }
+        }
+        return count;
+    }
+
+    private int predecessor(int slot, int from, int mover, int count) {
+        System.arraycopy(squares, 0, childSquares, 0, pieces);
+        childSquares[slot] = from;
+        predecessors[count] = table.index(childSquares, mover);
+        return count + 1;
+    }
+}
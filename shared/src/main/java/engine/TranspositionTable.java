@@ -0,0 +1,162 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-size hash table of search results, kept off the Java heap and shared by every search
+ * thread without locks. One table can be shared by several engines so that bots and analysis
+ * reuse each other's work.
+ * <p>
+ * Entries are 16 bytes: the data word, and the position key XORed with the data. Two threads
+ * writing the same entry at once can leave a key word from one and a data word from the other;
+ * such an entry no longer XORs back to the probing key, so it is treated as a miss instead of
+ * returning another position's move and score.
+ * <p>
+ * Entries are grouped in buckets of four (one 64-byte cache line). A store replaces the entry
+ * for the same position if there is one, and otherwise the entry with the lowest depth after
+ * a penalty for each search since it was written, so deep results survive until they go stale.
+ */
+public final class TranspositionTable {
+    static final int BOUND_EXACT = 1;
+    static final int BOUND_LOWER = 2;
+    static final int BOUND_UPPER = 3;
+
+    public static final int MAX_MEGABYTES = 1024;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    private static final int AGE_BITS = 6;
+    private static final int AGE_MASK = (1 << AGE_BITS) - 1;
+    // One search of age is worth this many plies of depth when choosing what to replace.
+    private static final int AGE_PENALTY = 8;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final long bucketMask;
+    private volatile int age;
+
+    /**
+     * @param megabytes memory for the table, from 1 to {@value #MAX_MEGABYTES}; the number of
+     *                  buckets is rounded down to a power of two.
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Table size must be between 1 and " + MAX_MEGABYTES + " MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        this.buffer = ByteBuffer.allocateDirect((int) (buckets * BUCKET_BYTES));
+        this.bucketMask = buckets - 1;
+    }
+
+    public int getMegabytes() {
+        return buffer.capacity() / (1024 * 1024);
+    }
+
+    /**
+     * Marks the start of a search; entries from earlier searches become easier to replace.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * @return The data word for this key (see {@link #move} etc.), or 0 on a miss.
+     */
+    long probe(long key) {
+        int bucket = bucketOffset(key);
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int offset = bucket + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(buffer, offset + 8);
+            long check = (long) LONGS.getOpaque(buffer, offset);
+            if (data != 0 && (check ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        int bucket = bucketOffset(key);
+        int currentAge = age;
+        int target = bucket;
+        int worst = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int offset = bucket + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(buffer, offset + 8);
+            long check = (long) LONGS.getOpaque(buffer, offset);
+            if (data == 0 || (check ^ data) == key) {
+                target = offset;
+                break;
+            }
+            int staleness = (currentAge - age(data)) & AGE_MASK;
+            int value = depth(data) - AGE_PENALTY * staleness;
+            if (value < worst) {
+                worst = value;
+                target = offset;
+            }
+        }
+        long data = (move & 0x1FFFFL)
+                | (long) (score + 32768 & 0xFFFF) << 17
+                | (long) (depth & 0xFF) << 33
+                | (long) bound << 41
+                | (long) currentAge << 43;
+        LONGS.setOpaque(buffer, target, key ^ data);
+        LONGS.setOpaque(buffer, target + 8, data);
+    }
+
+    /**
+     * Empties the table. Not safe to call while a search is using it.
+     */
+    public void clear() {
+        for (int offset = 0; offset < buffer.capacity(); offset += 8) {
+            LONGS.setOpaque(buffer, offset, 0L);
+        }
+    }
+
+    private int bucketOffset(long key) {
+        return (int) (key & bucketMask) * BUCKET_BYTES;
+    }
+
+    static int move(long data) {
+        return (int) (data & 0x1FFFF);
+    }
+
+    static int score(long data) {
+        return (int) (data >>> 17 & 0xFFFF) - 32768;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 33 & 0xFF);
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 41 & 3);
+    }
+
+    static int age(long data) {
+        return (int) (data >>> 43 & AGE_MASK);
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so a mate found
+     * through one path is still scored correctly when the position is reached at another ply.
+     */
+    static int toStored(int score, int ply) {
+        if (score >= Search.MATE_THRESHOLD) {
+            return score + ply;
+        }
+        return score <= -Search.MATE_THRESHOLD ? score - ply : score;
+    }
+
+    static int fromStored(int score, int ply) {
+        if (score >= Search.MATE_THRESHOLD) {
+            return score - ply;
+        }
+        return score <= -Search.MATE_THRESHOLD ? score + ply : score;
+    }
+}
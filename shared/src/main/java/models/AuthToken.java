@@ -8,10 +8,22 @@ import java.util.Objects;
 public class AuthToken {
     private String token;
     private String username;
+    private long issuedAt;
+    private long expiresAt;
 
     public AuthToken(String token, String username) {
+        this(token, username, 0, 0);
+    }
+
+    /**
+     * @param issuedAt  when the token was issued, in epoch milliseconds.
+     * @param expiresAt when the token stops being valid, in epoch milliseconds, or 0 if it never expires.
+     */
+    public AuthToken(String token, String username, long issuedAt, long expiresAt) {
         this.token = token;
         this.username = username;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
     }
 
     public String getToken() {
@@ -22,6 +34,22 @@ public class AuthToken {
         return username;
     }
 
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @param now the current time in epoch milliseconds.
+     * @return True if the token has an expiry and it has passed.
+     */
+    public boolean isExpired(long now) {
+        return expiresAt > 0 && now >= expiresAt;
+    }
+
     public void setToken(String token) {
         this.token = token;
     }
@@ -30,6 +58,14 @@ public class AuthToken {
         this.username = username;
     }
 
+    public void setIssuedAt(long issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -52,6 +88,7 @@ public class AuthToken {
         return "AuthToken{" +
                 "token='" + token + '\'' +
                 ", username='" + username + '\'' +
+                ", expiresAt=" + expiresAt +
                 '}';
     }
 }
\ No newline at end of file
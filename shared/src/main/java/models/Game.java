@@ -19,6 +19,15 @@ public class Game {
         this.blackUsername = blackUsername;
     }
 
+    /**
+     * Creates a copy of another game.
+     *
+     * @param other the game to copy.
+     */
+    public Game(Game other) {
+        this(other.gameID, other.gameName, other.whiteUsername, other.blackUsername);
+    }
+
     public int getGameID() {
         return gameID;
     }
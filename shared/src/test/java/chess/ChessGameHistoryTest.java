@@ -0,0 +1,179 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class ChessGameHistoryTest {
+
+    private static ChessMove move(String text) {
+        return new ChessMove(new ChessPosition(text.charAt(1) - '0', text.charAt(0) - 'a' + 1),
+                new ChessPosition(text.charAt(3) - '0', text.charAt(2) - 'a' + 1), null);
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String text : moves) {
+            game.makeMove(move(text));
+        }
+    }
+
+    @Test
+    public void testThreefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition(), "The start position has occurred twice");
+        play(game, "g1f3", "g8f6", "f3g1");
+        assertFalse(game.isThreefoldRepetition());
+        play(game, "f6g8");
+        assertTrue(game.isThreefoldRepetition(), "The start position has occurred three times");
+        play(game, "b1c3");
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    public void testSameSquaresWithOtherSideToMoveIsNotRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        // The knight tour returns to the start squares in an odd number of moves for white.
+        play(game, "g1f3", "g8f6", "f3g5", "f6g8", "g5h3", "g8f6", "h3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void testHistoryMovesStartAfterLastPawnMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4", "g8f6", "g1f3");
+        assertEquals(List.of(move("g8f6"), move("g1f3")), game.getHistoryMoves());
+
+        ChessGame start = game.getHistoryStart();
+        assertEquals(ChessGame.TeamColor.BLACK, start.getTeamTurn());
+        play(start, "g8f6", "g1f3");
+        assertEquals(game.getBoard(), start.getBoard(), "Replaying the moves from the start should reach the game");
+
+        play(game, "f6e4");
+        assertTrue(game.getHistoryMoves().isEmpty(), "A capture starts the history over");
+        assertEquals(game.getBoard(), game.getHistoryStart().getBoard());
+    }
+
+    @Test
+    public void testPawnMoveResetsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8");
+        assertTrue(game.isThreefoldRepetition());
+        play(game, "e2e4");
+        assertEquals(0, game.getHalfmoveClock());
+        play(game, "g8f6", "g1f3", "f6g8", "f3g1", "g8f6", "g1f3", "f6g8", "f3g1");
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void testLostCastlingRightsAreNotRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        // Both queenside rooks step out and back, so the pieces return but the rights do not.
+        play(game, "b1c3", "b8c6", "a1b1", "a8b8", "b1a1", "b8a8", "c3b1", "c6b8");
+        assertEquals(new ChessGame().getBoard(), game.getBoard());
+        assertFalse(game.hasCastlingRight(ChessGame.TeamColor.WHITE, false));
+        assertTrue(game.hasCastlingRight(ChessGame.TeamColor.WHITE, true));
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition(), "Only two of the three positions have the same rights");
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    public void testFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        // Shuffle the rook and the black king; no capture or pawn move resets the clock.
+        String[] rookMoves = {"h1h2", "h2h3", "h3h4", "h4h5", "h5h6", "h6h5", "h5h4", "h4h3", "h3h2", "h2h1"};
+        String[] kingMoves = {"e8d8", "d8c8", "c8d8"};
+        for (int i = 0; i < 50; i++) {
+            assertFalse(game.isFiftyMoveRule());
+            play(game, rookMoves[i % rookMoves.length], nextKing(game, kingMoves));
+        }
+        assertEquals(100, game.getHalfmoveClock());
+        assertTrue(game.isFiftyMoveRule());
+    }
+
+    @Test
+    public void testInsufficientMaterial() throws InvalidMoveException {
+        assertFalse(new ChessGame().isInsufficientMaterial());
+        assertTrue(gameWith(piece(3, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)).isInsufficientMaterial());
+        // c1 and f8 are both dark squares
+        assertTrue(gameWith(piece(1, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP),
+                piece(8, 6, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP)).isInsufficientMaterial());
+        assertFalse(gameWith(piece(1, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP),
+                piece(8, 3, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP)).isInsufficientMaterial());
+        assertFalse(gameWith(piece(3, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                piece(3, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)).isInsufficientMaterial());
+
+        // Capturing the last rook leaves bare kings.
+        ChessGame game = gameWith(piece(2, 1, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        assertFalse(game.isInsufficientMaterial());
+        play(game, "a1a2");
+        assertTrue(game.isInsufficientMaterial());
+    }
+
+    @Test
+    public void testPromotionRestoresMatingMaterial() throws InvalidMoveException {
+        ChessGame game = gameWith(piece(7, 8, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                piece(6, 3, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        game.makeMove(new ChessMove(new ChessPosition(7, 8), new ChessPosition(8, 8), ChessPiece.PieceType.KNIGHT));
+        assertFalse(game.isInsufficientMaterial(), "A knight each can still mate");
+    }
+
+    private record Placed(ChessPosition position, ChessPiece piece) {
+    }
+
+    private static Placed piece(int row, int col, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return new Placed(new ChessPosition(row, col), new ChessPiece(color, type));
+    }
+
+    // White king on a1 and black king on e8 plus the given pieces, white to move.
+    private static ChessGame gameWith(Placed... pieces) {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (Placed placed : pieces) {
+            board.addPiece(placed.position(), placed.piece());
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        return game;
+    }
+
+    private static String nextKing(ChessGame game, String[] kingMoves) {
+        ChessPosition king = game.getBoard().findKingPosition(ChessGame.TeamColor.BLACK);
+        for (String text : kingMoves) {
+            if (move(text).getStartPosition().equals(king)) {
+                return text;
+            }
+        }
+        throw new AssertionError("No king move from " + king);
+    }
+
+    @Test
+    public void testHistoryIsRebuiltAfterDeserialization() throws InvalidMoveException {
+        ChessGame original = new ChessGame();
+        play(original, "g1f3", "g8f6");
+        Gson gson = new Gson();
+        ChessGame game = gson.fromJson(gson.toJson(original), ChessGame.class);
+
+        assertFalse(game.isThreefoldRepetition());
+        play(game, "f3g1", "f6g8", "g1f3", "g8f6");
+        assertFalse(game.isThreefoldRepetition(), "The received position has occurred twice since");
+        play(game, "f3g1", "f6g8", "g1f3", "g8f6");
+        assertTrue(game.isThreefoldRepetition(),
+                "Repetitions should be counted from the position the copy was received in");
+    }
+}
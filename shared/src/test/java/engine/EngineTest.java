@@ -0,0 +1,84 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTest {
+
+    private final Engine engine = new Engine();
+
+    @Test
+    public void testFindsMateInOne() {
+        // Back-rank mate: Re1-e8.
+        Position position = Position.fromFen("6k1/5ppp/8/8/8/8/8/4R1K1 w - - 0 1");
+        SearchResult result = engine.search(position, SearchLimits.depth(4));
+        assertEquals(new ChessMove(new ChessPosition(1, 5), new ChessPosition(8, 5), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertTrue(result.score() > 0);
+    }
+
+    @Test
+    public void testFindsScholarsMate() {
+        // Black defended e5 and attacked the queen instead of covering f7: Qxf7 mates.
+        Position position = Position.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+        SearchResult result = engine.search(position, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null), result.bestMove());
+        assertTrue(result.isMate());
+    }
+
+    @Test
+    public void testWinsHangingQueen() {
+        Position position = Position.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = engine.search(position, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+    }
+
+    @Test
+    public void testNoMovesWhenCheckmated() {
+        Position position = Position.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = engine.search(position, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertTrue(result.isMate());
+        assertTrue(result.score() < 0);
+    }
+
+    @Test
+    public void testRespectsTimeLimit() {
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.time(200));
+        assertNotNull(result.bestMove());
+        assertTrue(result.depth() >= 1);
+        assertTrue(result.elapsedMillis() < 1000, "Search took " + result.elapsedMillis() + " ms");
+        assertEquals(result.bestMove(), result.principalVariation().getFirst());
+    }
+
+    @Test
+    public void testSearchLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessGame before = new ChessGame();
+        engine.search(game, SearchLimits.depth(3));
+        assertEquals(before.getBoard(), game.getBoard());
+        assertEquals(before.getTeamTurn(), game.getTeamTurn());
+    }
+
+    @Test
+    public void testParallelSearchFindsMate() {
+        try (Engine parallel = new Engine(4, new TranspositionTable(4))) {
+            Position position = Position.fromFen("6k1/5ppp/8/8/8/8/8/4R1K1 w - - 0 1");
+            SearchResult result = parallel.search(position, SearchLimits.depth(5));
+            assertEquals(new ChessMove(new ChessPosition(1, 5), new ChessPosition(8, 5), null), result.bestMove());
+            assertTrue(result.isMate());
+        }
+    }
+
+    @Test
+    public void testParallelSearchRespectsTimeLimit() {
+        try (Engine parallel = new Engine(4, new TranspositionTable(4))) {
+            SearchResult result = parallel.search(new ChessGame(), SearchLimits.time(200));
+            assertNotNull(result.bestMove());
+            assertTrue(result.elapsedMillis() < 1000, "Search took " + result.elapsedMillis() + " ms");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    @TempDir
+    Path directory;
+
+    private OpeningBook build(String... lines) throws IOException {
+        OpeningBook.Builder builder = new OpeningBook.Builder();
+        for (String line : lines) {
+            builder.addLine(line);
+        }
+        Path file = directory.resolve("test.book");
+        builder.write(file);
+        return OpeningBook.open(file);
+    }
+
+    @Test
+    public void testMovesAreWeightedByLines() throws IOException {
+        OpeningBook book = build("e2e4 e7e5 g1f3", "e2e4 c7c5", "d2d4 d7d5");
+        assertEquals(6, book.size());
+
+        List<OpeningBook.BookMove> moves = book.moves(Position.fromFen(Position.START_FEN));
+        assertEquals(2, moves.size());
+        assertEquals(new OpeningBook.BookMove(Move.parse("e2e4"), 2), moves.get(0));
+        assertEquals(new OpeningBook.BookMove(Move.parse("d2d4"), 1), moves.get(1));
+
+        // Out of the book
+        assertTrue(book.moves(Position.fromFen("4k3/8/8/8/8/8/8/4K2R w K - 0 1")).isEmpty());
+    }
+
+    @Test
+    public void testChooseFollowsWeights() throws IOException {
+        OpeningBook book = build("e2e4", "e2e4", "e2e4", "d2d4");
+        Position start = Position.fromFen(Position.START_FEN);
+        Random random = new Random(7);
+        int e4 = 0;
+        for (int i = 0; i < 400; i++) {
+            int move = book.choose(start, random);
+            assertNotEquals(Move.NONE, move);
+            if (Move.toString(move).equals("e2e4")) {
+                e4++;
+            }
+        }
+        assertTrue(e4 > 250 && e4 < 350, "e2e4 should be chosen about three times in four, was " + e4 + "/400");
+    }
+
+    @Test
+    public void testGamePositionsAreFoundAfterDoublePush() throws Exception {
+        OpeningBook book = build("e2e4 e7e5 g1f3 b8c6");
+        ChessGame game = new ChessGame();
+        game.makeMove(Move.parse("e2e4"));
+        // The game and the book must agree on the key even though e2e4 was a double push.
+        assertEquals(List.of(new OpeningBook.BookMove(Move.parse("e7e5"), 1)), book.moves(Position.from(game)));
+        assertFalse(book.moves(Position.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")).isEmpty());
+    }
+
+    @Test
+    public void testEngineUsesBook() throws Exception {
+        OpeningBook book = build("g1f3 g8f6");
+        try (Engine engine = new Engine(1, new TranspositionTable(1), book)) {
+            SearchResult result = engine.search(Position.fromFen(Position.START_FEN), SearchLimits.depth(4));
+            assertTrue(result.fromBook());
+            assertEquals(Move.parse("g1f3"), result.bestMove());
+            assertEquals(0, result.nodes());
+
+            // Out of the book the engine searches as usual.
+            result = engine.search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(3));
+            assertFalse(result.fromBook());
+            assertEquals(Move.parse("a1a8"), result.bestMove());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("not.book");
+        Files.writeString(file, "e2e4 e7e5\n");
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+        assertThrows(IllegalArgumentException.class, () -> new OpeningBook.Builder().addLine("e2e5"));
+    }
+
+    @Test
+    public void testParseMove() {
+        assertEquals(new ChessMove(Move.position(52), Move.position(60), chess.ChessPiece.PieceType.QUEEN),
+                Move.parse("e7e8q"));
+        assertEquals("a7a8n", Move.toString(Move.parse("a7a8n")));
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("i2i4"));
+    }
+}
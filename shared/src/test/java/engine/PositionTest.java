@@ -0,0 +1,139 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class PositionTest {
+
+    private static long perft(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (int move : position.legalMoves()) {
+            position.makeMove(move);
+            nodes += perft(position, depth - 1);
+            position.unmakeMove(move);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testPerftFromStart() {
+        Position position = Position.fromFen(Position.START_FEN);
+        assertEquals(20, perft(position, 1));
+        assertEquals(400, perft(position, 2));
+        assertEquals(8902, perft(position, 3));
+        assertEquals(197281, perft(position, 4));
+    }
+
+    @Test
+    public void testPerftWithCastlingAndEnPassant() {
+        // "Kiwipete", a standard position that exercises castling, en passant and promotions.
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, perft(position, 1));
+        assertEquals(2039, perft(position, 2));
+        assertEquals(97862, perft(position, 3));
+    }
+
+    @Test
+    public void testUnmakeRestoresPosition() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = position.toFen();
+        long key = position.key();
+        for (int move : position.legalMoves()) {
+            position.makeMove(move);
+            assertEquals(Position.fromFen(position.toFen()).key(), position.key(),
+                    "Incremental key differs after " + Move.toString(move));
+            position.unmakeMove(move);
+            assertEquals(fen, position.toFen());
+            assertEquals(key, position.key());
+        }
+    }
+
+    @Test
+    public void testLegalMovesMatchChessGame() throws InvalidMoveException {
+        Random random = new Random(42);
+        for (int playout = 0; playout < 20; playout++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                Set<ChessMove> expected = new HashSet<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition square = new ChessPosition(row, col);
+                        ChessPiece piece = game.getBoard().getPiece(square);
+                        if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                            expected.addAll(game.validMoves(square));
+                        }
+                    }
+                }
+                Set<ChessMove> actual = new HashSet<>();
+                for (int move : Position.from(game).legalMoves()) {
+                    actual.add(Move.toChessMove(move));
+                }
+                assertEquals(expected, actual);
+                if (expected.isEmpty()) {
+                    break;
+                }
+                ChessMove[] choices = expected.toArray(new ChessMove[0]);
+                game.makeMove(choices[random.nextInt(choices.length)]);
+            }
+        }
+    }
+
+    @Test
+    public void testRepetition() {
+        Position position = Position.fromFen(Position.START_FEN);
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int i = 0; i < shuffle.length; i++) {
+            assertFalse(position.isRepetition());
+            position.makeMove(find(position, shuffle[i]));
+        }
+        assertTrue(position.isRepetition());
+    }
+
+    @Test
+    public void testRepetitionSeesGameHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String text : new String[]{"e2e4", "e7e5", "g1f3", "b8c6", "f3g1"}) {
+            game.makeMove(Move.parse(text));
+        }
+        Position position = Position.from(game);
+        assertFalse(position.isRepetition());
+        position.makeMove(find(position, "c6b8"));
+        assertTrue(position.isRepetition(), "The position after 1. e4 e5 was reached before the search");
+        assertEquals(game.getHalfmoveClock() + 1, position.halfmoveClock());
+
+        game.makeMove(Move.parse("c6b8"));
+        game.makeMove(Move.parse("d2d4"));
+        Position afterPawnMove = Position.from(game);
+        assertEquals(0, afterPawnMove.halfmoveClock());
+        afterPawnMove.makeMove(find(afterPawnMove, "b8c6"));
+        assertFalse(afterPawnMove.isRepetition(), "No position before a pawn move can recur");
+    }
+
+    @Test
+    public void testFenRoundTrip() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertEquals(fen, Position.fromFen(fen).toFen());
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("8/8/8/8/8/8/8/8 w - - 0 1"));
+    }
+
+    private static int find(Position position, String text) {
+        for (int move : position.legalMoves()) {
+            if (Move.toString(move).equals(text)) {
+                return move;
+            }
+        }
+        throw new AssertionError("No legal move " + text);
+    }
+}
@@ -0,0 +1,95 @@
+package engine;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTest {
+
+    @TempDir
+    static Path directory;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        tablebase = Tablebase.open(directory);
+        // Promotions make KPvK depend on every other three-piece table.
+        tablebase.generate("KPvK");
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probe(Position.fromFen(fen));
+    }
+
+    @Test
+    public void testGeneratesDependencies() throws IOException {
+        assertEquals(Set.of("KBvK", "KNvK", "KPvK", "KQvK", "KRvK"), tablebase.tables());
+        assertTrue(tablebase.has("KvKR"), "Either color order names the same table");
+        assertTrue(Files.exists(directory.resolve("KQvK.tb")));
+
+        Tablebase reopened = Tablebase.open(directory);
+        assertEquals(tablebase.tables(), reopened.tables());
+        assertEquals(probe("k7/8/1K6/8/8/8/8/7R w - - 0 1"),
+                reopened.probe(Position.fromFen("k7/8/1K6/8/8/8/8/7R w - - 0 1")));
+    }
+
+    @Test
+    public void testMateDistances() {
+        assertEquals(Search.MATE - 1, probe("k7/8/1K6/8/8/8/8/7R w - - 0 1"), "Rh8 mates");
+        // The same position with the colors reversed is read from the same table.
+        assertEquals(Search.MATE - 1, probe("7r/8/8/8/8/1k6/8/K7 b - - 0 1"));
+        assertEquals(-Search.MATE, probe("R6k/8/6K1/8/8/8/8/8 b - - 0 1"), "Black is mated");
+        int loss = probe("8/8/8/3k4/8/8/8/R3K3 b - - 0 1");
+        assertTrue(loss < 0 && loss > -Search.MATE, "The lone king loses, but not at once");
+    }
+
+    @Test
+    public void testDrawsAndWinsWithPawn() {
+        assertEquals(0, probe("k7/8/K7/P7/8/8/8/8 w - - 0 1"), "A rook pawn cannot win against a king in the corner");
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1") >= Search.MATE_THRESHOLD,
+                "With the king on the sixth rank in front of the pawn, white wins");
+        assertEquals(0, probe("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1"), "A knight cannot mate");
+    }
+
+    @Test
+    public void testPositionsNotCovered() {
+        assertEquals(Tablebase.NOT_FOUND, probe(Position.START_FEN));
+        assertEquals(Tablebase.NOT_FOUND, probe("4k3/8/8/8/8/8/8/Q3K2R w - - 0 1"), "No KQRvK table");
+        assertEquals(Tablebase.NOT_FOUND, probe("4k3/8/8/8/8/8/8/4K2R w K - 0 1"), "Castling is not covered");
+        assertThrows(IllegalArgumentException.class, () -> tablebase.generate("KQRvKR"));
+    }
+
+    @Test
+    public void testEnginePlaysFromTables() {
+        try (Engine engine = new Engine(1, new TranspositionTable(1), null, tablebase)) {
+            SearchResult result = engine.search(Position.fromFen("k7/8/1K6/8/8/8/8/7R w - - 0 1"), SearchLimits.depth(6));
+            assertEquals(Move.parse("h1h8"), result.bestMove());
+            assertEquals(0, result.nodes(), "No search was needed");
+            assertTrue(result.isMate());
+
+            // Capturing the last black piece reaches the tables inside the search, which then sees
+            // a mate far beyond its depth.
+            result = engine.search(Position.fromFen("8/8/3k4/8/8/8/8/r2RK3 w - - 0 1"), SearchLimits.depth(3));
+            assertEquals(Move.parse("d1a1"), result.bestMove());
+            assertTrue(result.isMate());
+        }
+    }
+
+    @Test
+    public void testEngineAgreesWithSearch() {
+        String fen = "8/8/8/8/8/2k5/8/K2R4 b - - 0 1";
+        int score = probe(fen);
+        try (Engine engine = new Engine()) {
+            SearchResult result = engine.search(Position.fromFen(fen), SearchLimits.depth(2));
+            assertTrue(score < 0 && result.score() > -Search.MATE_THRESHOLD,
+                    "A shallow search sees no mate where the tables see a long one");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package engine;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.of(12, 28, 0, Move.FLAG_DOUBLE_PUSH);
+        table.store(key, move, -250, 7, TranspositionTable.BOUND_LOWER);
+
+        long entry = table.probe(key);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    public void testMissAndClear() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, Move.of(1, 18), 10, 3, TranspositionTable.BOUND_EXACT);
+        assertEquals(0, table.probe(key + 1));
+        assertNotEquals(0, table.probe(key));
+        table.clear();
+        assertEquals(0, table.probe(key));
+    }
+
+    @Test
+    public void testReplacementPrefersShallowAndStaleEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        // A 1 MB table has 16384 buckets, so these keys all land in the same four-entry bucket.
+        long[] keys = new long[6];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 7 + i * 16384L;
+        }
+        int[] depths = {10, 2, 10, 10};
+        for (int i = 0; i < 4; i++) {
+            table.store(keys[i], Move.of(1, 18), 0, depths[i], TranspositionTable.BOUND_EXACT);
+        }
+        table.store(keys[4], Move.of(1, 18), 0, 5, TranspositionTable.BOUND_EXACT);
+        assertEquals(0, table.probe(keys[1]), "The shallowest entry should be replaced");
+        assertNotEquals(0, table.probe(keys[0]));
+        assertNotEquals(0, table.probe(keys[4]));
+
+        table.newSearch();
+        table.newSearch();
+        table.store(keys[5], Move.of(1, 18), 0, 1, TranspositionTable.BOUND_EXACT);
+        assertEquals(0, table.probe(keys[4]), "An entry two searches old should give way to a fresh one");
+        assertNotEquals(0, table.probe(keys[0]), "A deep entry should outlive a shallower stale one");
+        assertNotEquals(0, table.probe(keys[5]));
+    }
+
+    @Test
+    public void testMateScoresAreStoredRelativeToNode() {
+        int mateInThreeFromRoot = Search.MATE - 5;
+        int stored = TranspositionTable.toStored(mateInThreeFromRoot, 2);
+        assertEquals(Search.MATE - 3, stored);
+        assertEquals(Search.MATE - 7, TranspositionTable.fromStored(stored, 4));
+        assertEquals(-Search.MATE + 5, TranspositionTable.fromStored(TranspositionTable.toStored(-Search.MATE + 5, 2), 2));
+        assertEquals(42, TranspositionTable.fromStored(TranspositionTable.toStored(42, 9), 1));
+    }
+}